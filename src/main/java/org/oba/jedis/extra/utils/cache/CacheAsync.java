@@ -0,0 +1,298 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous operations of a SimpleCache, that return CompletableFuture
+ *
+ * Callers never wait for redis: operations are put in a queue and done by a task
+ * in the given executor (that can be a virtual thread executor in Java 21+)
+ *
+ * Only one batch is running at the same time for a cache; while it runs, new operations
+ * are queued, and the next batch takes up to maxBatchSize of them (smart batching), so
+ * operations from many callers are coalesced into few round trips: consecutive gets are done
+ * with one getAll, consecutive puts with one putAll and consecutive removes with one transaction
+ * Operations are done in the same order they were issued
+ *
+ * Futures are completed in the executor thread, and fail with the exception of the
+ * cache operation (all the operations of a group fail together)
+ */
+public final class CacheAsync {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheAsync.class);
+
+    private enum Type { GET, PUT, REMOVE }
+
+    private final SimpleCache cache;
+    private final Executor executor;
+    private final int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder operationCount = new LongAdder();
+    private final LongAdder failedOperations = new LongAdder();
+
+    /**
+     * Creates the asynchronous operations of a cache
+     * @param cache Cache where the operations are done
+     * @param executor Executor of the batches
+     * @param maxBatchSize Max operations per batch
+     */
+    CacheAsync(SimpleCache cache, Executor executor, int maxBatchSize) {
+        if (cache == null) throw new IllegalArgumentException("CacheAsync cache is null");
+        if (executor == null) throw new IllegalArgumentException("CacheAsync executor is null");
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("CacheAsync maxBatchSize must be more than zero");
+        this.cache = cache;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Max operations per batch
+     * @return operations
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Queues a get of some keys
+     * @param keys keys
+     * @return future with the found values
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Map<String, String>> getAll(Set<String> keys) {
+        Operation operation = new Operation(Type.GET, keys, null);
+        enqueue(operation);
+        return operation.future.thenApply( result -> (Map<String, String>) result);
+    }
+
+    /**
+     * Queues a put
+     * @param key key
+     * @param value value
+     * @return future completed when the value is stored
+     */
+    CompletableFuture<Void> put(String key, String value) {
+        Operation operation = new Operation(Type.PUT, Collections.singleton(key), value);
+        enqueue(operation);
+        return operation.future.thenApply( result -> null);
+    }
+
+    /**
+     * Queues a remove
+     * @param key key
+     * @return future with true if a value has been removed
+     */
+    CompletableFuture<Boolean> remove(String key) {
+        Operation operation = new Operation(Type.REMOVE, Collections.singleton(key), null);
+        enqueue(operation);
+        return operation.future.thenApply( result -> (Boolean) result);
+    }
+
+    /**
+     * Runs a task in the executor, outside of the batches
+     * @param task task
+     * @return future completed when the task ends
+     */
+    CompletableFuture<Void> run(Runnable task) {
+        if (closed.get()) throw new IllegalStateException("CacheAsync is closed");
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    private void enqueue(Operation operation) {
+        if (closed.get()) throw new IllegalStateException("CacheAsync is closed");
+        queue.add(operation);
+        queueSize.incrementAndGet();
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                failAll(e);
+            }
+        }
+    }
+
+    /**
+     * Runs a batch of queued operations, and schedules the next one if more are queued
+     */
+    private void drain() {
+        try {
+            List<Operation> batch = new ArrayList<>(maxBatchSize);
+            Operation operation;
+            while (batch.size() < maxBatchSize && (operation = queue.poll()) != null) {
+                queueSize.decrementAndGet();
+                batch.add(operation);
+            }
+            if (!batch.isEmpty()) {
+                runBatch(batch);
+            }
+        } finally {
+            draining.set(false);
+        }
+        // Next batch, with the operations queued meanwhile
+        scheduleDrain();
+    }
+
+    private void runBatch(List<Operation> batch) {
+        batchCount.increment();
+        operationCount.add(batch.size());
+        int from = 0;
+        while (from < batch.size()) {
+            Type type = batch.get(from).type;
+            int to = from + 1;
+            while (to < batch.size() && batch.get(to).type == type) {
+                to++;
+            }
+            List<Operation> group = batch.subList(from, to);
+            try {
+                runGroup(type, group);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Error in async {} of cache {}", type, cache.getName(), e);
+                failedOperations.add(group.size());
+                group.forEach( op -> op.future.completeExceptionally(e));
+            }
+            from = to;
+        }
+    }
+
+    private void runGroup(Type type, List<Operation> group) {
+        if (type == Type.GET) {
+            Set<String> keys = new HashSet<>();
+            group.forEach( op -> keys.addAll(op.keys));
+            Map<String, String> values = cache.getAll(keys);
+            for(Operation op: group) {
+                Map<String, String> result = new HashMap<>();
+                for(String key: op.keys) {
+                    String value = values.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+                op.future.complete(result);
+            }
+        } else if (type == Type.PUT) {
+            // The last put of a key wins, as if they were done one by one
+            Map<String, String> values = new LinkedHashMap<>();
+            group.forEach( op -> values.put(op.key(), op.value));
+            cache.putAll(values);
+            group.forEach( op -> op.future.complete(null));
+        } else {
+            Set<String> keys = new HashSet<>();
+            group.forEach( op -> keys.add(op.key()));
+            Set<String> removed = cache.removeAllExisting(keys);
+            // Only the first remove of a key finds the value
+            for(Operation op: group) {
+                op.future.complete(removed.remove(op.key()));
+            }
+        }
+    }
+
+    private void failAll(Exception e) {
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            failedOperations.increment();
+            operation.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops accepting operations, the queued ones that have not started fail
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            failAll(new IllegalStateException("CacheAsync is closed"));
+        }
+    }
+
+    /**
+     * Number of operations queued, not started
+     * @return operations
+     */
+    public int getPendingOperations() {
+        return queueSize.get();
+    }
+
+    /**
+     * Number of batches done
+     * @return batches
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * Number of operations done in batches, including the failed ones
+     * @return operations
+     */
+    public long getOperationCount() {
+        return operationCount.sum();
+    }
+
+    /**
+     * Number of operations failed
+     * @return operations
+     */
+    public long getFailedOperations() {
+        return failedOperations.sum();
+    }
+
+    /**
+     * Mean number of operations per batch
+     * @return operations, 0.0 if no batch has been done
+     */
+    public double getMeanBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0L ? 0.0 : (double) operationCount.sum() / batches;
+    }
+
+    /**
+     * Queued operation
+     */
+    private static final class Operation {
+
+        private final Type type;
+        private final Set<String> keys;
+        private final String value;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Operation(Type type, Set<String> keys, String value) {
+            this.type = type;
+            this.keys = keys;
+            this.value = value;
+        }
+
+        private String key() {
+            return keys.iterator().next();
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys or values of a TypedCache to and from the binary data stored in redis
+ *
+ * Encoded data must be decoded to an equal object,
+ * and codecs of keys should give the same bytes for equal objects
+ *
+ * @param <T> type of the converted objects
+ */
+public interface CacheCodec<T> {
+
+    /**
+     * Converts an object to binary data
+     * @param data object, not null
+     * @return binary data
+     */
+    byte[] encode(T data);
+
+    /**
+     * Converts binary data to an object
+     * @param data binary data, not null
+     * @return object
+     */
+    T decode(byte[] data);
+
+    /**
+     * Codec for strings, encoded as UTF-8
+     * @return codec
+     */
+    static CacheCodec<String> stringCodec() {
+        return StringCacheCodec.INSTANCE;
+    }
+
+    /**
+     * Codec for binary data, stored as is
+     * @return codec
+     */
+    static CacheCodec<byte[]> bytesCodec() {
+        return BytesCacheCodec.INSTANCE;
+    }
+
+    /**
+     * UTF-8 string codec
+     */
+    final class StringCacheCodec implements CacheCodec<String> {
+
+        private static final StringCacheCodec INSTANCE = new StringCacheCodec();
+
+        private StringCacheCodec() {
+        }
+
+        @Override
+        public byte[] encode(String data) {
+            return data.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /**
+     * Identity codec
+     */
+    final class BytesCacheCodec implements CacheCodec<byte[]> {
+
+        private static final BytesCacheCodec INSTANCE = new BytesCacheCodec();
+
+        private BytesCacheCodec() {
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            return data;
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            return data;
+        }
+
+    }
+
+}
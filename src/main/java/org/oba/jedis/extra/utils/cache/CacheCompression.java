@@ -0,0 +1,238 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transparent compression of the values of a SimpleCache
+ *
+ * Values whose UTF-8 size is equal or above a threshold are compressed with Deflater
+ * (at a low, fast level) and stored as a header character followed by the
+ * compressed data in Base64, as SimpleCache works with string commands
+ *
+ * The header is a unicode noncharacter (U+FFFE) that is not expected in text values;
+ * anyway, a value that starts with it is always stored compressed, so
+ * compressed and plain values can live together and are always read correctly
+ *
+ * If a compressed value is not smaller than the plain one, it is stored plain
+ *
+ * It keeps statistics of the compression ratio and of the CPU time used
+ */
+public final class CacheCompression {
+
+    public static final char HEADER = '\uFFFE';
+
+    public static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final int thresholdBytes;
+    private final int level;
+
+    private final LongAdder compressedValues = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressedValues = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    /**
+     * Creates a new compression
+     * @param thresholdBytes Min UTF-8 size of a value to be compressed
+     * @param level Deflater level, from 1 (faster) to 9 (smaller)
+     */
+    CacheCompression(int thresholdBytes, int level) {
+        if (thresholdBytes <= 0) throw new IllegalArgumentException("CacheCompression thresholdBytes must be more than zero");
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) throw new IllegalArgumentException("CacheCompression level must be between 1 and 9");
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+    }
+
+    /**
+     * Min UTF-8 size of a value to be compressed
+     * @return size in bytes
+     */
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    /**
+     * Deflater level
+     * @return level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Converts a value to its stored form, compressing it if needed
+     * @param value plain value, not null
+     * @return value to store
+     */
+    String encode(String value) {
+        boolean startsWithHeader = startsWithHeader(value);
+        // A char is never more than three bytes in UTF-8
+        if (!startsWithHeader && value.length() * 3L < thresholdBytes) {
+            return value;
+        }
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        if (!startsWithHeader && data.length < thresholdBytes) {
+            return value;
+        }
+        long start = cpuTime();
+        String compressed = HEADER + Base64.getEncoder().encodeToString(deflate(data));
+        compressNanos.add(cpuTime() - start);
+        // Base64 is ascii, the header is three bytes in UTF-8
+        int storedBytes = compressed.length() + 2;
+        if (!startsWithHeader && storedBytes >= data.length) {
+            return value;
+        }
+        compressedValues.increment();
+        uncompressedBytes.add(data.length);
+        compressedBytes.add(storedBytes);
+        return compressed;
+    }
+
+    /**
+     * Converts a stored value to the plain value, decompressing it if needed
+     * @param stored value read from redis, can be null
+     * @return plain value, null if stored is null
+     */
+    String decode(String stored) {
+        if (!startsWithHeader(stored)) {
+            return stored;
+        }
+        long start = cpuTime();
+        byte[] data = inflate(Base64.getDecoder().decode(stored.substring(1)));
+        String value = new String(data, StandardCharsets.UTF_8);
+        decompressNanos.add(cpuTime() - start);
+        decompressedValues.increment();
+        return value;
+    }
+
+    /**
+     * Checks if a value starts with the compression header
+     * @param value value, can be null
+     * @return true if starts with header
+     */
+    static boolean startsWithHeader(String value) {
+        return value != null && !value.isEmpty() && value.charAt(0) == HEADER;
+    }
+
+    private byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("CacheCompression truncated compressed value");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("CacheCompression invalid compressed value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * CPU time of the current thread, or wall time if not supported
+     * @return time in nanoseconds
+     */
+    private static long cpuTime() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        } else {
+            return System.nanoTime();
+        }
+    }
+
+    /**
+     * Number of values stored compressed
+     * @return values
+     */
+    public long getCompressedValues() {
+        return compressedValues.sum();
+    }
+
+    /**
+     * Number of compressed values read
+     * @return values
+     */
+    public long getDecompressedValues() {
+        return decompressedValues.sum();
+    }
+
+    /**
+     * Plain size of the values stored compressed
+     * @return bytes
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     * Stored size of the values stored compressed
+     * @return bytes
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * Ratio of plain size over stored size of the compressed values
+     * @return ratio, 0.0 if no value has been compressed
+     */
+    public double getCompressionRatio() {
+        long stored = compressedBytes.sum();
+        return stored == 0L ? 0.0 : (double) uncompressedBytes.sum() / stored;
+    }
+
+    /**
+     * CPU time spent compressing values (including the ones finally stored plain)
+     * @return time in milliseconds
+     */
+    public double getCompressCpuTimeMs() {
+        return compressNanos.sum() / 1_000_000.0;
+    }
+
+    /**
+     * CPU time spent decompressing values
+     * @return time in milliseconds
+     */
+    public double getDecompressCpuTimeMs() {
+        return decompressNanos.sum() / 1_000_000.0;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Probabilistic early expiration (XFetch) for a SimpleCache
+ *
+ * Loaded values are stored with the time their load took (delta), and a read treats a value
+ * as expired, and reloads it, when
+ *   - delta * beta * ln(random) &gt;= remaining time to live
+ * So the probability of an early reload grows as the expiration approaches, and it's higher
+ * for values that are expensive to load; reloads of keys stored at the same time are spread
+ * instead of happening all together at expiration
+ *
+ * The delta is stored before the value as a header character (U+FFFF, a unicode noncharacter),
+ * the delta in milliseconds and a separator; values put without a load have no delta
+ * and never expire early. Any value that starts with the header is always stored with it,
+ * so values are always read correctly even if early expiration is not enabled
+ */
+public final class CacheEarlyExpiration {
+
+    public static final char HEADER = '\uFFFF';
+
+    public static final char SEPARATOR = ':';
+
+    public static final double DEFAULT_BETA = 1.0;
+
+    private final double beta;
+
+    private final LongAdder earlyExpirations = new LongAdder();
+
+    /**
+     * Creates a new early expiration
+     * @param beta Weight of the load time, more than 1.0 favors earlier reloads
+     */
+    CacheEarlyExpiration(double beta) {
+        if (!(beta > 0.0) || Double.isInfinite(beta)) throw new IllegalArgumentException("CacheEarlyExpiration beta must be more than zero");
+        this.beta = beta;
+    }
+
+    /**
+     * Weight of the load time
+     * @return beta
+     */
+    public double getBeta() {
+        return beta;
+    }
+
+    /**
+     * Decides if a value must be treated as expired
+     * @param loadTimeMs time that the load of the value took, zero or less if unknown
+     * @param remoteTtlMs remaining time to live on redis (PTTL), less than zero if not exists or persistent
+     * @return true if the value must be reloaded
+     */
+    boolean isExpiredEarly(long loadTimeMs, long remoteTtlMs) {
+        if (loadTimeMs <= 0 || remoteTtlMs < 0) {
+            return false;
+        }
+        // Random in (0, 1], so the logarithm is finite
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        boolean expired = -loadTimeMs * beta * Math.log(random) >= remoteTtlMs;
+        if (expired) {
+            earlyExpirations.increment();
+        }
+        return expired;
+    }
+
+    /**
+     * Adds the load time to a value to be stored
+     * @param stored value to store (already encoded)
+     * @param loadTimeMs time that the load of the value took
+     * @return value with load time
+     */
+    static String withLoadTime(String stored, long loadTimeMs) {
+        return HEADER + Long.toString(loadTimeMs) + SEPARATOR + stored;
+    }
+
+    /**
+     * Checks if a value starts with the load time header
+     * @param value value, can be null
+     * @return true if starts with header
+     */
+    static boolean startsWithHeader(String value) {
+        return value != null && !value.isEmpty() && value.charAt(0) == HEADER;
+    }
+
+    /**
+     * Time that the load of a stored value took
+     * @param stored value read from redis, can be null
+     * @return time in milliseconds, zero if the value has no load time
+     */
+    static long loadTime(String stored) {
+        if (!startsWithHeader(stored)) {
+            return 0L;
+        }
+        return Long.parseLong(stored.substring(1, separatorIndex(stored)));
+    }
+
+    /**
+     * Removes the load time from a stored value
+     * @param stored value read from redis, can be null
+     * @return value without load time, null if stored is null
+     */
+    static String withoutLoadTime(String stored) {
+        if (!startsWithHeader(stored)) {
+            return stored;
+        }
+        return stored.substring(separatorIndex(stored) + 1);
+    }
+
+    private static int separatorIndex(String stored) {
+        int index = stored.indexOf(SEPARATOR);
+        if (index < 0) throw new IllegalStateException("CacheEarlyExpiration invalid stored value");
+        return index;
+    }
+
+    /**
+     * Number of values treated as expired before their expiration
+     * @return values
+     */
+    public long getEarlyExpirations() {
+        return earlyExpirations.sum();
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.oba.jedis.extra.utils.cache;
+
+/**
+ * Change of an entry of a SimpleCache, received from a redis keyspace notification
+ *
+ * Notifications don't carry the value, it must be read from the cache if needed
+ */
+public final class CacheEntryEvent {
+
+    /**
+     * Kind of change
+     */
+    public enum Type {
+        /** Written and not present before (needs 'n' in notify-keyspace-events) */
+        CREATED,
+        /** Written (or created, if new key events are not enabled) */
+        UPDATED,
+        /** Removed by a command */
+        REMOVED,
+        /** Removed by the server because its timeout is over */
+        EXPIRED,
+        /** Removed by the server because of maxmemory */
+        EVICTED
+    }
+
+    // Keyspace notification of a new key, followed by the one of the command
+    static final String NEW_KEY_EVENT = "new";
+
+    private final String cacheName;
+    private final String key;
+    private final Type type;
+
+    /**
+     * Creates an event
+     * @param cacheName Name of the cache
+     * @param key Key of the entry in the cache
+     * @param type Kind of change
+     */
+    CacheEntryEvent(String cacheName, String key, Type type) {
+        this.cacheName = cacheName;
+        this.key = key;
+        this.type = type;
+    }
+
+    /**
+     * Name of the cache of the entry
+     * @return name
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * Key of the entry in the cache (not the redis key)
+     * @return key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Kind of change
+     * @return type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Type of the change notified by a keyspace event
+     * @param event keyspace notification message (the command or event name)
+     * @return type, null if the event is not a change of the entry
+     */
+    static Type fromKeyspaceEvent(String event) {
+        switch (event) {
+            case "set":
+                return Type.UPDATED;
+            case "del":
+            case "unlink":
+                return Type.REMOVED;
+            case "expired":
+                return Type.EXPIRED;
+            case "evicted":
+                return Type.EVICTED;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheEntryEvent{cacheName=" + cacheName + ", key=" + key + ", type=" + type + "}";
+    }
+
+}
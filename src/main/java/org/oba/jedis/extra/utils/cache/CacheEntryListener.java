@@ -0,0 +1,21 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.util.List;
+
+/**
+ * Receives the changes of the entries of a SimpleCache
+ *
+ * It's called from a background thread, shared by all the caches of the same pool,
+ * so it should not block for long
+ */
+@FunctionalInterface
+public interface CacheEntryListener {
+
+    /**
+     * Receives a batch of changes of the entries of one cache, in the order they were notified
+     * Exceptions thrown are logged and ignored
+     * @param events changes, never empty
+     */
+    void onEvents(List<CacheEntryEvent> events);
+
+}
@@ -0,0 +1,360 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.JedisPool;
+import io.valkey.JedisPubSub;
+import org.oba.jedis.extra.utils.utils.JedisPoolUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subscriber of the keyspace notifications of the SimpleCache instances with entry listeners
+ *
+ * There is one per pool, shared by all the caches of the JVM: it has one connection subscribed
+ * (in a background thread) to one pattern per cache name, filtered by the prefix of the cache keys,
+ * and patterns are added and removed while the subscription runs
+ *
+ * Notifications are queued (a bounded queue, if it is full they are discarded) and dispatched
+ * to the caches by another background thread, in batches, so a slow listener doesn't stop
+ * the subscription
+ *
+ * The server must have keyspace notifications enabled, at least K$gx in notify-keyspace-events
+ * (e for evictions, n to tell creations from updates)
+ */
+final class CacheEventSubscriber implements JedisPoolUser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheEventSubscriber.class);
+
+    private static final Map<JedisPool, CacheEventSubscriber> SUBSCRIBERS = new IdentityHashMap<>();
+
+    private static final AtomicLong num = new AtomicLong();
+
+    static final String KEYSPACE_PREFIX = "__keyspace@";
+    static final String KEYSPACE_SEPARATOR = "__:";
+
+    private static final int MAX_QUEUE_SIZE = 100_000;
+    private static final int MAX_BATCH_SIZE = 1_000;
+    private static final int MAX_NEW_KEYS = 10_000;
+    private static final long RETRY_WAIT_MS = 1000;
+    private static final long POLL_WAIT_MS = 500;
+
+    private final JedisPool jedisPool;
+    private final Map<String, List<SimpleCache>> cachesByPattern = new ConcurrentHashMap<>();
+    private final BlockingQueue<String[]> notifications = new ArrayBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final Set<String> newKeys = new HashSet<>();
+    private final AtomicBoolean active = new AtomicBoolean(true);
+    private final Thread subscriberThread;
+    private final Thread dispatcherThread;
+
+    private volatile JedisPubSub currentPubSub;
+
+    private final LongAdder receivedNotifications = new LongAdder();
+    private final LongAdder discardedNotifications = new LongAdder();
+
+    /**
+     * Registers a cache to receive the events of its entries
+     * The subscriber of the pool of the cache is created if needed
+     * @param cache cache
+     */
+    static void register(SimpleCache cache) {
+        synchronized (SUBSCRIBERS) {
+            SUBSCRIBERS.computeIfAbsent(cache.getJedisPool(), CacheEventSubscriber::new).
+                    add(cache);
+        }
+    }
+
+    /**
+     * Unregisters a cache, the subscriber of the pool is closed if no cache remains
+     * @param cache cache
+     */
+    static void unregister(SimpleCache cache) {
+        synchronized (SUBSCRIBERS) {
+            CacheEventSubscriber subscriber = SUBSCRIBERS.get(cache.getJedisPool());
+            if (subscriber != null && subscriber.remove(cache)) {
+                SUBSCRIBERS.remove(cache.getJedisPool());
+                subscriber.close();
+            }
+        }
+    }
+
+    /**
+     * Pattern of the keyspace channels of the entries of a cache, in any database
+     * @param cacheName name of the cache
+     * @return pattern
+     */
+    static String keyspacePattern(String cacheName) {
+        StringBuilder pattern = new StringBuilder(KEYSPACE_PREFIX).append("*").append(KEYSPACE_SEPARATOR);
+        for(char c: cacheName.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append(":*").toString();
+    }
+
+    /**
+     * Redis key of a keyspace channel
+     * @param channel channel
+     * @return key
+     */
+    static String keyFromChannel(String channel) {
+        return channel.substring(channel.indexOf(KEYSPACE_SEPARATOR) + KEYSPACE_SEPARATOR.length());
+    }
+
+    /**
+     * Creates a subscriber, its threads are started with the first cache
+     * @param jedisPool Connection pool
+     */
+    private CacheEventSubscriber(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+        long id = num.incrementAndGet();
+        this.subscriberThread = new Thread(this::listenNotifications);
+        this.subscriberThread.setDaemon(true);
+        this.subscriberThread.setName("CacheEventSubscriber_" + id);
+        this.dispatcherThread = new Thread(this::dispatchNotifications);
+        this.dispatcherThread.setDaemon(true);
+        this.dispatcherThread.setName("CacheEventDispatcher_" + id);
+    }
+
+    @Override
+    public JedisPool getJedisPool() {
+        return jedisPool;
+    }
+
+    private void add(SimpleCache cache) {
+        String pattern = keyspacePattern(cache.getName());
+        List<SimpleCache> caches = cachesByPattern.computeIfAbsent(pattern, p -> new CopyOnWriteArrayList<>());
+        caches.add(cache);
+        if (caches.size() == 1) {
+            if (!subscriberThread.isAlive()) {
+                subscriberThread.start();
+                dispatcherThread.start();
+            } else {
+                JedisPubSub current = currentPubSub;
+                if (current != null && current.isSubscribed()) {
+                    current.psubscribe(pattern);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a cache
+     * @param cache cache
+     * @return true if no cache remains
+     */
+    private boolean remove(SimpleCache cache) {
+        String pattern = keyspacePattern(cache.getName());
+        List<SimpleCache> caches = cachesByPattern.get(pattern);
+        if (caches != null) {
+            caches.remove(cache);
+            if (caches.isEmpty()) {
+                cachesByPattern.remove(pattern);
+                JedisPubSub current = currentPubSub;
+                if (!cachesByPattern.isEmpty() && current != null && current.isSubscribed()) {
+                    current.punsubscribe(pattern);
+                }
+            }
+        }
+        return cachesByPattern.isEmpty();
+    }
+
+    /**
+     * Internal method of subscriber thread
+     * If the subscription fails, it retries until closed; notifications could be lost meanwhile
+     * Patterns added while subscribing are included when the subscription starts
+     */
+    private void listenNotifications() {
+        while (active.get()) {
+            try {
+                withJedisPoolDo(jedis -> {
+                    Set<String> patterns = new HashSet<>(cachesByPattern.keySet());
+                    jedis.psubscribe(new KeyspacePubSub(patterns), patterns.toArray(new String[0]));
+                });
+                currentPubSub = null;
+                if (active.get()) {
+                    LOGGER.debug("Cache keyspace subscription ended, retrying");
+                    waitToRetry();
+                }
+            } catch (Exception e) {
+                currentPubSub = null;
+                if (active.get()) {
+                    LOGGER.warn("Error in cache keyspace subscription, retrying", e);
+                    waitToRetry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscription of the keyspace patterns
+     * When it begins, the patterns of the caches added or removed after it was requested are updated
+     */
+    private final class KeyspacePubSub extends JedisPubSub {
+
+        private final Set<String> requestedPatterns;
+        private boolean caughtUp = false;
+
+        private KeyspacePubSub(Set<String> requestedPatterns) {
+            this.requestedPatterns = requestedPatterns;
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            onNotification(pattern, channel, message);
+        }
+
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            if (!active.get()) {
+                punsubscribe();
+            } else if (!caughtUp) {
+                caughtUp = true;
+                currentPubSub = this;
+                for(String current: cachesByPattern.keySet()) {
+                    if (!requestedPatterns.contains(current)) {
+                        psubscribe(current);
+                    }
+                }
+                for(String requested: requestedPatterns) {
+                    if (!cachesByPattern.containsKey(requested)) {
+                        punsubscribe(requested);
+                    }
+                }
+            }
+        }
+
+    }
+
+    private void waitToRetry() {
+        try {
+            Thread.sleep(RETRY_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            active.set(false);
+        }
+    }
+
+    /**
+     * Queues a notification, it's discarded if the queue is full
+     * @param pattern pattern of the cache
+     * @param channel keyspace channel, with the redis key
+     * @param event keyspace event
+     */
+    private void onNotification(String pattern, String channel, String event) {
+        receivedNotifications.increment();
+        if (!notifications.offer(new String[]{pattern, channel, event})) {
+            discardedNotifications.increment();
+            LOGGER.debug("Cache keyspace notification discarded, queue is full");
+        }
+    }
+
+    /**
+     * Internal method of dispatcher thread
+     */
+    private void dispatchNotifications() {
+        List<String[]> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (active.get() || !notifications.isEmpty()) {
+            try {
+                String[] first = notifications.poll(POLL_WAIT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                notifications.drainTo(batch, MAX_BATCH_SIZE - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error dispatching cache keyspace notifications", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Converts a batch of notifications to events and gives them to the caches
+     * @param batch notifications
+     */
+    private void dispatch(List<String[]> batch) {
+        Map<String, List<CacheEntryEvent>> eventsByPattern = new LinkedHashMap<>();
+        for(String[] notification: batch) {
+            String pattern = notification[0];
+            String redisKey = keyFromChannel(notification[1]);
+            String event = notification[2];
+            if (CacheEntryEvent.NEW_KEY_EVENT.equals(event)) {
+                if (newKeys.size() >= MAX_NEW_KEYS) {
+                    newKeys.clear();
+                }
+                newKeys.add(redisKey);
+                continue;
+            }
+            CacheEntryEvent.Type type = CacheEntryEvent.fromKeyspaceEvent(event);
+            boolean isNew = newKeys.remove(redisKey);
+            List<SimpleCache> caches = cachesByPattern.get(pattern);
+            if (type == null || caches == null || caches.isEmpty()) {
+                continue;
+            }
+            if (type == CacheEntryEvent.Type.UPDATED && isNew) {
+                type = CacheEntryEvent.Type.CREATED;
+            }
+            SimpleCache cache = caches.get(0);
+            eventsByPattern.computeIfAbsent(pattern, p -> new ArrayList<>()).
+                    add(new CacheEntryEvent(cache.getName(), cache.unresolveKey(redisKey), type));
+        }
+        eventsByPattern.forEach((pattern, events) -> {
+            List<SimpleCache> caches = cachesByPattern.get(pattern);
+            if (caches != null) {
+                List<CacheEntryEvent> unmodifiable = Collections.unmodifiableList(events);
+                caches.forEach(cache -> cache.dispatchEntryEvents(unmodifiable));
+            }
+        });
+    }
+
+    /**
+     * Ends the subscription, the queued notifications are dispatched before the dispatcher ends
+     */
+    private void close() {
+        active.set(false);
+        JedisPubSub current = currentPubSub;
+        if (current != null && current.isSubscribed()) {
+            current.punsubscribe();
+        }
+    }
+
+    /**
+     * Number of notifications received
+     * @return notifications
+     */
+    long getReceivedNotifications() {
+        return receivedNotifications.sum();
+    }
+
+    /**
+     * Number of notifications discarded because the queue was full
+     * @return notifications
+     */
+    long getDiscardedNotifications() {
+        return discardedNotifications.sum();
+    }
+
+}
@@ -0,0 +1,387 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.params.ScanParams;
+import io.valkey.resps.ScanResult;
+import io.valkey.resps.Tuple;
+import org.oba.jedis.extra.utils.utils.JedisPoolUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Size bound of a SimpleCache, with approximate LRU or LFU eviction
+ *
+ * Accesses to the keys (reads that find a value and writes) are recorded in memory,
+ * without calling redis, and flushed periodically by a background thread into a sorted set
+ * of the cache (its name with ACCESS_SUFFIX, outside the key space of the entries):
+ * with LRU the score is the last access time, with LFU it's the number of accesses
+ *
+ * Keys removed from the cache are recorded too, and their members removed in the same flush
+ *
+ * After every flush, if the sorted set has more than maxEntries members, the ones with
+ * the lowest scores are popped atomically (ZPOPMIN) and evicted from the cache
+ * (and from the near cache), in chunks
+ *
+ * Members of entries expired by timeout are discarded in the flushes: every flush checks
+ * one page of the sorted set (continuing the scan of the previous flush) and removes
+ * the members without entry; with LRU, members not accessed in the timeout of the cache
+ * are also discarded on every flush
+ * A member discarded just before its key is loaded again is added by its next access
+ *
+ * The bound is approximate: accesses of other instances are only known after their flush,
+ * and members of expired entries count until they are discarded
+ */
+public final class CacheEviction implements JedisPoolUser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheEviction.class);
+
+    public static final String ACCESS_SUFFIX = "__access";
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1_000L;
+
+    private static final int EVICTION_CHUNK = 100;
+
+    private static final int MAX_BUFFERED_KEYS = 10_000;
+
+    private static final long CLOSE_WAIT_MS = 5_000L;
+
+    private static final AtomicLong num = new AtomicLong();
+
+    /**
+     * Criteria to choose the entries to evict
+     */
+    public enum Policy {
+        /** Least recently used */
+        LRU,
+        /** Least frequently used */
+        LFU
+    }
+
+    private final SimpleCache cache;
+    private final long maxEntries;
+    private final Policy policy;
+    private final String accessKey;
+
+    // LRU: last access time, LFU: accesses since last flush
+    private final ConcurrentHashMap<String, Long> accesses = new ConcurrentHashMap<>();
+    // Removed since last flush
+    private final Set<String> removals = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService scheduler;
+    // Cursor of the scan of the sorted set for members without entry, continued on every flush
+    private volatile String sweepCursor = ScanParams.SCAN_POINTER_START;
+
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder evictedEntries = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * Creates the size bound and starts its flusher thread
+     * @param cache Cache where the bound applies
+     * @param maxEntries Max entries of the cache
+     * @param policy Eviction policy
+     * @param flushIntervalMs Time between flushes of the accesses
+     */
+    CacheEviction(SimpleCache cache, long maxEntries, Policy policy, long flushIntervalMs) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("CacheEviction maxEntries must be more than zero");
+        if (policy == null) throw new IllegalArgumentException("CacheEviction policy is null");
+        if (flushIntervalMs <= 0) throw new IllegalArgumentException("CacheEviction flushIntervalMs must be more than zero");
+        this.cache = cache;
+        this.maxEntries = maxEntries;
+        this.policy = policy;
+        this.accessKey = cache.getName() + ACCESS_SUFFIX;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            thread.setName("CacheEviction_" + cache.getName() + "_" + num.incrementAndGet());
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public JedisPool getJedisPool() {
+        return cache.getJedisPool();
+    }
+
+    /**
+     * Max entries of the cache
+     * @return entries
+     */
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Eviction policy
+     * @return policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Redis key of the sorted set with the accesses
+     * @return key
+     */
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    /**
+     * Records an access to a key, only in memory
+     * @param key key
+     */
+    void recordAccess(String key) {
+        removals.remove(key);
+        if (policy == Policy.LRU) {
+            accesses.put(key, System.currentTimeMillis());
+        } else {
+            accesses.merge(key, 1L, Long::sum);
+        }
+        requestFlushIfFull();
+    }
+
+    /**
+     * Records an access to some keys, only in memory
+     * @param keys keys
+     */
+    void recordAccess(Iterable<String> keys) {
+        keys.forEach(this::recordAccess);
+    }
+
+    /**
+     * Records the removal of a key, only in memory
+     * Its member will be removed from the sorted set in the next flush
+     * @param key key
+     */
+    void recordRemoval(String key) {
+        accesses.remove(key);
+        removals.add(key);
+        requestFlushIfFull();
+    }
+
+    /**
+     * Records the removal of some keys, only in memory
+     * @param keys keys
+     */
+    void recordRemoval(Iterable<String> keys) {
+        keys.forEach(this::recordRemoval);
+    }
+
+    private void requestFlushIfFull() {
+        if (accesses.size() + removals.size() >= MAX_BUFFERED_KEYS && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Flushes the recorded accesses now and evicts the exceeding entries
+     * It is also done periodically by the background thread
+     */
+    public void flush() {
+        flushRequested.set(false);
+        try {
+            Map<String, Double> scores = new HashMap<>();
+            for(String key: accesses.keySet()) {
+                Long value = accesses.remove(key);
+                if (value != null) {
+                    scores.put(key, value.doubleValue());
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            for(String key: removals) {
+                if (removals.remove(key)) {
+                    removed.add(key);
+                }
+            }
+            withJedisPoolDo(jedis -> {
+                long size = writeAccesses(jedis, scores, removed);
+                size -= sweep(jedis);
+                if (size > maxEntries) {
+                    evict(jedis, size - maxEntries);
+                }
+            });
+            flushCount.increment();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error flushing accesses of cache {}", cache.getName(), e);
+            failedFlushes.increment();
+        }
+    }
+
+    /**
+     * Writes the accesses and removals in the sorted set in one pipeline
+     * @param jedis connection
+     * @param scores accesses by key
+     * @param removed removed keys
+     * @return size of the sorted set
+     */
+    private long writeAccesses(Jedis jedis, Map<String, Double> scores, List<String> removed) {
+        Pipeline pipeline = jedis.pipelined();
+        if (!removed.isEmpty()) {
+            pipeline.zrem(accessKey, removed.toArray(new String[0]));
+        }
+        if (policy == Policy.LRU) {
+            if (!scores.isEmpty()) {
+                pipeline.zadd(accessKey, scores);
+            }
+            // Not accessed in the cache timeout, so expired
+            long expiredBefore = System.currentTimeMillis() - cache.getTimeOutMs();
+            pipeline.zremrangeByScore(accessKey, "-inf", "(" + expiredBefore);
+        } else {
+            scores.forEach((key, count) -> pipeline.zincrby(accessKey, count, key));
+        }
+        Response<Long> size = pipeline.zcard(accessKey);
+        pipeline.sync();
+        return size.get();
+    }
+
+    /**
+     * Removes the members without entry of the next page of the sorted set
+     * @param jedis connection
+     * @return number of members removed
+     */
+    private long sweep(Jedis jedis) {
+        ScanParams scanParams = new ScanParams().count(EVICTION_CHUNK);
+        ScanResult<Tuple> scanResult = jedis.zscan(accessKey, sweepCursor, scanParams);
+        sweepCursor = scanResult.getCursor();
+        List<String> members = scanResult.getResult().stream().
+                map(Tuple::getElement).
+                collect(Collectors.toList());
+        if (members.isEmpty()) {
+            return 0L;
+        }
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Boolean>> exists = new ArrayList<>(members.size());
+        for(String member: members) {
+            exists.add(cache.getStorage().exists(pipeline, member));
+        }
+        pipeline.sync();
+        List<String> dead = new ArrayList<>();
+        for(int i = 0; i < members.size(); i++) {
+            if (!Boolean.TRUE.equals(exists.get(i).get())) {
+                dead.add(members.get(i));
+            }
+        }
+        if (dead.isEmpty()) {
+            return 0L;
+        }
+        long removed = jedis.zrem(accessKey, dead.toArray(new String[0]));
+        LOGGER.debug("Discarded {} members without entry from cache {}", removed, cache.getName());
+        return removed;
+    }
+
+    /**
+     * Evicts the entries with lowest scores
+     * Victims are popped from the sorted set before being evicted, so a member added again
+     * meanwhile by other instance is kept; a victim without entry is evicted for free
+     * @param jedis connection
+     * @param count number of members to remove
+     */
+    private void evict(Jedis jedis, long count) {
+        long remaining = count;
+        long evicted = 0L;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(remaining, EVICTION_CHUNK);
+            List<String> victims = jedis.zpopmin(accessKey, chunk).stream().
+                    map(Tuple::getElement).
+                    collect(Collectors.toList());
+            if (victims.isEmpty()) {
+                break;
+            }
+            evicted += cache.evict(jedis, victims);
+            remaining -= victims.size();
+        }
+        evictedEntries.add(evicted);
+        LOGGER.debug("Evicted {} entries from cache {}", evicted, cache.getName());
+    }
+
+    /**
+     * Removes all the accesses, recorded and flushed
+     * @param jedis connection
+     */
+    void clear(Jedis jedis) {
+        accesses.clear();
+        removals.clear();
+        sweepCursor = ScanParams.SCAN_POINTER_START;
+        jedis.del(accessKey);
+    }
+
+    /**
+     * Stops the flusher thread, after a last flush
+     */
+    void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(CLOSE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Eviction thread not finished on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Number of keys with accesses not flushed
+     * @return keys
+     */
+    public int getPendingAccesses() {
+        return accesses.size();
+    }
+
+    /**
+     * Number of removed keys not flushed
+     * @return keys
+     */
+    public int getPendingRemovals() {
+        return removals.size();
+    }
+
+    /**
+     * Number of flushes done
+     * @return flushes
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * Number of flushes failed in redis
+     * @return flushes
+     */
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+
+    /**
+     * Number of entries evicted
+     * @return entries
+     */
+    public long getEvictedEntries() {
+        return evictedEntries.sum();
+    }
+
+}
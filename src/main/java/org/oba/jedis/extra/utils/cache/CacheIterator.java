@@ -1,10 +1,8 @@
 package org.oba.jedis.extra.utils.cache;
 
-import org.oba.jedis.extra.utils.iterators.ScanIterator;
 import org.oba.jedis.extra.utils.utils.Listable;
 import org.oba.jedis.extra.utils.utils.Mapeable;
 import org.oba.jedis.extra.utils.utils.SimpleEntry;
-import io.valkey.Jedis;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -18,7 +16,9 @@ import java.util.Set;
 
 /**
  * Iterator that travels by all pairs of key-values of the cache.
- * Every entry can cause two operations on jedis, one for scan and other for get
+ * Values are retrieved one scan page at a time (with one MGET per page, or within the HSCAN
+ * with hash storage) and buffered; entries expired during the iteration and tombstones of
+ * negative caching are skipped
  */
 public final class CacheIterator implements Iterator<Map.Entry<String, String>>,
         Listable<Map.Entry<String, String>>, Mapeable<String, String> {
@@ -27,7 +27,9 @@ public final class CacheIterator implements Iterator<Map.Entry<String, String>>,
 
 
     private final SimpleCache cache;
-    private final ScanIterator scanIterator;
+    private final Iterator<Map.Entry<String, String>> entriesIterator;
+
+    private Map.Entry<String, String> nextEntry;
 
     /**
      * Internal constructor
@@ -35,26 +37,29 @@ public final class CacheIterator implements Iterator<Map.Entry<String, String>>,
      */
     CacheIterator(SimpleCache cache) {
         this.cache = cache;
-        this.scanIterator = new ScanIterator(cache.getJedisPool(), cache.resolveKey("*"), DEFAULT_RESULTS_PER_SCAN_ITERATORS);
+        this.entriesIterator = cache.getStorage().entriesIterator();
     }
 
     @Override
     public boolean hasNext() {
-        return scanIterator.hasNext();
+        while (nextEntry == null && entriesIterator.hasNext()) {
+            Map.Entry<String, String> entry = entriesIterator.next();
+            String value = cache.decodeValue(entry.getValue());
+            if (value != null) {
+                nextEntry = new SimpleEntry(entry.getKey(), value);
+            }
+        }
+        return nextEntry != null;
     }
 
     @Override
     public Map.Entry<String, String> next() {
-        String redisKey = scanIterator.next();
-        if (redisKey != null) {
-            try(Jedis jedis = cache.getJedisPool().getResource()) {
-                String value = jedis.get(redisKey);
-                String key = cache.unresolveKey(redisKey);
-                return new SimpleEntry(key, value);
-            }
-        } else {
-            throw new NoSuchElementException("No next value");
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more entries");
         }
+        Map.Entry<String, String> entry = nextEntry;
+        nextEntry = null;
+        return entry;
     }
 
     /**
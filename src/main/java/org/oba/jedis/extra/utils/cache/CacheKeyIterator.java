@@ -1,6 +1,5 @@
 package org.oba.jedis.extra.utils.cache;
 
-import org.oba.jedis.extra.utils.iterators.ScanIterator;
 import org.oba.jedis.extra.utils.utils.Listable;
 
 import java.util.ArrayList;
@@ -8,62 +7,48 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * Iterator that travels by all keys of the cache.
  * Every entry can cause two operations on jedis, one for scan and other for get
+ * With negative caching, values are read with the keys (one scan page at a time)
+ * to skip the tombstones
  */
 public final class CacheKeyIterator implements Iterator<String>, Listable<String> {
 
     public static final int DEFAULT_RESULTS_PER_SCAN_ITERATORS = 50;
 
-    private static final boolean DEFAULT_RESOLVE = true;
-
     private final SimpleCache cache;
-    private final ScanIterator scanIterator;
+    private final Iterator<String> keysIterator;
 
     private String currentKey;
 
-    private final boolean resolve;
-
     /**
      * Internal constructor
      * @param cache Cache where the iterator belongs
      */
     CacheKeyIterator(SimpleCache cache) {
-        this(cache, DEFAULT_RESOLVE);
-    }
-
-    /**
-     * Internal constructor
-     * @param cache Cache where the iterator belongs
-     * @param resolve if names should be resolved or recovered as are in redis
-     */
-    CacheKeyIterator(SimpleCache cache, boolean resolve) {
         this.cache = cache;
-        this.resolve = resolve;
-        this.scanIterator = new ScanIterator(cache.getJedisPool(), cache.resolveKey("*"), DEFAULT_RESULTS_PER_SCAN_ITERATORS);
+        if (cache.isNegativeCaching()) {
+            this.keysIterator = new ValueKeysIterator(cache.getStorage().entriesIterator());
+        } else {
+            this.keysIterator = cache.getStorage().keysIterator();
+        }
     }
 
     @Override
     public boolean hasNext() {
         currentKey = null;
-        return scanIterator.hasNext();
+        return keysIterator.hasNext();
     }
 
     @Override
     public String next() {
-        currentKey = scanIterator.next();
-        if (currentKey != null) {
-            if (resolve) {
-                currentKey = cache.unresolveKey(currentKey);
-            }
-            return currentKey;
-        } else {
-            throw new NoSuchElementException("No next key value");
-        }
+        currentKey = keysIterator.next();
+        return currentKey;
     }
 
     /**
@@ -91,6 +76,41 @@ public final class CacheKeyIterator implements Iterator<String>, Listable<String
         return Collections.unmodifiableList(new ArrayList<>(set));
     }
 
+    /**
+     * Iterator of the keys of the entries that are values, not tombstones
+     */
+    private static final class ValueKeysIterator implements Iterator<String> {
+
+        private final Iterator<Map.Entry<String, String>> entriesIterator;
+        private String nextKey;
+
+        private ValueKeysIterator(Iterator<Map.Entry<String, String>> entriesIterator) {
+            this.entriesIterator = entriesIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextKey == null && entriesIterator.hasNext()) {
+                Map.Entry<String, String> entry = entriesIterator.next();
+                if (SimpleCache.isValue(entry.getValue())) {
+                    nextKey = entry.getKey();
+                }
+            }
+            return nextKey != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            String key = nextKey;
+            nextKey = null;
+            return key;
+        }
+
+    }
+
 
 
 }
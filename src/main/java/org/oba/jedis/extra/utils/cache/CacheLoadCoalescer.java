@@ -0,0 +1,254 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import io.valkey.params.SetParams;
+import org.oba.jedis.extra.utils.interruptinglocks.JedisLock;
+import org.oba.jedis.extra.utils.utils.JedisPoolUser;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.oba.jedis.extra.utils.utils.TimeLimit;
+import org.oba.jedis.extra.utils.utils.UniversalReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Avoids concurrent read-through loads of the same key (single-flight)
+ *
+ * In a JVM, concurrent misses of the same key with the same cacheloader share one load;
+ * the first thread loads the value and the others wait for its result
+ *
+ * Optionally, across JVMs, a short-lived loading marker is set in redis (SET NX PX) by the
+ * process that loads the key. The others wait (polling) until the value appears in redis,
+ * the marker disappears (then they try to load again) or the max waiting time is over
+ * (then they load the value by themselves)
+ *
+ * Loading markers are stored outside the key space of the cache, so they aren't scanned as entries
+ */
+final class CacheLoadCoalescer implements JedisPoolUser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheLoadCoalescer.class);
+
+    public static final String LOADING_MARKER_SUFFIX = "__loading";
+
+    public static final long DEFAULT_POLL_MS = 25;
+
+    private final SimpleCache cache;
+    private final long markerTtlMs;
+    private final long maxWaitMs;
+    private final ScriptEvalSha1 unlockScript;
+    private final ConcurrentMap<String, InFlightLoad> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a coalescer only for the current JVM
+     * @param cache Cache where the coalescer belongs
+     */
+    CacheLoadCoalescer(SimpleCache cache) {
+        this(cache, 0L, 0L);
+    }
+
+    /**
+     * Creates a coalescer for the current JVM and, if markerTtlMs is more than zero, across JVMs
+     * @param cache Cache where the coalescer belongs
+     * @param markerTtlMs Time to live of the loading marker, should be longer than a load
+     * @param maxWaitMs Max time to wait for other process to load a value
+     */
+    CacheLoadCoalescer(SimpleCache cache, long markerTtlMs, long maxWaitMs) {
+        this.cache = cache;
+        this.markerTtlMs = markerTtlMs;
+        this.maxWaitMs = maxWaitMs;
+        if (markerTtlMs > 0) {
+            this.unlockScript = new ScriptEvalSha1(cache.getJedisPool(), new UniversalReader().
+                    withResoruce(JedisLock.SCRIPT_NAME).
+                    withFile(JedisLock.FILE_PATH));
+        } else {
+            this.unlockScript = null;
+        }
+    }
+
+    @Override
+    public JedisPool getJedisPool() {
+        return cache.getJedisPool();
+    }
+
+    /**
+     * If the coalescing works across JVMs
+     * @return true if a loading marker is used
+     */
+    boolean isDistributed() {
+        return markerTtlMs > 0;
+    }
+
+    /**
+     * Key of the loading marker of a cache key
+     * @param key cache key
+     * @return redis key of the marker
+     */
+    String resolveLoadingMarkerKey(String key) {
+        return cache.getName() + LOADING_MARKER_SUFFIX + ":" + key;
+    }
+
+    /**
+     * Loads a value, sharing the load with other threads loading the same key
+     * @param key key to load
+     * @param cacheLoader loader used, only loads with the same loader are shared
+     * @param loadAndStore operation that loads the value and stores it in redis
+     * @return loaded value, can be null
+     */
+    String load(String key, CacheLoader cacheLoader, Supplier<String> loadAndStore) {
+        InFlightLoad own = new InFlightLoad(cacheLoader);
+        InFlightLoad current = inFlight.putIfAbsent(key, own);
+        if (current != null && current.cacheLoader == cacheLoader) {
+            LOGGER.debug("read-through load key {} joined", key);
+            return current.await();
+        } else if (current != null) {
+            return distributedLoad(key, loadAndStore);
+        }
+        try {
+            String value = distributedLoad(key, loadAndStore);
+            own.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Loads a value; if a loading marker is used, only one process will load it
+     * @param key key to load
+     * @param loadAndStore operation that loads the value and stores it in redis
+     * @return loaded value, can be null
+     */
+    private String distributedLoad(String key, Supplier<String> loadAndStore) {
+        if (!isDistributed()) {
+            return loadAndStore.get();
+        }
+        String markerKey = resolveLoadingMarkerKey(key);
+        String token = UUID.randomUUID().toString();
+        TimeLimit timeLimit = new TimeLimit(maxWaitMs);
+        while (timeLimit.checkInLimit()) {
+            if (acquireMarker(markerKey, token)) {
+                try {
+                    return loadAndStore.get();
+                } finally {
+                    releaseMarker(markerKey, token);
+                }
+            }
+            LOGGER.debug("read-through load key {} waiting for other process", key);
+            WaitResult waitResult = waitForValue(key, markerKey, timeLimit);
+            if (waitResult.resolved) {
+                return waitResult.value;
+            }
+        }
+        LOGGER.debug("read-through load key {} not loaded by other process in time", key);
+        return loadAndStore.get();
+    }
+
+    private boolean acquireMarker(String markerKey, String token) {
+        SetParams setParams = new SetParams().nx().px(markerTtlMs);
+        return withJedisPoolGet(jedis -> jedis.set(markerKey, token, setParams)) != null;
+    }
+
+    private void releaseMarker(String markerKey, String token) {
+        unlockScript.evalSha(Collections.singletonList(markerKey), Collections.singletonList(token));
+    }
+
+    /**
+     * Waits until the value is in redis, the marker is released or the time is over
+     * @param key cache key
+     * @param markerKey loading marker key
+     * @param timeLimit max time to wait
+     * @return result with the value, not resolved if not found
+     */
+    private WaitResult waitForValue(String key, String markerKey, TimeLimit timeLimit) {
+        while (timeLimit.checkInLimit()) {
+            doWait(Math.min(DEFAULT_POLL_MS, timeLimit.checkTimeRest()));
+            WaitResult waitResult = withJedisPoolGet(jedis -> checkValueAndMarker(jedis, key, markerKey));
+            if (waitResult.resolved || !waitResult.markerExists) {
+                return waitResult;
+            }
+        }
+        return new WaitResult(null, false, true);
+    }
+
+    private WaitResult checkValueAndMarker(Jedis jedis, String key, String markerKey) {
+        Transaction t = jedis.multi();
+        Response<String> value = cache.getStorage().get(t, key);
+        Response<Boolean> markerExists = t.exists(markerKey);
+        t.exec();
+        String stored = value.get();
+        if (stored == null) {
+            return new WaitResult(null, false, markerExists.get());
+        }
+        // A tombstone is a resolved load without value, shared as a null
+        return new WaitResult(cache.decodeValue(stored), true, markerExists.get());
+    }
+
+    private static void doWait(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a load", e);
+        }
+    }
+
+    /**
+     * A load running in this JVM
+     */
+    private static final class InFlightLoad {
+
+        private final CacheLoader cacheLoader;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private InFlightLoad(CacheLoader cacheLoader) {
+            this.cacheLoader = cacheLoader;
+        }
+
+        private String await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                } else {
+                    throw e;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Result of waiting for a load of other process
+     */
+    private static final class WaitResult {
+
+        private final String value;
+        // Value found, null only if other process found no value (tombstone)
+        private final boolean resolved;
+        private final boolean markerExists;
+
+        private WaitResult(String value, boolean resolved, boolean markerExists) {
+            this.value = value;
+            this.resolved = resolved;
+            this.markerExists = markerExists;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refresh-ahead (stale-while-revalidate) for a SimpleCache
+ *
+ * When a value is read inside a window before its expiration, the current value is returned
+ * and the key is reloaded in background, so frequently read keys never expire and
+ * readers don't wait for the cache loader
+ *
+ * Reloads are done by a bounded pool of daemon threads with a bounded queue; only one
+ * reload per key is pending or running at the same time, and if the queue is full
+ * the reload is discarded (the value will be loaded on a later read, or after expiration)
+ */
+public final class CacheRefreshAhead {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheRefreshAhead.class);
+
+    private static final AtomicLong num = new AtomicLong();
+
+    private static final long KEEP_ALIVE_MS = 60_000L;
+
+    private static final long CLOSE_WAIT_MS = 5_000L;
+
+    private final long refreshWindowMs;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder failedRefreshes = new LongAdder();
+    private final LongAdder rejectedRefreshes = new LongAdder();
+
+    /**
+     * Creates a refresh-ahead with its threads
+     * @param cacheName Name of the cache
+     * @param refreshWindowMs Time before expiration where reads trigger a reload
+     * @param maxThreads Max concurrent reloads
+     * @param maxQueueSize Max pending reloads
+     */
+    CacheRefreshAhead(String cacheName, long refreshWindowMs, int maxThreads, int maxQueueSize) {
+        if (refreshWindowMs <= 0) throw new IllegalArgumentException("CacheRefreshAhead refreshWindowMs must be more than zero");
+        if (maxThreads <= 0) throw new IllegalArgumentException("CacheRefreshAhead maxThreads must be more than zero");
+        if (maxQueueSize <= 0) throw new IllegalArgumentException("CacheRefreshAhead maxQueueSize must be more than zero");
+        this.refreshWindowMs = refreshWindowMs;
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("CacheRefreshAhead_" + cacheName + "_" + num.incrementAndGet());
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Time before expiration where reads trigger a reload
+     * @return time in milliseconds
+     */
+    public long getRefreshWindowMs() {
+        return refreshWindowMs;
+    }
+
+    /**
+     * Checks if a value read with the given remaining time to live must be reloaded
+     * @param remoteTtlMs remaining time to live on redis (PTTL), less than zero if not exists or persistent
+     * @return true if inside the refresh window
+     */
+    boolean needsRefresh(long remoteTtlMs) {
+        return remoteTtlMs >= 0 && remoteTtlMs < refreshWindowMs;
+    }
+
+    /**
+     * Reloads a key in background, if there isn't a reload of the key pending or running
+     * @param key key
+     * @param reload reload of the value
+     */
+    void refresh(String key, Runnable reload) {
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    reload.run();
+                    refreshCount.increment();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Error in refresh-ahead of key {}", key, e);
+                    failedRefreshes.increment();
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("refresh-ahead of key {} discarded, queue is full", key);
+            inFlight.remove(key);
+            rejectedRefreshes.increment();
+        }
+    }
+
+    /**
+     * Stops the threads, pending reloads are discarded and running ones are waited for a while
+     */
+    void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(CLOSE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Refresh-ahead threads not finished on close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of reloads pending or running
+     * @return reloads
+     */
+    public int getPendingRefreshes() {
+        return inFlight.size();
+    }
+
+    /**
+     * Number of reloads done
+     * @return reloads
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * Number of reloads failed in the cache loader or in redis
+     * @return reloads
+     */
+    public long getFailedRefreshes() {
+        return failedRefreshes.sum();
+    }
+
+    /**
+     * Number of reloads discarded because the queue was full
+     * @return reloads
+     */
+    public long getRejectedRefreshes() {
+        return rejectedRefreshes.sum();
+    }
+
+}
@@ -0,0 +1,321 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot of the entries of a SimpleCache in a binary file, to warm up a cold cache
+ *
+ * The file has a header (magic and version) and a record per entry, ended by a record
+ * with no key; every record has the expiration time (epoch milliseconds, or -1 if the entry has
+ * no expiration), the key and the stored value (as stored, compressed or with load time),
+ * both as UTF-8 with their length before
+ *
+ * Export reads the entries one scan page at a time, with the values and remaining times to live
+ * of a page in one pipeline; warm-up reads the file as a stream and writes the entries
+ * in pipelines of WARM_UP_BATCH_SIZE values with their own timeout, skipping the expired ones
+ *
+ * Files are written and read through a FileChannel with a buffer, so memory doesn't
+ * grow with the size of the cache
+ */
+final class CacheSnapshot {
+
+    static final int MAGIC = 0x4A435331; // JCS1
+    static final int VERSION = 1;
+
+    static final int EXPORT_PAGE_SIZE = 500;
+    static final int WARM_UP_BATCH_SIZE = 1_000;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int END_OF_RECORDS = -1;
+    private static final long NO_EXPIRATION = -1L;
+
+    private CacheSnapshot() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Writes all the entries of a cache in a file, replacing it if it exists
+     * @param cache cache
+     * @param storage storage of the cache
+     * @param file file
+     * @return number of entries written
+     */
+    static long export(SimpleCache cache, CacheStorage storage, Path file) {
+        try (Writer writer = new Writer(file)) {
+            long count = 0L;
+            Iterator<String> keys = storage.keysIterator();
+            List<String> page = new ArrayList<>(EXPORT_PAGE_SIZE);
+            while (keys.hasNext()) {
+                page.add(keys.next());
+                if (page.size() == EXPORT_PAGE_SIZE || !keys.hasNext()) {
+                    count += cache.withJedisPoolGet(jedis -> exportPage(jedis, storage, page, writer));
+                    page.clear();
+                }
+            }
+            writer.writeEnd();
+            return count;
+        }
+    }
+
+    private static long exportPage(Jedis jedis, CacheStorage storage, List<String> keys, Writer writer) {
+        Pipeline pipeline = jedis.pipelined();
+        Response<List<String>> values = storage.getAll(pipeline, keys);
+        List<Supplier<Long>> ttls = new ArrayList<>(keys.size());
+        for(String key: keys) {
+            ttls.add(storage.pttl(pipeline, key));
+        }
+        pipeline.sync();
+        long now = System.currentTimeMillis();
+        long count = 0L;
+        for(int i = 0; i < keys.size(); i++) {
+            String value = values.get().get(i);
+            Long ttl = ttls.get(i).get();
+            // Removed or expired while exporting
+            if (value != null && ttl != null && ttl != -2L) {
+                writer.write(ttl >= 0 ? now + ttl : NO_EXPIRATION, keys.get(i), value);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the entries of a file in a cache, overwriting the current values
+     * Expired entries are skipped, entries with no expiration use the cache timeout
+     * @param cache cache
+     * @param storage storage of the cache
+     * @param file file
+     * @param writtenBatch called with the keys written in every batch
+     * @return number of entries written in the cache
+     */
+    static long warmUp(SimpleCache cache, CacheStorage storage, Path file, Consumer<List<String>> writtenBatch) {
+        try (Reader reader = new Reader(file)) {
+            long count = 0L;
+            List<Record> batch = new ArrayList<>(WARM_UP_BATCH_SIZE);
+            Record record;
+            while ((record = reader.next()) != null) {
+                batch.add(record);
+                if (batch.size() == WARM_UP_BATCH_SIZE) {
+                    count += cache.withJedisPoolGet(jedis -> warmUpBatch(jedis, cache, storage, batch, writtenBatch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += cache.withJedisPoolGet(jedis -> warmUpBatch(jedis, cache, storage, batch, writtenBatch));
+            }
+            return count;
+        }
+    }
+
+    private static long warmUpBatch(Jedis jedis, SimpleCache cache, CacheStorage storage, List<Record> batch,
+                                    Consumer<List<String>> writtenBatch) {
+        long now = System.currentTimeMillis();
+        List<String> written = new ArrayList<>(batch.size());
+        Pipeline pipeline = jedis.pipelined();
+        for(Record record: batch) {
+            long timeOutMs = record.expireAtMs == NO_EXPIRATION ? cache.getTimeOutMs() : record.expireAtMs - now;
+            if (timeOutMs > 0) {
+                storage.setAll(pipeline, Collections.singletonMap(record.key, record.value), timeOutMs);
+                written.add(record.key);
+            }
+        }
+        pipeline.sync();
+        if (!written.isEmpty()) {
+            writtenBatch.accept(written);
+        }
+        return written.size();
+    }
+
+    /**
+     * Writer of snapshot files
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(Path file) {
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException opening snapshot " + file, e);
+            }
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+        }
+
+        void write(long expireAtMs, String key, String value) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureSpace(Long.BYTES + Integer.BYTES * 2 + keyBytes.length + valueBytes.length);
+            buffer.putLong(expireAtMs);
+            buffer.putInt(keyBytes.length);
+            buffer.put(keyBytes);
+            buffer.putInt(valueBytes.length);
+            buffer.put(valueBytes);
+        }
+
+        void writeEnd() {
+            ensureSpace(Long.BYTES + Integer.BYTES);
+            buffer.putLong(NO_EXPIRATION);
+            buffer.putInt(END_OF_RECORDS);
+        }
+
+        private void ensureSpace(int size) {
+            if (buffer.remaining() < size) {
+                flush();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size);
+                }
+            }
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException writing snapshot", e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() {
+            try {
+                flush();
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException closing snapshot", e);
+            }
+        }
+
+    }
+
+    /**
+     * Streaming reader of snapshot files
+     */
+    static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private boolean ended = false;
+
+        Reader(Path file) {
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException opening snapshot " + file, e);
+            }
+            buffer.flip();
+            try {
+                ensureAvailable(Integer.BYTES * 2);
+                if (buffer.getInt() != MAGIC) throw new IllegalStateException("Snapshot " + file + " is not a cache snapshot");
+                int version = buffer.getInt();
+                if (version != VERSION) throw new IllegalStateException("Snapshot " + file + " version " + version + " not supported");
+            } catch (IllegalStateException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reads the next record
+         * @return record, null if there are no more
+         */
+        Record next() {
+            if (ended) {
+                return null;
+            }
+            ensureAvailable(Long.BYTES + Integer.BYTES);
+            long expireAtMs = buffer.getLong();
+            int keyLength = buffer.getInt();
+            if (keyLength == END_OF_RECORDS) {
+                ended = true;
+                return null;
+            }
+            String key = readString(keyLength);
+            ensureAvailable(Integer.BYTES);
+            String value = readString(buffer.getInt());
+            return new Record(expireAtMs, key, value);
+        }
+
+        private String readString(int length) {
+            ensureAvailable(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensureAvailable(int size) {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            if (buffer.capacity() < size) {
+                ByteBuffer bigger = ByteBuffer.allocate(size);
+                bigger.put(buffer);
+                buffer = bigger;
+            } else {
+                buffer.compact();
+            }
+            try {
+                while (buffer.position() < size) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IllegalStateException("Snapshot truncated");
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException reading snapshot", e);
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("IOException closing snapshot", e);
+            }
+        }
+
+    }
+
+    /**
+     * Entry of a snapshot
+     */
+    static final class Record {
+
+        final long expireAtMs;
+        final String key;
+        final String value;
+
+        Record(long expireAtMs, String key, String value) {
+            this.expireAtMs = expireAtMs;
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+}
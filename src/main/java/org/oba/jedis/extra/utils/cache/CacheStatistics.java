@@ -0,0 +1,350 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a SimpleCache
+ *
+ * Counters of hits, misses, loads, load failures, puts, removals and write-through calls,
+ * and latency histograms of remote gets, loader calls and writer calls
+ * All of them are striped counters, so recording is cheap and doesn't allocate
+ *
+ * Values can be read with a snapshot, or by JMX if the statistics are registered
+ * (as org.oba.jedis.extra.utils.cache:type=SimpleCache,name=cacheName)
+ */
+public final class CacheStatistics implements CacheStatisticsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheStatistics.class);
+
+    public static final String JMX_DOMAIN = "org.oba.jedis.extra.utils.cache";
+
+    private final String cacheName;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    private final LatencyHistogram remoteGetLatency = new LatencyHistogram();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    private ObjectName registeredName;
+
+    /**
+     * Creates empty statistics
+     * @param cacheName name of the cache
+     */
+    CacheStatistics(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    /**
+     * Name of the cache
+     * @return name
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    void recordHits(long count) {
+        hits.add(count);
+    }
+
+    void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    void recordRemoteGet(long startNanos) {
+        remoteGetLatency.recordSince(startNanos);
+    }
+
+    void recordLoad(long count, long startNanos) {
+        loads.add(count);
+        loadLatency.recordSince(startNanos);
+    }
+
+    void recordLoadFailure(long startNanos) {
+        loadFailures.increment();
+        loadLatency.recordSince(startNanos);
+    }
+
+    void recordPuts(long count) {
+        puts.add(count);
+    }
+
+    void recordRemovals(long count) {
+        removals.add(count);
+    }
+
+    void recordWrite(long startNanos) {
+        writes.increment();
+        writeLatency.recordSince(startNanos);
+    }
+
+    void recordWriteFailure(long startNanos) {
+        writeFailures.increment();
+        writeLatency.recordSince(startNanos);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long currentHits = hits.sum();
+        long total = currentHits + misses.sum();
+        return total == 0L ? 0.0 : (double) currentHits / total;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    @Override
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    @Override
+    public long getRemovalCount() {
+        return removals.sum();
+    }
+
+    @Override
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getWriteFailureCount() {
+        return writeFailures.sum();
+    }
+
+    @Override
+    public double getRemoteGetMeanMs() {
+        return remoteGetLatency.snapshot().getMeanMs();
+    }
+
+    @Override
+    public double getRemoteGetP99Ms() {
+        return remoteGetLatency.snapshot().getPercentileMs(99.0);
+    }
+
+    @Override
+    public double getLoadMeanMs() {
+        return loadLatency.snapshot().getMeanMs();
+    }
+
+    @Override
+    public double getLoadP99Ms() {
+        return loadLatency.snapshot().getPercentileMs(99.0);
+    }
+
+    @Override
+    public double getWriteMeanMs() {
+        return writeLatency.snapshot().getMeanMs();
+    }
+
+    @Override
+    public double getWriteP99Ms() {
+        return writeLatency.snapshot().getPercentileMs(99.0);
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        loads.reset();
+        loadFailures.reset();
+        puts.reset();
+        removals.reset();
+        writes.reset();
+        writeFailures.reset();
+        remoteGetLatency.reset();
+        loadLatency.reset();
+        writeLatency.reset();
+    }
+
+    /**
+     * Current values of all the statistics
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Registers the statistics in the platform MBean server
+     * If other statistics are registered with the same cache name, they are not replaced
+     */
+    synchronized void registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=SimpleCache,name=" + ObjectName.quote(cacheName));
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                LOGGER.warn("Statistics of cache {} already registered in JMX, not registered again", cacheName);
+            } else {
+                mBeanServer.registerMBean(this, objectName);
+                registeredName = objectName;
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Error registering statistics of cache {} in JMX", cacheName, e);
+        }
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server, if registered
+     */
+    synchronized void unregisterMBean() {
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException e) {
+                LOGGER.warn("Error unregistering statistics of cache {} from JMX", cacheName, e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * If the statistics are registered in JMX
+     * @return true if registered
+     */
+    public synchronized boolean isRegisteredMBean() {
+        return registeredName != null;
+    }
+
+    /**
+     * Values of the statistics in a moment
+     */
+    public static final class Snapshot {
+
+        private final String cacheName;
+        private final long hitCount;
+        private final long missCount;
+        private final long loadCount;
+        private final long loadFailureCount;
+        private final long putCount;
+        private final long removalCount;
+        private final long writeCount;
+        private final long writeFailureCount;
+        private final LatencyHistogram.Snapshot remoteGetLatency;
+        private final LatencyHistogram.Snapshot loadLatency;
+        private final LatencyHistogram.Snapshot writeLatency;
+
+        private Snapshot(CacheStatistics statistics) {
+            this.cacheName = statistics.cacheName;
+            this.hitCount = statistics.hits.sum();
+            this.missCount = statistics.misses.sum();
+            this.loadCount = statistics.loads.sum();
+            this.loadFailureCount = statistics.loadFailures.sum();
+            this.putCount = statistics.puts.sum();
+            this.removalCount = statistics.removals.sum();
+            this.writeCount = statistics.writes.sum();
+            this.writeFailureCount = statistics.writeFailures.sum();
+            this.remoteGetLatency = statistics.remoteGetLatency.snapshot();
+            this.loadLatency = statistics.loadLatency.snapshot();
+            this.writeLatency = statistics.writeLatency.snapshot();
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * Ratio of hits over all the gets
+         * @return ratio between 0.0 and 1.0, 0.0 if no get has been done
+         */
+        public double getHitRatio() {
+            long total = hitCount + missCount;
+            return total == 0L ? 0.0 : (double) hitCount / total;
+        }
+
+        public long getLoadCount() {
+            return loadCount;
+        }
+
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        public long getRemovalCount() {
+            return removalCount;
+        }
+
+        public long getWriteCount() {
+            return writeCount;
+        }
+
+        public long getWriteFailureCount() {
+            return writeFailureCount;
+        }
+
+        public LatencyHistogram.Snapshot getRemoteGetLatency() {
+            return remoteGetLatency;
+        }
+
+        public LatencyHistogram.Snapshot getLoadLatency() {
+            return loadLatency;
+        }
+
+        public LatencyHistogram.Snapshot getWriteLatency() {
+            return writeLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStatistics.Snapshot{cacheName=" + cacheName +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", loadCount=" + loadCount +
+                    ", loadFailureCount=" + loadFailureCount +
+                    ", putCount=" + putCount +
+                    ", removalCount=" + removalCount +
+                    ", writeCount=" + writeCount +
+                    ", writeFailureCount=" + writeFailureCount +
+                    ", remoteGetLatency=" + remoteGetLatency +
+                    ", loadLatency=" + loadLatency +
+                    ", writeLatency=" + writeLatency + "}";
+        }
+
+    }
+
+}
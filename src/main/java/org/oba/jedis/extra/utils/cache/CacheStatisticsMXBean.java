@@ -0,0 +1,44 @@
+package org.oba.jedis.extra.utils.cache;
+
+/**
+ * JMX view of the statistics of a SimpleCache
+ * Latencies are in milliseconds
+ */
+public interface CacheStatisticsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    long getPutCount();
+
+    long getRemovalCount();
+
+    long getWriteCount();
+
+    long getWriteFailureCount();
+
+    double getRemoteGetMeanMs();
+
+    double getRemoteGetP99Ms();
+
+    double getLoadMeanMs();
+
+    double getLoadP99Ms();
+
+    double getWriteMeanMs();
+
+    double getWriteP99Ms();
+
+    /**
+     * Clears all the counters and histograms
+     */
+    void reset();
+
+}
@@ -0,0 +1,199 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Layout of the entries of a SimpleCache in redis
+ *
+ * Keys are the external (unresolved) keys of the cache, and values are the stored values
+ * (already encoded by the cache); the storage resolves where every entry lives
+ *
+ * Operations with a Transaction or a Pipeline only queue the commands,
+ * results are available after exec/sync
+ */
+interface CacheStorage {
+
+    /**
+     * Gets a value
+     * @param jedis connection
+     * @param key key
+     * @return stored value, null if not exists
+     */
+    String get(Jedis jedis, String key);
+
+    /**
+     * Gets a value in a transaction
+     * @param transaction transaction
+     * @param key key
+     * @return response with the stored value
+     */
+    Response<String> get(Transaction transaction, String key);
+
+    /**
+     * Gets values
+     * @param jedis connection
+     * @param keys keys
+     * @return stored values in the same order as keys, null if not exists
+     */
+    List<String> getAll(Jedis jedis, List<String> keys);
+
+    /**
+     * Gets values in a pipeline
+     * @param pipeline pipeline
+     * @param keys keys
+     * @return response with the stored values in the same order as keys
+     */
+    Response<List<String>> getAll(Pipeline pipeline, List<String> keys);
+
+    /**
+     * Remaining time to live of a value in a transaction
+     * @param transaction transaction
+     * @param key key
+     * @return time in milliseconds, less than zero if not exists or persistent
+     */
+    Supplier<Long> pttl(Transaction transaction, String key);
+
+    /**
+     * Remaining time to live of a value in a pipeline
+     * @param pipeline pipeline
+     * @param key key
+     * @return time in milliseconds, less than zero if not exists or persistent
+     */
+    Supplier<Long> pttl(Pipeline pipeline, String key);
+
+    /**
+     * Checks if a value exists
+     * @param jedis connection
+     * @param key key
+     * @return true if exists
+     */
+    boolean exists(Jedis jedis, String key);
+
+    /**
+     * Checks if a value exists in a pipeline
+     * @param pipeline pipeline
+     * @param key key
+     * @return response, true if exists
+     */
+    Response<Boolean> exists(Pipeline pipeline, String key);
+
+    /**
+     * Stores a value
+     * @param jedis connection
+     * @param key key
+     * @param value value
+     * @param timeOutMs time to live
+     */
+    void set(Jedis jedis, String key, String value, long timeOutMs);
+
+    /**
+     * Stores a value in a transaction
+     * @param transaction transaction
+     * @param key key
+     * @param value value
+     * @param timeOutMs time to live
+     */
+    void set(Transaction transaction, String key, String value, long timeOutMs);
+
+    /**
+     * Stores a value if not exists
+     * @param jedis connection
+     * @param key key
+     * @param value value
+     * @param timeOutMs time to live
+     * @return true if stored
+     */
+    boolean setIfAbsent(Jedis jedis, String key, String value, long timeOutMs);
+
+    /**
+     * Stores values in a transaction
+     * @param transaction transaction
+     * @param values keys and values
+     * @param timeOutMs time to live
+     */
+    void setAll(Transaction transaction, Map<String, String> values, long timeOutMs);
+
+    /**
+     * Stores values in a pipeline
+     * @param pipeline pipeline
+     * @param values keys and values
+     * @param timeOutMs time to live
+     */
+    void setAll(Pipeline pipeline, Map<String, String> values, long timeOutMs);
+
+    /**
+     * Deletes a value
+     * @param jedis connection
+     * @param key key
+     * @return true if deleted
+     */
+    boolean delete(Jedis jedis, String key);
+
+    /**
+     * Deletes a value in a transaction
+     * @param transaction transaction
+     * @param key key
+     */
+    void delete(Transaction transaction, String key);
+
+    /**
+     * Deletes values
+     * @param jedis connection
+     * @param keys keys
+     * @return number of values deleted (tombstones included)
+     */
+    long deleteAll(Jedis jedis, Collection<String> keys);
+
+    /**
+     * Runs a conditional operation on a value with the conditional script, in one round trip
+     * @param script conditional script
+     * @param operation operation of the script
+     * @param key key
+     * @param expected expected stored value, can be empty if not used
+     * @param value new stored value, can be empty if not used
+     * @param timeOutMs time to live of the new value
+     * @return previous stored value if the operation was done, null otherwise
+     */
+    String conditional(ScriptEvalSha1 script, String operation, String key, String expected, String value, long timeOutMs);
+
+    /**
+     * Iterator of all the keys, no data is retrieved until used
+     * Can return duplicated keys
+     * @return keys iterator
+     */
+    Iterator<String> keysIterator();
+
+    /**
+     * Iterator of all the keys and stored values, no data is retrieved until used
+     * Can return duplicated entries
+     * @return entries iterator
+     */
+    Iterator<Map.Entry<String, String>> entriesIterator();
+
+    /**
+     * Removes all the values, one scan page at a time, so memory doesn't grow with the size of the cache
+     * Values are freed by the server in background (UNLINK)
+     * @param removedPage called with the keys removed in every page, can be null if not needed
+     * @return number of removed values
+     */
+    long removeAll(Consumer<List<String>> removedPage);
+
+    /**
+     * Number of values, without keeping the keys in memory
+     * It can be approximate, see every storage
+     * @return size
+     */
+    long size();
+
+}
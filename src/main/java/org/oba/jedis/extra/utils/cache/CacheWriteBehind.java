@@ -0,0 +1,369 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind for a SimpleCache CacheWriter
+ *
+ * Writes and deletes are not done by the calling thread, they are put in a bounded queue
+ * that is drained by a background thread, in batches through CacheWriter.writeAll and deleteAll
+ *
+ * The queue coalesces the operations by key, only the last one for every key is kept
+ * (and keeps the position of the first one, so a hot key doesn't starve)
+ *
+ * A batch is flushed when there are batchSize operations or when flushIntervalMs has passed
+ * since the last flush.
+ * When the queue is full, callers wait until there's space (backpressure)
+ * When closed, all pending operations are flushed before the background thread ends
+ *
+ * Errors on the CacheWriter are logged and counted, the failed operations are discarded
+ * If the cache has statistics, every call to the CacheWriter is recorded there as a write
+ * (or a write failure) with its latency
+ */
+public final class CacheWriteBehind {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWriteBehind.class);
+
+    private static final AtomicLong num = new AtomicLong();
+
+    private static final Object DELETE = new Object();
+
+    private final CacheWriter cacheWriter;
+    private final Supplier<CacheStatistics> statistics;
+    private final int maxQueueSize;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final LinkedHashMap<String, Object> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private boolean active = true;
+    private boolean flushRequested = false;
+    private boolean flushing = false;
+
+    private final Thread flusherThread;
+
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushedOperations = new LongAdder();
+    private final LongAdder failedOperations = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    /**
+     * Creates and starts a write-behind queue
+     * @param cacheName Name of the cache
+     * @param cacheWriter Writer to external sources
+     * @param statistics Current statistics of the cache, can give null if not enabled
+     * @param maxQueueSize Max pending operations, callers will wait if full
+     * @param batchSize Operations per flush
+     * @param flushIntervalMs Max time between flushes
+     */
+    CacheWriteBehind(String cacheName, CacheWriter cacheWriter, Supplier<CacheStatistics> statistics,
+                     int maxQueueSize, int batchSize, long flushIntervalMs) {
+        if (cacheWriter == null) throw new IllegalArgumentException("CacheWriteBehind cacheWriter is null");
+        if (maxQueueSize <= 0) throw new IllegalArgumentException("CacheWriteBehind maxQueueSize must be more than zero");
+        if (batchSize <= 0 || batchSize > maxQueueSize) throw new IllegalArgumentException("CacheWriteBehind batchSize must be between one and maxQueueSize");
+        if (flushIntervalMs <= 0) throw new IllegalArgumentException("CacheWriteBehind flushIntervalMs must be more than zero");
+        this.cacheWriter = cacheWriter;
+        this.statistics = statistics;
+        this.maxQueueSize = maxQueueSize;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flusherThread = new Thread(this::runFlusher);
+        this.flusherThread.setDaemon(true);
+        this.flusherThread.setName("CacheWriteBehind_" + cacheName + "_" + num.incrementAndGet());
+        this.flusherThread.start();
+    }
+
+    /**
+     * Queues a write
+     * @param key key
+     * @param value value
+     */
+    void write(String key, String value) {
+        enqueue(key, value);
+    }
+
+    /**
+     * Queues writes
+     * @param values keys and values
+     */
+    void writeAll(Map<String, String> values) {
+        values.forEach(this::enqueue);
+    }
+
+    /**
+     * Queues a delete
+     * @param key key
+     */
+    void delete(String key) {
+        enqueue(key, DELETE);
+    }
+
+    /**
+     * Queues deletes
+     * @param keys keys
+     */
+    void deleteAll(Iterable<String> keys) {
+        keys.forEach(this::delete);
+    }
+
+    private void enqueue(String key, Object operation) {
+        lock.lock();
+        try {
+            if (!active) throw new IllegalStateException("CacheWriteBehind is closed");
+            while (pending.size() >= maxQueueSize && !pending.containsKey(key)) {
+                flushNeeded.signal();
+                notFull.awaitUninterruptibly();
+                if (!active) throw new IllegalStateException("CacheWriteBehind is closed");
+            }
+            pending.put(key, operation);
+            if (pending.size() >= batchSize) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes all pending operations and waits for them to be written
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            flushRequested = true;
+            flushNeeded.signal();
+            while (!pending.isEmpty() || flushing) {
+                drained.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes all pending operations and stops the background thread
+     * No more operations are accepted
+     */
+    void close() {
+        lock.lock();
+        try {
+            active = false;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while closing write-behind, {} operations not flushed", getQueueDepth());
+        }
+    }
+
+    /**
+     * Internal method of thread
+     */
+    private void runFlusher() {
+        boolean running = true;
+        while (running) {
+            Map<String, Object> batch = nextBatch();
+            if (!batch.isEmpty()) {
+                flushBatch(batch);
+            }
+            lock.lock();
+            try {
+                flushing = false;
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                    drained.signalAll();
+                    running = active;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits for a batch and takes it from the queue
+     * @return batch of operations, can be empty
+     */
+    private Map<String, Object> nextBatch() {
+        lock.lock();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+            while (active && !flushRequested && pending.size() < batchSize) {
+                long waitNanos = deadline - System.nanoTime();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                flushNeeded.awaitNanos(waitNanos);
+            }
+            Map<String, Object> batch = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Object>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, Object> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            flushing = !batch.isEmpty();
+            notFull.signalAll();
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends a batch to the cache writer
+     * Writes and deletes are sent in separate calls, and each call is counted as flushed or failed
+     * on its own, so a failed delete doesn't undo the count of the stored values (nor the reverse)
+     * @param batch operations
+     */
+    private void flushBatch(Map<String, Object> batch) {
+        Map<String, String> writes = new LinkedHashMap<>();
+        List<String> deletes = new ArrayList<>();
+        batch.forEach((key, operation) -> {
+            if (operation == DELETE) {
+                deletes.add(key);
+            } else {
+                writes.put(key, (String) operation);
+            }
+        });
+        CacheStatistics currentStatistics = statistics.get();
+        long start = System.nanoTime();
+        try {
+            if (!writes.isEmpty()) {
+                LOGGER.debug("write-behind store values {}", writes);
+                flushCall(writes.size(), () -> cacheWriter.writeAll(writes), currentStatistics);
+            }
+            if (!deletes.isEmpty()) {
+                LOGGER.debug("write-behind delete keys {}", deletes);
+                flushCall(deletes.size(), () -> cacheWriter.deleteAll(deletes), currentStatistics);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushCount.increment();
+            totalFlushNanos.add(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Does one call to the cache writer, counting its operations as flushed or failed
+     * @param operations number of operations sent in the call
+     * @param call call to the cache writer
+     * @param currentStatistics statistics of the cache, can be null
+     */
+    private void flushCall(int operations, Runnable call, CacheStatistics currentStatistics) {
+        long callStart = System.nanoTime();
+        try {
+            call.run();
+            flushedOperations.add(operations);
+            if (currentStatistics != null) {
+                currentStatistics.recordWrite(callStart);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error in write-behind flush of {} operations", operations, e);
+            failedOperations.add(operations);
+            if (currentStatistics != null) {
+                currentStatistics.recordWriteFailure(callStart);
+            }
+        }
+    }
+
+    /**
+     * Current number of pending operations
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Max number of pending operations
+     * @return max queue size
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Number of flushes done
+     * @return flush count
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * Number of operations written to the cache writer
+     * @return operations
+     */
+    public long getFlushedOperations() {
+        return flushedOperations.sum();
+    }
+
+    /**
+     * Number of operations failed in the cache writer
+     * @return operations
+     */
+    public long getFailedOperations() {
+        return failedOperations.sum();
+    }
+
+    /**
+     * Latency of the last flush
+     * @return time in milliseconds
+     */
+    public double getLastFlushLatencyMs() {
+        return lastFlushNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Max latency of a flush
+     * @return time in milliseconds
+     */
+    public double getMaxFlushLatencyMs() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Average latency of flushes
+     * @return time in milliseconds, zero if no flush has been done
+     */
+    public double getAverageFlushLatencyMs() {
+        long count = flushCount.sum();
+        return count == 0L ? 0.0 : totalFlushNanos.sum() / 1_000_000.0 / count;
+    }
+
+}
@@ -0,0 +1,322 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import io.valkey.commands.ProtocolCommand;
+import io.valkey.params.ScanParams;
+import io.valkey.resps.ScanResult;
+import io.valkey.util.SafeEncoder;
+import org.oba.jedis.extra.utils.iterators.HScanIterator;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Hash layout of a SimpleCache: all the entries live in one redis hash, named as the cache,
+ * every key is a field of the hash with its own expiration
+ *
+ * Values are stored with HSETEX (value and expiration in one command) and the remaining
+ * time to live is read with HPTTL, so a server with hash field expiration is required
+ *
+ * Operations on the whole cache don't scan the database: iteration is an HSCAN of
+ * the hash, size is HLEN and clear is one UNLINK
+ */
+final class HashCacheStorage implements CacheStorage {
+
+    public static final int DEFAULT_RESULTS_PER_SCAN_ITERATORS = 50;
+
+    private static final String PX = "PX";
+    private static final String FNX = "FNX";
+    private static final String FIELDS = "FIELDS";
+    private static final String ONE = "1";
+
+    // Storage name for the conditional script
+    private static final String STORAGE_NAME = "hash";
+
+    private final SimpleCache cache;
+
+    /**
+     * Internal constructor
+     * @param cache Cache where the storage belongs
+     */
+    HashCacheStorage(SimpleCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Name of the hash with all the entries
+     * @return hash key
+     */
+    String getHashKey() {
+        return cache.getName();
+    }
+
+    private HScanIterator newHScanIterator() {
+        return new HScanIterator(cache.getJedisPool(), getHashKey(), DEFAULT_RESULTS_PER_SCAN_ITERATORS);
+    }
+
+    /**
+     * Arguments of a HSETEX command
+     * @param values fields and values
+     * @param timeOutMs time to live
+     * @param onlyIfAbsent add FNX, only set if no field exists
+     * @return arguments
+     */
+    private String[] hsetexArgs(Map<String, String> values, long timeOutMs, boolean onlyIfAbsent) {
+        List<String> args = new ArrayList<>(6 + values.size() * 2);
+        args.add(getHashKey());
+        if (onlyIfAbsent) {
+            args.add(FNX);
+        }
+        args.add(PX);
+        args.add(Long.toString(timeOutMs));
+        args.add(FIELDS);
+        args.add(Integer.toString(values.size()));
+        values.forEach((k, v) -> {
+            args.add(k);
+            args.add(v);
+        });
+        return args.toArray(new String[0]);
+    }
+
+    private String[] hsetexArgs(String key, String value, long timeOutMs, boolean onlyIfAbsent) {
+        return hsetexArgs(Map.of(key, value), timeOutMs, onlyIfAbsent);
+    }
+
+    private String[] hpttlArgs(String key) {
+        return new String[]{getHashKey(), FIELDS, ONE, key};
+    }
+
+    /**
+     * Extracts the time to live of the only field of a HPTTL response
+     * @param response HPTTL response
+     * @return time in milliseconds, less than zero if not exists or persistent
+     */
+    private static Long firstTtl(Object response) {
+        if (response instanceof List && !((List<?>) response).isEmpty()) {
+            return (Long) ((List<?>) response).get(0);
+        } else {
+            return -2L;
+        }
+    }
+
+    @Override
+    public String get(Jedis jedis, String key) {
+        return jedis.hget(getHashKey(), key);
+    }
+
+    @Override
+    public Response<String> get(Transaction transaction, String key) {
+        return transaction.hget(getHashKey(), key);
+    }
+
+    @Override
+    public List<String> getAll(Jedis jedis, List<String> keys) {
+        return jedis.hmget(getHashKey(), keys.toArray(new String[0]));
+    }
+
+    @Override
+    public Response<List<String>> getAll(Pipeline pipeline, List<String> keys) {
+        return pipeline.hmget(getHashKey(), keys.toArray(new String[0]));
+    }
+
+    @Override
+    public Supplier<Long> pttl(Transaction transaction, String key) {
+        Response<Object> response = transaction.sendCommand(HashFieldCommand.HPTTL, hpttlArgs(key));
+        return () -> firstTtl(response.get());
+    }
+
+    @Override
+    public Supplier<Long> pttl(Pipeline pipeline, String key) {
+        Response<Object> response = pipeline.sendCommand(HashFieldCommand.HPTTL, hpttlArgs(key));
+        return () -> firstTtl(response.get());
+    }
+
+    @Override
+    public boolean exists(Jedis jedis, String key) {
+        return jedis.hexists(getHashKey(), key);
+    }
+
+    @Override
+    public Response<Boolean> exists(Pipeline pipeline, String key) {
+        return pipeline.hexists(getHashKey(), key);
+    }
+
+    @Override
+    public void set(Jedis jedis, String key, String value, long timeOutMs) {
+        jedis.sendCommand(HashFieldCommand.HSETEX, hsetexArgs(key, value, timeOutMs, false));
+    }
+
+    @Override
+    public void set(Transaction transaction, String key, String value, long timeOutMs) {
+        transaction.sendCommand(HashFieldCommand.HSETEX, hsetexArgs(key, value, timeOutMs, false));
+    }
+
+    @Override
+    public boolean setIfAbsent(Jedis jedis, String key, String value, long timeOutMs) {
+        Object result = jedis.sendCommand(HashFieldCommand.HSETEX, hsetexArgs(key, value, timeOutMs, true));
+        return result instanceof Long && (Long) result == 1L;
+    }
+
+    @Override
+    public void setAll(Transaction transaction, Map<String, String> values, long timeOutMs) {
+        if (!values.isEmpty()) {
+            transaction.sendCommand(HashFieldCommand.HSETEX, hsetexArgs(values, timeOutMs, false));
+        }
+    }
+
+    @Override
+    public void setAll(Pipeline pipeline, Map<String, String> values, long timeOutMs) {
+        if (!values.isEmpty()) {
+            pipeline.sendCommand(HashFieldCommand.HSETEX, hsetexArgs(values, timeOutMs, false));
+        }
+    }
+
+    @Override
+    public boolean delete(Jedis jedis, String key) {
+        return jedis.hdel(getHashKey(), key) > 0;
+    }
+
+    @Override
+    public void delete(Transaction transaction, String key) {
+        transaction.hdel(getHashKey(), key);
+    }
+
+    @Override
+    public long deleteAll(Jedis jedis, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            return jedis.hdel(getHashKey(), keys.toArray(new String[0]));
+        } else {
+            return 0L;
+        }
+    }
+
+    @Override
+    public String conditional(ScriptEvalSha1 script, String operation, String key, String expected, String value, long timeOutMs) {
+        Object result = script.evalSha(Collections.singletonList(getHashKey()),
+                Arrays.asList(operation, STORAGE_NAME, key, expected, value, Long.toString(timeOutMs)));
+        return (String) result;
+    }
+
+    @Override
+    public Iterator<String> keysIterator() {
+        HScanIterator hScanIterator = newHScanIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return hScanIterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                Map.Entry<String, String> entry = hScanIterator.next();
+                if (entry == null) {
+                    throw new NoSuchElementException("No next key");
+                }
+                return entry.getKey();
+            }
+        };
+    }
+
+    /**
+     * Iterator of all the keys and stored values
+     * Values are retrieved with the keys, only one operation on jedis per HSCAN page
+     * @return entries iterator
+     */
+    @Override
+    public Iterator<Map.Entry<String, String>> entriesIterator() {
+        HScanIterator hScanIterator = newHScanIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return hScanIterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, String> next() {
+                Map.Entry<String, String> entry = hScanIterator.next();
+                if (entry == null) {
+                    throw new NoSuchElementException("No next value");
+                }
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Removes all the values with one UNLINK of the hash
+     * Only if the removed keys are needed, the hash is scanned before and every HSCAN page
+     * is removed with one HDEL
+     * @param removedPage called with the keys removed in every page, can be null if not needed
+     * @return number of removed values
+     */
+    @Override
+    public long removeAll(Consumer<List<String>> removedPage) {
+        return cache.withJedisPoolGet(jedis -> {
+            long removed = 0L;
+            if (removedPage != null) {
+                ScanParams scanParams = new ScanParams().count(KeyCacheStorage.DEFAULT_RESULTS_PER_ENTRIES_PAGE);
+                String cursor = ScanParams.SCAN_POINTER_START;
+                boolean completed = false;
+                while (!completed) {
+                    ScanResult<Map.Entry<String, String>> scanResult = jedis.hscan(getHashKey(), cursor, scanParams);
+                    cursor = scanResult.getCursor();
+                    completed = scanResult.isCompleteIteration();
+                    List<String> fields = scanResult.getResult().stream().
+                            map(Map.Entry::getKey).
+                            collect(Collectors.toList());
+                    if (!fields.isEmpty()) {
+                        removed += jedis.hdel(getHashKey(), fields.toArray(new String[0]));
+                        removedPage.accept(fields);
+                    }
+                }
+            }
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> remaining = pipeline.hlen(getHashKey());
+            pipeline.unlink(getHashKey());
+            pipeline.sync();
+            return removed + remaining.get();
+        });
+    }
+
+    /**
+     * Number of values, with HLEN
+     * Expired values not yet reclaimed by the server can be counted
+     * @return size
+     */
+    @Override
+    public long size() {
+        return cache.withJedisPoolGet(jedis -> jedis.hlen(getHashKey()));
+    }
+
+    /**
+     * Hash field expiration commands, not present in all client versions
+     */
+    enum HashFieldCommand implements ProtocolCommand {
+        HSETEX, HPTTL;
+
+        private final byte[] raw;
+
+        HashFieldCommand() {
+            this.raw = SafeEncoder.encode(name());
+        }
+
+        @Override
+        public byte[] getRaw() {
+            return raw;
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import io.valkey.params.ScanParams;
+import io.valkey.params.SetParams;
+import io.valkey.resps.ScanResult;
+import org.oba.jedis.extra.utils.iterators.ScanIterator;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.oba.jedis.extra.utils.utils.SimpleEntry;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Default layout of a SimpleCache: every entry is a top-level redis key
+ * made of the cache name and the key (see SimpleCache.resolveKey)
+ *
+ * Operations on the whole cache (iteration, clear, size) must SCAN the
+ * database for the keys of the cache
+ */
+final class KeyCacheStorage implements CacheStorage {
+
+    public static final int DEFAULT_RESULTS_PER_SCAN_ITERATORS = 50;
+
+    public static final int DEFAULT_RESULTS_PER_ENTRIES_PAGE = 500;
+
+    // Storage name for the conditional script
+    private static final String STORAGE_NAME = "key";
+
+    private final SimpleCache cache;
+
+    /**
+     * Internal constructor
+     * @param cache Cache where the storage belongs
+     */
+    KeyCacheStorage(SimpleCache cache) {
+        this.cache = cache;
+    }
+
+    private String[] resolveKeys(Collection<String> keys) {
+        return keys.stream().
+                map(cache::resolveKey).
+                toArray(String[]::new);
+    }
+
+    private ScanIterator newScanIterator() {
+        return new ScanIterator(cache.getJedisPool(), cache.resolveKey("*"), DEFAULT_RESULTS_PER_SCAN_ITERATORS);
+    }
+
+    @Override
+    public String get(Jedis jedis, String key) {
+        return jedis.get(cache.resolveKey(key));
+    }
+
+    @Override
+    public Response<String> get(Transaction transaction, String key) {
+        return transaction.get(cache.resolveKey(key));
+    }
+
+    @Override
+    public List<String> getAll(Jedis jedis, List<String> keys) {
+        return jedis.mget(resolveKeys(keys));
+    }
+
+    @Override
+    public Response<List<String>> getAll(Pipeline pipeline, List<String> keys) {
+        return pipeline.mget(resolveKeys(keys));
+    }
+
+    @Override
+    public Supplier<Long> pttl(Transaction transaction, String key) {
+        Response<Long> response = transaction.pttl(cache.resolveKey(key));
+        return response::get;
+    }
+
+    @Override
+    public Supplier<Long> pttl(Pipeline pipeline, String key) {
+        Response<Long> response = pipeline.pttl(cache.resolveKey(key));
+        return response::get;
+    }
+
+    @Override
+    public boolean exists(Jedis jedis, String key) {
+        return jedis.exists(cache.resolveKey(key));
+    }
+
+    @Override
+    public Response<Boolean> exists(Pipeline pipeline, String key) {
+        return pipeline.exists(cache.resolveKey(key));
+    }
+
+    @Override
+    public void set(Jedis jedis, String key, String value, long timeOutMs) {
+        jedis.set(cache.resolveKey(key), value, new SetParams().px(timeOutMs));
+    }
+
+    @Override
+    public void set(Transaction transaction, String key, String value, long timeOutMs) {
+        transaction.set(cache.resolveKey(key), value, new SetParams().px(timeOutMs));
+    }
+
+    @Override
+    public boolean setIfAbsent(Jedis jedis, String key, String value, long timeOutMs) {
+        return jedis.set(cache.resolveKey(key), value, new SetParams().nx().px(timeOutMs)) != null;
+    }
+
+    @Override
+    public void setAll(Transaction transaction, Map<String, String> values, long timeOutMs) {
+        SetParams setParams = new SetParams().px(timeOutMs);
+        values.forEach((k, v) -> transaction.set(cache.resolveKey(k), v, setParams));
+    }
+
+    @Override
+    public void setAll(Pipeline pipeline, Map<String, String> values, long timeOutMs) {
+        SetParams setParams = new SetParams().px(timeOutMs);
+        values.forEach((k, v) -> pipeline.set(cache.resolveKey(k), v, setParams));
+    }
+
+    @Override
+    public boolean delete(Jedis jedis, String key) {
+        return jedis.del(cache.resolveKey(key)) > 0;
+    }
+
+    @Override
+    public void delete(Transaction transaction, String key) {
+        transaction.del(cache.resolveKey(key));
+    }
+
+    @Override
+    public long deleteAll(Jedis jedis, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            return jedis.del(resolveKeys(keys));
+        } else {
+            return 0L;
+        }
+    }
+
+    @Override
+    public String conditional(ScriptEvalSha1 script, String operation, String key, String expected, String value, long timeOutMs) {
+        Object result = script.evalSha(Collections.singletonList(cache.resolveKey(key)),
+                Arrays.asList(operation, STORAGE_NAME, "", expected, value, Long.toString(timeOutMs)));
+        return (String) result;
+    }
+
+    @Override
+    public Iterator<String> keysIterator() {
+        ScanIterator scanIterator = newScanIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return scanIterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                String redisKey = scanIterator.next();
+                if (redisKey == null) {
+                    throw new NoSuchElementException("No next key");
+                }
+                return cache.unresolveKey(redisKey);
+            }
+        };
+    }
+
+    /**
+     * Iterator of all the keys and stored values
+     * Values are retrieved one scan page at a time, with one MGET per page
+     * @return entries iterator
+     */
+    @Override
+    public Iterator<Map.Entry<String, String>> entriesIterator() {
+        return new PagedEntriesIterator();
+    }
+
+    /**
+     * Removes all the values, all the keys of the cache are scanned
+     * After every SCAN page, its keys are removed with one UNLINK
+     * @param removedPage called with the keys removed in every page, can be null if not needed
+     * @return number of removed values
+     */
+    @Override
+    public long removeAll(Consumer<List<String>> removedPage) {
+        ScanParams scanParams = new ScanParams().
+                match(cache.resolveKey("*")).
+                count(DEFAULT_RESULTS_PER_ENTRIES_PAGE);
+        return cache.withJedisPoolGet(jedis -> {
+            long removed = 0L;
+            String cursor = ScanParams.SCAN_POINTER_START;
+            boolean completed = false;
+            while (!completed) {
+                ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
+                cursor = scanResult.getCursor();
+                completed = scanResult.isCompleteIteration();
+                List<String> redisKeys = scanResult.getResult();
+                if (!redisKeys.isEmpty()) {
+                    removed += jedis.unlink(redisKeys.toArray(new String[0]));
+                    if (removedPage != null) {
+                        removedPage.accept(redisKeys.stream().
+                                map(cache::unresolveKey).
+                                collect(Collectors.toList()));
+                    }
+                }
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Number of values, all the keys of the cache are scanned and counted page by page,
+     * without keeping them in memory
+     * SCAN can return a key more than once (if the database is rehashed during the scan),
+     * so the count can be higher than the real number of values
+     * @return size
+     */
+    @Override
+    public long size() {
+        ScanParams scanParams = new ScanParams().
+                match(cache.resolveKey("*")).
+                count(DEFAULT_RESULTS_PER_ENTRIES_PAGE);
+        return cache.withJedisPoolGet(jedis -> {
+            long size = 0L;
+            String cursor = ScanParams.SCAN_POINTER_START;
+            boolean completed = false;
+            while (!completed) {
+                ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
+                cursor = scanResult.getCursor();
+                completed = scanResult.isCompleteIteration();
+                size += scanResult.getResult().size();
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Iterator of entries that scans the keys of the cache and retrieves the values of
+     * every scan page with one MGET (in the same connection)
+     * Keys that expired between the SCAN and the MGET are skipped
+     */
+    private final class PagedEntriesIterator implements Iterator<Map.Entry<String, String>> {
+
+        private final ScanParams scanParams = new ScanParams().
+                match(cache.resolveKey("*")).
+                count(DEFAULT_RESULTS_PER_ENTRIES_PAGE);
+        private final Deque<Map.Entry<String, String>> buffer = new ArrayDeque<>();
+        private String cursor = ScanParams.SCAN_POINTER_START;
+        private boolean completed = false;
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && !completed) {
+                cache.withJedisPoolDo(this::fetchPage);
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No next value");
+            }
+            return buffer.poll();
+        }
+
+        private void fetchPage(Jedis jedis) {
+            ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
+            cursor = scanResult.getCursor();
+            completed = scanResult.isCompleteIteration();
+            List<String> redisKeys = scanResult.getResult();
+            if (!redisKeys.isEmpty()) {
+                List<String> values = jedis.mget(redisKeys.toArray(new String[0]));
+                for(int i = 0; i < redisKeys.size(); i++) {
+                    if (values.get(i) != null) {
+                        buffer.add(new SimpleEntry(cache.unresolveKey(redisKeys.get(i)), values.get(i)));
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets
+ *
+ * Recording doesn't allocate nor lock: it finds the bucket of the value and increments
+ * a striped counter (LongAdder), so it can be used in hot paths from many threads
+ *
+ * Buckets go from 50 microseconds to 10 seconds, so percentiles are approximated
+ * by the upper bound of their bucket
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets, in nanoseconds; the last bucket has no bound
+     */
+    private static final long[] BUCKET_BOUNDS_NANOS = {
+            50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_NANOS.length + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Creates an empty histogram
+     */
+    LatencyHistogram() {
+        for(int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency
+     * @param nanos time in nanoseconds
+     */
+    void record(long nanos) {
+        int index = Arrays.binarySearch(BUCKET_BOUNDS_NANOS, nanos);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        buckets[index].increment();
+        totalNanos.add(nanos);
+        long currentMax = maxNanos.get();
+        while (nanos > currentMax && !maxNanos.compareAndSet(currentMax, nanos)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * Records the latency since a moment
+     * @param startNanos moment, from System.nanoTime()
+     */
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Current values of the histogram
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for(int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Clears the histogram
+     */
+    void reset() {
+        for(LongAdder bucket: buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+        maxNanos.set(0L);
+    }
+
+    /**
+     * Values of a histogram in a moment
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = Arrays.stream(counts).sum();
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Number of recorded latencies
+         * @return count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Mean of the recorded latencies
+         * @return time in milliseconds, 0.0 if empty
+         */
+        public double getMeanMs() {
+            return count == 0L ? 0.0 : totalNanos / 1_000_000.0 / count;
+        }
+
+        /**
+         * Max recorded latency
+         * @return time in milliseconds
+         */
+        public double getMaxMs() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /**
+         * Approximated percentile, as the upper bound of the bucket where it falls
+         * (the max latency for the last bucket)
+         * @param percentile from 0.0 to 100.0
+         * @return time in milliseconds, 0.0 if empty
+         */
+        public double getPercentileMs(double percentile) {
+            if (percentile < 0.0 || percentile > 100.0) throw new IllegalArgumentException("LatencyHistogram percentile must be between 0 and 100");
+            if (count == 0L) {
+                return 0.0;
+            }
+            long target = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+            long accumulated = 0L;
+            for(int i = 0; i < counts.length; i++) {
+                accumulated += counts[i];
+                if (accumulated >= target) {
+                    long bound = i < BUCKET_BOUNDS_NANOS.length ? Math.min(BUCKET_BOUNDS_NANOS[i], maxNanos) : maxNanos;
+                    return bound / 1_000_000.0;
+                }
+            }
+            return getMaxMs();
+        }
+
+        /**
+         * Upper bounds of the buckets, the last bucket has no bound
+         * @return bounds in milliseconds
+         */
+        public double[] getBucketBoundsMs() {
+            return Arrays.stream(BUCKET_BOUNDS_NANOS).
+                    mapToDouble(bound -> bound / 1_000_000.0).
+                    toArray();
+        }
+
+        /**
+         * Number of latencies in every bucket, one more than bounds
+         * @return counts
+         */
+        public long[] getBucketCounts() {
+            return counts.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyHistogram.Snapshot{count=" + count +
+                    ", meanMs=" + getMeanMs() +
+                    ", p50Ms=" + getPercentileMs(50.0) +
+                    ", p99Ms=" + getPercentileMs(99.0) +
+                    ", maxMs=" + getMaxMs() + "}";
+        }
+
+    }
+
+}
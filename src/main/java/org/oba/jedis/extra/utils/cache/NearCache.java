@@ -0,0 +1,223 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local, in-process tier of a SimpleCache
+ * It holds a bounded number of values read from redis, so repeated reads of
+ * hot keys don't need a connection nor a network round trip
+ *
+ * Entries are evicted by least recent use when the bound is reached,
+ * and expire locally after a time that never exceeds the remote one
+ *
+ * Local entries are invalidated when the cache (this or other instances with the same name)
+ * modifies the data; see NearCacheInvalidation
+ * Invalidations are tracked per key, so a value read from redis is only discarded if its own key
+ * (or all the keys) has been invalidated while it was read
+ *
+ * This class only holds local data and counters, it has no access to redis
+ */
+public final class NearCache {
+
+    // Min number of recent invalidations remembered per key
+    static final int MIN_TRACKED_INVALIDATIONS = 1024;
+
+    private final int maxEntries;
+    private final long maxLocalTtlMs;
+    private final Map<String, LocalEntry> entries;
+    private final AtomicLong invalidationEpoch = new AtomicLong(0L);
+    // Epoch of the last invalidation of every recently invalidated key, oldest first
+    private final Map<String, Long> invalidatedKeys;
+    // Reads started before this epoch are always discarded (invalidate all, or forgotten invalidations)
+    private long floorEpoch = 0L;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new local tier
+     * @param maxEntries Max number of local entries, older accessed are evicted
+     * @param maxLocalTtlMs Max time a value will live locally
+     */
+    NearCache(int maxEntries, long maxLocalTtlMs) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("NearCache maxEntries must be more than zero");
+        if (maxLocalTtlMs <= 0) throw new IllegalArgumentException("NearCache maxLocalTtlMs must be more than zero");
+        this.maxEntries = maxEntries;
+        this.maxLocalTtlMs = maxLocalTtlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > NearCache.this.maxEntries;
+            }
+        };
+        int maxTrackedInvalidations = Math.max(maxEntries, MIN_TRACKED_INVALIDATIONS);
+        this.invalidatedKeys = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > maxTrackedInvalidations) {
+                    // The key is forgotten, so reads started before its invalidation are discarded
+                    floorEpoch = Math.max(floorEpoch, eldest.getValue());
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    /**
+     * Max number of local entries
+     * @return max entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Max time a value will live locally
+     * @return time in milliseconds
+     */
+    public long getMaxLocalTtlMs() {
+        return maxLocalTtlMs;
+    }
+
+    /**
+     * Gets a local value, counting a hit or a miss
+     * @param key key of the value
+     * @return value if present and not expired locally, null otherwise
+     */
+    String get(String key) {
+        String value = null;
+        synchronized (entries) {
+            LocalEntry localEntry = entries.get(key);
+            if (localEntry != null) {
+                if (localEntry.isExpired(System.currentTimeMillis())) {
+                    entries.remove(key);
+                } else {
+                    value = localEntry.value;
+                }
+            }
+        }
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Current invalidation epoch
+     * Must be read before retrieving the value from redis, to be used later on putIfNotInvalidated
+     * @return epoch
+     */
+    long currentEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Stores a value read from redis, if its key has not been invalidated since the read was started
+     * If not, the value could be stale and it is discarded
+     * Only the most recent invalidations are remembered by key; reads started before a forgotten
+     * one are discarded too
+     * @param key key of the value
+     * @param value value read from redis, null values are ignored
+     * @param remoteTtlMs remaining time to live on redis (PTTL), less than zero if unknown or persistent
+     * @param epoch epoch read before the redis access
+     */
+    void putIfNotInvalidated(String key, String value, long remoteTtlMs, long epoch) {
+        if (value != null) {
+            long ttl = remoteTtlMs >= 0 ? Math.min(maxLocalTtlMs, remoteTtlMs) : maxLocalTtlMs;
+            if (ttl > 0) {
+                synchronized (entries) {
+                    Long keyEpoch = invalidatedKeys.get(key);
+                    if (epoch >= floorEpoch && (keyEpoch == null || epoch >= keyEpoch)) {
+                        entries.put(key, new LocalEntry(value, System.currentTimeMillis() + ttl));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a local entry
+     * @param key key to invalidate
+     */
+    void invalidate(String key) {
+        synchronized (entries) {
+            // Removed before put, so the key is moved to the newest position
+            invalidatedKeys.remove(key);
+            invalidatedKeys.put(key, invalidationEpoch.incrementAndGet());
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes all local entries
+     */
+    void invalidateAll() {
+        synchronized (entries) {
+            floorEpoch = invalidationEpoch.incrementAndGet();
+            invalidatedKeys.clear();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Current number of local entries (expired ones not yet evicted included)
+     * @return size
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Number of gets resolved locally
+     * @return hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of gets not resolved locally
+     * @return misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Ratio of local hits over all local gets
+     * @return ratio between 0.0 and 1.0, 0.0 if no get has been done
+     */
+    public double getHitRatio() {
+        long currentHits = hits.sum();
+        long total = currentHits + misses.sum();
+        return total == 0L ? 0.0 : (double) currentHits / total;
+    }
+
+    /**
+     * A local value with its local expiration moment
+     */
+    private static final class LocalEntry {
+
+        private final String value;
+        private final long expiresAt;
+
+        private LocalEntry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import io.valkey.Pipeline;
+import org.oba.jedis.extra.utils.utils.JedisPoolUser;
+import org.oba.jedis.extra.utils.utils.Named;
+import org.oba.jedis.extra.utils.utils.SimplePubSub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the near caches of all the SimpleCache instances with the same name coherent
+ *
+ * Every modification made by a cache is published in a pub/sub channel of the cache,
+ * and every instance listens to that channel (in a background thread, with a dedicated connection)
+ * to evict its local copy of the modified keys
+ *
+ * Messages published by an instance are ignored by itself, as the local copy is evicted when
+ * the change is made
+ *
+ * Changes made to redis data without a SimpleCache (or by expiration) are not notified,
+ * that's why near cache entries never live longer than the remote ones
+ */
+final class NearCacheInvalidation implements JedisPoolUser, Named {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheInvalidation.class);
+
+    private static final AtomicLong num = new AtomicLong();
+
+    public static final String CHANNEL_SUFFIX = ":nearCacheInvalidation";
+
+    static final String SEPARATOR = "|";
+    static final String TYPE_KEY = "k";
+    static final String TYPE_ALL = "a";
+
+    private static final long RETRY_WAIT_MS = 1000;
+
+    private final JedisPool jedisPool;
+    private final String name;
+    private final NearCache nearCache;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicBoolean active = new AtomicBoolean(true);
+    private final SimplePubSub pubSub;
+    private final Thread subscriberThread;
+
+    /**
+     * Creates and starts the invalidation listener
+     * @param jedisPool Connection pool
+     * @param cacheName Name of the cache
+     * @param nearCache Local tier to invalidate
+     */
+    NearCacheInvalidation(JedisPool jedisPool, String cacheName, NearCache nearCache) {
+        this.jedisPool = jedisPool;
+        this.name = cacheName + CHANNEL_SUFFIX;
+        this.nearCache = nearCache;
+        this.pubSub = new SimplePubSub((channel, message) -> onInvalidationMessage(message)) {
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                if (!active.get()) {
+                    unsubscribe();
+                }
+            }
+        };
+        this.subscriberThread = new Thread(this::listenInvalidations);
+        this.subscriberThread.setDaemon(true);
+        this.subscriberThread.setName("NearCacheInvalidation_" + cacheName + "_" + num.incrementAndGet());
+        this.subscriberThread.start();
+    }
+
+    @Override
+    public JedisPool getJedisPool() {
+        return jedisPool;
+    }
+
+    /**
+     * Name of the invalidation channel
+     * @return channel name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Internal method of thread
+     * If the subscription fails, the local data is discarded (notifications could be lost)
+     * and it retries until closed
+     */
+    private void listenInvalidations() {
+        while (active.get()) {
+            try {
+                withJedisPoolDo(jedis -> jedis.subscribe(pubSub, name));
+                if (active.get()) {
+                    LOGGER.debug("Near cache invalidation subscription {} ended, retrying", name);
+                    nearCache.invalidateAll();
+                    waitToRetry();
+                }
+            } catch (Exception e) {
+                if (active.get()) {
+                    LOGGER.warn("Error in near cache invalidation subscription {}, retrying", name, e);
+                    nearCache.invalidateAll();
+                    waitToRetry();
+                }
+            }
+        }
+    }
+
+    private void waitToRetry() {
+        try {
+            Thread.sleep(RETRY_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            active.set(false);
+        }
+    }
+
+    /**
+     * Processes a message from other instance
+     * @param message invalidation message
+     */
+    void onInvalidationMessage(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 3);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+        LOGGER.debug("near cache invalidation {} message {}", name, message);
+        if (TYPE_ALL.equals(parts[1])) {
+            nearCache.invalidateAll();
+        } else if (TYPE_KEY.equals(parts[1]) && parts.length == 3) {
+            nearCache.invalidate(parts[2]);
+        }
+    }
+
+    /**
+     * Evicts the local copy of keys and notifies other instances
+     * @param jedis connection to use
+     * @param keys modified keys
+     */
+    void invalidate(Jedis jedis, Collection<String> keys) {
+        keys.forEach(nearCache::invalidate);
+        if (keys.size() == 1) {
+            jedis.publish(name, keyMessage(keys.iterator().next()));
+        } else if (!keys.isEmpty()) {
+            Pipeline pipeline = jedis.pipelined();
+            keys.forEach(key -> pipeline.publish(name, keyMessage(key)));
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * Evicts all the local data and notifies other instances
+     * @param jedis connection to use
+     */
+    void invalidateAll(Jedis jedis) {
+        nearCache.invalidateAll();
+        jedis.publish(name, allMessage());
+    }
+
+    String keyMessage(String key) {
+        return instanceId + SEPARATOR + TYPE_KEY + SEPARATOR + key;
+    }
+
+    String allMessage() {
+        return instanceId + SEPARATOR + TYPE_ALL;
+    }
+
+    /**
+     * Stops listening, no more invalidations will be received
+     */
+    void close() {
+        active.set(false);
+        if (pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+        subscriberThread.interrupt();
+        nearCache.invalidateAll();
+    }
+
+}
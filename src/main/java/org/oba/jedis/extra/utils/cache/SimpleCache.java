@@ -1,22 +1,35 @@
 package org.oba.jedis.extra.utils.cache;
 
+import io.valkey.Pipeline;
 import io.valkey.Response;
 import io.valkey.Transaction;
 import org.oba.jedis.extra.utils.utils.JedisPoolUser;
 import org.oba.jedis.extra.utils.utils.Listable;
 import org.oba.jedis.extra.utils.utils.Mapeable;
 import org.oba.jedis.extra.utils.utils.Named;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.oba.jedis.extra.utils.utils.UniversalReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
-import io.valkey.params.SetParams;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -39,8 +52,33 @@ import java.util.stream.Collectors;
  * You can use a CacheWriter to give write-through caching, that is
  * the ability to insert/update or delete a value when it's modified in the cache
  *
+ * You can enable write-behind, so the CacheWriter is updated asynchronously in batches
+ *
+ * You can store all the entries in one redis hash (with expiration per field) instead of
+ * one key per entry, so operations on the whole cache don't scan the database
+ *
+ * You can enable compression, so big values are stored compressed
+ *
+ * You can enable load coalescing, so concurrent read-through misses of the same key
+ * are loaded only once (in a JVM or across JVMs)
+ *
+ * You can enable a near cache, a bounded local copy of the values read that avoids going to redis
+ * for repeated reads. Local copies are invalidated when any instance with the same name modifies the data
+ *
+ * You can enable refresh-ahead, so values read close to their expiration are reloaded in background
+ * and frequently read keys don't expire
+ *
+ * You can enable probabilistic early expiration of loaded values and jitter of the timeout,
+ * so values stored at the same time don't expire and get reloaded all together
+ *
+ * You can enable negative caching, so keys not found by the cache loader are remembered for a short
+ * time (with a tombstone) and not loaded again on every read
+ *
+ * You can enable statistics (hits, misses, loads, puts, removals, writes and latency histograms),
+ * optionally registered in JMX
+ *
  * This cache works like a javax.cache.Cache
- * but simpler and fewer options (no factories, events, mxbeans, statistics included)
+ * but simpler and fewer options (no factories, events included)
  *
  * The cache must have a Jedis connection pool
  * Also a name, every instance with the same name will access the same redis data
@@ -51,6 +89,23 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleCache.class);
 
+    public static final String SCRIPT_NAME = "cacheConditional.lua";
+    public static final String FILE_PATH = "./src/main/resources/cacheConditional.lua";
+
+    // Operations of the conditional script
+    static final String REPLACE_IF_EQUALS = "replaceIfEquals";
+    static final String REPLACE_IF_EXISTS = "replaceIfExists";
+    static final String REMOVE_IF_EQUALS = "removeIfEquals";
+    static final String PUT_IF_ABSENT = "putIfAbsent";
+
+    // Used to read and write values with compression header when compression is not enabled
+    private static final CacheCompression FALLBACK_COMPRESSION = new CacheCompression(Integer.MAX_VALUE, CacheCompression.DEFAULT_LEVEL);
+
+    // Stored value of a key not found by the cache loader; no encoded value is only this header
+    // (values that start with it are always followed by a load time and a separator)
+    // The same instance is returned by remote reads to signal a tombstone
+    private static final String TOMBSTONE = String.valueOf(CacheEarlyExpiration.HEADER);
+
 
     private final JedisPool jedisPool;
 
@@ -58,10 +113,40 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
 
     private final long timeOutMs;
 
+    private final ScriptEvalSha1 conditionalScript;
+
     private CacheLoader cacheLoader;
 
     private CacheWriter cacheWriter;
 
+    private NearCache nearCache;
+
+    private NearCacheInvalidation nearCacheInvalidation;
+
+    private CacheLoadCoalescer loadCoalescer;
+
+    private CacheWriteBehind writeBehind;
+
+    private CacheCompression compression;
+
+    private CacheStorage storage = new KeyCacheStorage(this);
+
+    private CacheStatistics statistics;
+
+    private CacheRefreshAhead refreshAhead;
+
+    private CacheEarlyExpiration earlyExpiration;
+
+    private double ttlJitterRatio = 0.0;
+
+    private long negativeCacheTtlMs = 0L;
+
+    private CacheAsync async;
+
+    private CacheEviction eviction;
+
+    private final List<CacheEntryListener> entryListeners = new CopyOnWriteArrayList<>();
+
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
 
 
@@ -87,6 +172,9 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         this.name = name;
         this.timeOutMs = timeOutMs;
         this.cacheLoader = cacheLoader;
+        this.conditionalScript = new ScriptEvalSha1(jedisPool, new UniversalReader().
+                withResoruce(SCRIPT_NAME).
+                withFile(FILE_PATH));
     }
 
 
@@ -105,11 +193,441 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      * @param cacheWriter Default cachewriter writethrough
      * @return cache
      */
-    public SimpleCache withCacheWriter(CacheWriter cacheWriter) {
+    public synchronized SimpleCache withCacheWriter(CacheWriter cacheWriter) {
+        if (writeBehind != null) throw new IllegalStateException("RedisCache.withCacheWriter write-behind enabled, cache writer can not be changed");
         this.cacheWriter = cacheWriter;
         return this;
     }
 
+    /**
+     * Adds a near cache to this cache, a local tier for values read from redis
+     * Local values are invalidated by changes made by any cache instance with the same name
+     * (notified by a pub/sub channel), and expire locally before than in redis
+     * A background thread with a dedicated connection listens to invalidations until the cache is closed
+     * @param maxEntries Max number of local values, least recently used are evicted
+     * @param maxLocalTtlMs Max time a value lives locally, never longer than the cache timeout
+     * @return cache
+     */
+    public synchronized SimpleCache withNearCache(int maxEntries, long maxLocalTtlMs) {
+        checkClosed();
+        if (nearCache != null) throw new IllegalStateException("RedisCache.withNearCache near cache already enabled");
+        this.nearCache = new NearCache(maxEntries, Math.min(maxLocalTtlMs, timeOutMs));
+        this.nearCacheInvalidation = new NearCacheInvalidation(jedisPool, name, nearCache);
+        return this;
+    }
+
+    /**
+     * Enables load coalescing (single-flight) in this JVM
+     * Concurrent read-through misses of the same key with the same cacheloader
+     * will share one load, the first thread loads and the others wait for the value
+     * @return cache
+     */
+    public synchronized SimpleCache withLoadCoalescing() {
+        this.loadCoalescer = new CacheLoadCoalescer(this);
+        return this;
+    }
+
+    /**
+     * Enables load coalescing (single-flight) in this JVM and across JVMs
+     * Concurrent read-through misses of the same key in this JVM will share one load;
+     * and the process that loads a key sets a short-lived loading marker in redis so other
+     * processes wait for the value to appear instead of loading it.
+     * If the value doesn't appear in maxWaitMs, the process will load it by itself
+     * @param markerTtlMs Time to live of the loading marker, should be longer than a load
+     * @param maxWaitMs Max time to wait for other process to load a value
+     * @return cache
+     */
+    public synchronized SimpleCache withDistributedLoadCoalescing(long markerTtlMs, long maxWaitMs) {
+        if (markerTtlMs <= 0) throw new IllegalArgumentException("RedisCache.withDistributedLoadCoalescing markerTtlMs must be more than zero");
+        if (maxWaitMs <= 0) throw new IllegalArgumentException("RedisCache.withDistributedLoadCoalescing maxWaitMs must be more than zero");
+        this.loadCoalescer = new CacheLoadCoalescer(this, markerTtlMs, maxWaitMs);
+        return this;
+    }
+
+    /**
+     * Enables write-behind for the cache writer
+     * Writes and deletes are queued (only the last operation for every key is kept) and sent to
+     * the cache writer by a background thread in batches, with writeAll and deleteAll,
+     * when batchSize operations are pending or flushIntervalMs has passed
+     * If the queue is full, the modifications of the cache wait until there's space
+     * Pending operations are flushed when the cache is closed
+     * A cache writer must be set before
+     * @param maxQueueSize Max pending operations
+     * @param batchSize Max operations per flush
+     * @param flushIntervalMs Max time between flushes
+     * @return cache
+     */
+    public synchronized SimpleCache withWriteBehind(int maxQueueSize, int batchSize, long flushIntervalMs) {
+        checkClosed();
+        if (cacheWriter == null) throw new IllegalStateException("RedisCache.withWriteBehind no cache writer");
+        if (writeBehind != null) throw new IllegalStateException("RedisCache.withWriteBehind write-behind already enabled");
+        this.writeBehind = new CacheWriteBehind(name, cacheWriter, this::getStatistics, maxQueueSize, batchSize, flushIntervalMs);
+        return this;
+    }
+
+    /**
+     * Enables refresh-ahead (stale-while-revalidate)
+     * When a value is read from redis with less than refreshWindowMs to expire
+     * (its PTTL is retrieved in the same round trip), the value is returned and the key
+     * is reloaded in background with the cache loader of the read, and stored with the cache timeout
+     * Only one reload per key is done at the same time, by at most maxThreads threads;
+     * if maxQueueSize reloads are pending, new ones are discarded
+     * Reads of values from the near cache don't trigger reloads
+     * @param refreshWindowMs Time before expiration where reads trigger a reload
+     * @param maxThreads Max concurrent reloads
+     * @param maxQueueSize Max pending reloads
+     * @return cache
+     */
+    public synchronized SimpleCache withRefreshAhead(long refreshWindowMs, int maxThreads, int maxQueueSize) {
+        checkClosed();
+        if (refreshAhead != null) throw new IllegalStateException("RedisCache.withRefreshAhead refresh-ahead already enabled");
+        if (refreshWindowMs >= timeOutMs) throw new IllegalArgumentException("RedisCache.withRefreshAhead refreshWindowMs must be less than the cache timeout");
+        this.refreshAhead = new CacheRefreshAhead(name, refreshWindowMs, maxThreads, maxQueueSize);
+        return this;
+    }
+
+    /**
+     * Refresh-ahead of this cache, with its statistics
+     * @return refresh-ahead, null if not enabled
+     */
+    public CacheRefreshAhead getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    /**
+     * Enables the asynchronous operations (getAsync, getAllAsync, putAsync, removeAsync, loadAllAsync)
+     * They are done in the given executor, that can be shared with other caches
+     * (for example, a virtual thread executor in Java 21+); operations issued while a batch
+     * is running are coalesced in the next batch, up to maxBatchSize, with one round trip per
+     * group of consecutive gets, puts or removes
+     * The executor is not shut down when the cache is closed
+     * @param executor Executor of the batches
+     * @param maxBatchSize Max operations per batch
+     * @return cache
+     */
+    public synchronized SimpleCache withAsync(Executor executor, int maxBatchSize) {
+        checkClosed();
+        if (async != null) throw new IllegalStateException("RedisCache.withAsync async already enabled");
+        this.async = new CacheAsync(this, executor, maxBatchSize);
+        return this;
+    }
+
+    /**
+     * Asynchronous operations of this cache, with their statistics
+     * @return async, null if not enabled
+     */
+    public CacheAsync getCacheAsync() {
+        return async;
+    }
+
+    /**
+     * Bounds the number of entries of the cache, evicting the least recently used ones
+     * @param maxEntries Max entries of the cache
+     * @return cache
+     */
+    public SimpleCache withMaxEntries(long maxEntries) {
+        return withMaxEntries(maxEntries, CacheEviction.Policy.LRU, CacheEviction.DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Bounds the number of entries of the cache
+     * Reads that find a value and writes are recorded in memory, and flushed every flushIntervalMs
+     * by a background thread to a sorted set of the cache; then, if there are more than maxEntries
+     * entries, the least recently (LRU) or least frequently (LFU) used are evicted
+     * The bound is approximate, the cache can exceed it between flushes
+     * @param maxEntries Max entries of the cache
+     * @param policy Eviction policy
+     * @param flushIntervalMs Time between flushes of the accesses
+     * @return cache
+     */
+    public synchronized SimpleCache withMaxEntries(long maxEntries, CacheEviction.Policy policy, long flushIntervalMs) {
+        checkClosed();
+        if (eviction != null) throw new IllegalStateException("RedisCache.withMaxEntries max entries already set");
+        this.eviction = new CacheEviction(this, maxEntries, policy, flushIntervalMs);
+        return this;
+    }
+
+    /**
+     * Size bound of this cache, with its statistics
+     * @return eviction, null if not enabled
+     */
+    public CacheEviction getEviction() {
+        return eviction;
+    }
+
+    /**
+     * Adds a listener of the changes of the entries: created, updated, removed, expired or evicted
+     * Changes come from redis keyspace notifications, so changes made by any client are received,
+     * but the server must have them enabled (at least K$gx in notify-keyspace-events,
+     * e for evictions, n to tell creations from updates)
+     * One connection per pool is subscribed for all the caches with listeners, and events are given
+     * to the listeners in batches from a background thread; notifications are not persistent,
+     * so changes made while disconnected are lost
+     * Not supported with hash storage (notifications don't tell the field)
+     * With negative caching, writes of tombstones are not given to the listeners (the written keys
+     * of every batch are read in one round trip); expirations and removals of tombstones are,
+     * as the value is gone, and a value written over a tombstone is an update
+     * @param listener listener
+     * @return cache
+     */
+    public synchronized SimpleCache withEntryListener(CacheEntryListener listener) {
+        checkClosed();
+        if (listener == null) throw new IllegalArgumentException("RedisCache.withEntryListener listener is null");
+        if (storage instanceof HashCacheStorage) throw new IllegalStateException("RedisCache.withEntryListener not supported with hash storage");
+        entryListeners.add(listener);
+        if (entryListeners.size() == 1) {
+            CacheEventSubscriber.register(this);
+        }
+        return this;
+    }
+
+    /**
+     * Removes a listener of the changes of the entries
+     * @param listener listener
+     * @return true if it was a listener of this cache
+     */
+    public synchronized boolean removeEntryListener(CacheEntryListener listener) {
+        boolean removed = entryListeners.remove(listener);
+        if (removed && entryListeners.isEmpty()) {
+            CacheEventSubscriber.unregister(this);
+        }
+        return removed;
+    }
+
+    /**
+     * Gives a batch of events to the listeners
+     * @param events events of entries of this cache
+     */
+    void dispatchEntryEvents(List<CacheEntryEvent> events) {
+        List<CacheEntryEvent> entryEvents = negativeCacheTtlMs > 0 ? withoutTombstoneWrites(events) : events;
+        if (entryEvents.isEmpty()) {
+            return;
+        }
+        for(CacheEntryListener listener: entryListeners) {
+            try {
+                listener.onEvents(entryEvents);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error in entry listener of cache {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * Discards the events of writes of tombstones, they are not entries
+     * Values are read when the events are dispatched, so a key written again with a value
+     * (or removed) meanwhile keeps its event
+     * If the values can't be read, all the events are kept
+     * @param events events of entries of this cache
+     * @return events of entries
+     */
+    private List<CacheEntryEvent> withoutTombstoneWrites(List<CacheEntryEvent> events) {
+        List<String> writtenKeys = events.stream().
+                filter(SimpleCache::isWriteEvent).
+                map(CacheEntryEvent::getKey).
+                collect(Collectors.toList());
+        if (writtenKeys.isEmpty()) {
+            return events;
+        }
+        Set<String> tombstones = new HashSet<>();
+        try {
+            List<String> values = withJedisPoolGet(jedis -> storage.getAll(jedis, writtenKeys));
+            for(int i = 0; i < writtenKeys.size(); i++) {
+                if (isTombstone(values.get(i))) {
+                    tombstones.add(writtenKeys.get(i));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error reading written entries of cache {}, tombstones not discarded", name, e);
+            return events;
+        }
+        if (tombstones.isEmpty()) {
+            return events;
+        }
+        return Collections.unmodifiableList(events.stream().
+                filter(event -> !isWriteEvent(event) || !tombstones.contains(event.getKey())).
+                collect(Collectors.toList()));
+    }
+
+    private static boolean isWriteEvent(CacheEntryEvent event) {
+        return event.getType() == CacheEntryEvent.Type.CREATED || event.getType() == CacheEntryEvent.Type.UPDATED;
+    }
+
+    /**
+     * Enables probabilistic early expiration (XFetch) with the default beta
+     * @return cache
+     */
+    public SimpleCache withEarlyExpiration() {
+        return withEarlyExpiration(CacheEarlyExpiration.DEFAULT_BETA);
+    }
+
+    /**
+     * Enables probabilistic early expiration (XFetch)
+     * Values loaded by read-through are stored with the time their load took, and a read
+     * treats the value as expired (and loads it again) with a probability that grows as the
+     * remaining time to live falls, weighted by the load time (and beta)
+     * The remaining time to live is retrieved in the same round trip as the value
+     * Only reads with a cache loader can expire values early
+     * @param beta Weight of the load time, more than 1.0 favors earlier reloads
+     * @return cache
+     */
+    public synchronized SimpleCache withEarlyExpiration(double beta) {
+        checkClosed();
+        this.earlyExpiration = new CacheEarlyExpiration(beta);
+        return this;
+    }
+
+    /**
+     * Early expiration of this cache, with its statistics
+     * @return early expiration, null if not enabled
+     */
+    public CacheEarlyExpiration getEarlyExpiration() {
+        return earlyExpiration;
+    }
+
+    /**
+     * Enables random jitter of the cache timeout
+     * Every value stored with the default timeout (put, putAll, read-through loads...) will live
+     * a random time between (1 - ratio) * timeout and timeout, so values stored together
+     * don't expire together
+     * Values put with an explicit timeout are not affected
+     * @param ratio Max fraction of the timeout to subtract, more than 0.0 and less than 1.0
+     * @return cache
+     */
+    public synchronized SimpleCache withTtlJitter(double ratio) {
+        checkClosed();
+        if (!(ratio > 0.0 && ratio < 1.0)) throw new IllegalArgumentException("RedisCache.withTtlJitter ratio must be between 0.0 and 1.0");
+        this.ttlJitterRatio = ratio;
+        return this;
+    }
+
+    /**
+     * Enables negative caching
+     * When the cache loader doesn't find a value, a tombstone is stored for the key with
+     * its own (short) time to live; until it expires, reads of the key return null without
+     * calling the cache loader
+     * Tombstones are not visible: containsKey is false and iterators, keys and size skip them
+     * (so, with the default storage, key iterators and size must read the values too)
+     * Any put of the key overwrites the tombstone
+     * All the instances with the same name should enable it
+     * @param negativeCacheTtlMs Time to live of the tombstones
+     * @return cache
+     */
+    public synchronized SimpleCache withNegativeCaching(long negativeCacheTtlMs) {
+        checkClosed();
+        if (negativeCacheTtlMs <= 0) throw new IllegalArgumentException("RedisCache.withNegativeCaching negativeCacheTtlMs must be more than zero");
+        this.negativeCacheTtlMs = negativeCacheTtlMs;
+        return this;
+    }
+
+    /**
+     * If negative caching is enabled
+     * @return true if keys not found by the cache loader are stored as tombstones
+     */
+    public boolean isNegativeCaching() {
+        return negativeCacheTtlMs > 0;
+    }
+
+    /**
+     * Stores all the entries of this cache in one redis hash, named as the cache,
+     * with an expiration per field (HSETEX / HPTTL), instead of one redis key per entry
+     * So clear is one UNLINK, iteration is an HSCAN of only this cache and size is HLEN,
+     * without scanning all the database
+     * A server with hash field expiration is required
+     * All the instances with the same name must use the same storage, and it must be set before use
+     * @return cache
+     */
+    public synchronized SimpleCache withHashStorage() {
+        checkClosed();
+        if (!entryListeners.isEmpty()) throw new IllegalStateException("RedisCache.withHashStorage entry listeners not supported with hash storage");
+        this.storage = new HashCacheStorage(this);
+        return this;
+    }
+
+    /**
+     * Enables transparent compression of values, with the default (fast) level
+     * Values equal or bigger than the threshold are stored compressed;
+     * values stored before, plain or compressed, are always read correctly
+     * @param thresholdBytes Min UTF-8 size of a value to be compressed
+     * @return cache
+     */
+    public SimpleCache withCompression(int thresholdBytes) {
+        return withCompression(thresholdBytes, CacheCompression.DEFAULT_LEVEL);
+    }
+
+    /**
+     * Enables transparent compression of values
+     * Values equal or bigger than the threshold are stored compressed;
+     * values stored before, plain or compressed, are always read correctly
+     * @param thresholdBytes Min UTF-8 size of a value to be compressed
+     * @param level Deflater level, from 1 (faster) to 9 (smaller)
+     * @return cache
+     */
+    public synchronized SimpleCache withCompression(int thresholdBytes, int level) {
+        this.compression = new CacheCompression(thresholdBytes, level);
+        return this;
+    }
+
+    /**
+     * Enables statistics of this cache, not registered in JMX
+     * @return cache
+     */
+    public SimpleCache withStatistics() {
+        return withStatistics(false);
+    }
+
+    /**
+     * Enables statistics of this cache
+     * Hits, misses, loads, load failures, puts, removals and cache writer calls are counted,
+     * and the latencies of redis gets, cache loader calls and cache writer calls are recorded in histograms
+     * With write-behind, the cache writer calls of the background flushes are the ones counted and timed
+     * If registerJmx, statistics are registered in the platform MBean server as
+     * org.oba.jedis.extra.utils.cache:type=SimpleCache,name="cacheName" until the cache is closed
+     * (if other instance with the same name is registered, it's not replaced)
+     * @param registerJmx register statistics in JMX
+     * @return cache
+     */
+    public synchronized SimpleCache withStatistics(boolean registerJmx) {
+        checkClosed();
+        if (statistics != null) throw new IllegalStateException("RedisCache.withStatistics statistics already enabled");
+        this.statistics = new CacheStatistics(name);
+        if (registerJmx) {
+            statistics.registerMBean();
+        }
+        return this;
+    }
+
+    /**
+     * Statistics of this cache
+     * @return statistics, null if not enabled
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Compression of this cache, with its statistics
+     * @return compression, null if not enabled
+     */
+    public CacheCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Write-behind queue of this cache, with its statistics
+     * @return write-behind, null if not enabled
+     */
+    public CacheWriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Near cache of this cache, with its statistics
+     * @return near cache, null if not enabled
+     */
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
     @Override
     public JedisPool getJedisPool() {
         return jedisPool;
@@ -123,6 +641,14 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         return name;
     }
 
+    /**
+     * Default time to live of the values
+     * @return time in milliseconds
+     */
+    public long getTimeOutMs() {
+        return timeOutMs;
+    }
+
     /**
      * Converts the key from external representation to internal (redis) one
      * No null accepted
@@ -165,13 +691,96 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
     public String get(String key, CacheLoader cacheLoader) {
         checkClosed();
         if (key == null) throw new IllegalArgumentException("RedisCache.get key is null");
-        String value = withJedisPoolGet(jedis -> jedis.get(resolveKey(key)));
+        String value = nearCache != null ? nearCache.get(key) : null;
+        if (value == null) {
+            long start = System.nanoTime();
+            value = withJedisPoolGet(jedis -> remoteGet(jedis, key, cacheLoader));
+            if (statistics != null) {
+                statistics.recordRemoteGet(start);
+            }
+        }
+        if (value == TOMBSTONE) {
+            LOGGER.debug("negative cache hit key {}", key);
+            if (statistics != null) {
+                statistics.recordHits(1);
+            }
+            return null;
+        }
+        if (statistics != null) {
+            if (value != null) {
+                statistics.recordHits(1);
+            } else {
+                statistics.recordMisses(1);
+            }
+        }
         if (value == null) {
-            value = withJedisPoolGet(jedis -> readThrougth(jedis, key, cacheLoader));
+            value = readThrougth(key, cacheLoader);
+        }
+        if (value != null && eviction != null) {
+            eviction.recordAccess(key);
         }
         return value;
     }
 
+    /**
+     * Gets the value from redis
+     * If the near cache, refresh-ahead or early expiration are enabled, the remaining time to live
+     * is retrieved in the same transaction; the value is stored locally and/or reloaded in background,
+     * or treated as not found if it expires early
+     * @param jedis connection
+     * @param key key
+     * @param cacheLoader current cache loader of the operation, used to refresh-ahead
+     * @return value from redis, null if not exists, TOMBSTONE if negatively cached
+     */
+    private String remoteGet(Jedis jedis, String key, CacheLoader cacheLoader) {
+        if (nearCache == null && refreshAhead == null && earlyExpiration == null) {
+            return decodeRemoteValue(storage.get(jedis, key));
+        } else {
+            long epoch = nearCache != null ? nearCache.currentEpoch() : 0L;
+            Transaction t = jedis.multi();
+            Response<String> value = storage.get(t, key);
+            Supplier<Long> ttl = storage.pttl(t, key);
+            t.exec();
+            if (isExpiredEarly(value.get(), ttl.get(), cacheLoader)) {
+                LOGGER.debug("early expiration key {}", key);
+                return null;
+            }
+            String decoded = decodeRemoteValue(value.get());
+            if (decoded != TOMBSTONE) {
+                if (nearCache != null) {
+                    nearCache.putIfNotInvalidated(key, decoded, ttl.get(), epoch);
+                }
+                refreshAheadIfNeeded(key, decoded, ttl.get(), cacheLoader);
+            }
+            return decoded;
+        }
+    }
+
+    /**
+     * Gets a value from redis cache without blocking the caller, as get(key)
+     * It's batched with other asynchronous operations, withAsync must be called before
+     * @param key Key of the value
+     * @return future with the value, or null if not found
+     */
+    public CompletableFuture<String> getAsync(String key) {
+        checkAsync();
+        if (key == null) throw new IllegalArgumentException("RedisCache.getAsync key is null");
+        return async.getAll(Collections.singleton(key)).thenApply( values -> values.get(key));
+    }
+
+    /**
+     * Gets values from redis cache without blocking the caller, as getAll(keys)
+     * It's batched with other asynchronous operations, withAsync must be called before
+     * @param keys not null set of keys
+     * @return future with the map with values from cache or loaded, (no nulls)
+     */
+    public CompletableFuture<Map<String, String>> getAllAsync(Set<String> keys) {
+        checkAsync();
+        if (keys == null) throw new IllegalArgumentException("RedisCache.getAllAsync keys is null");
+        if (keys.contains(null)) throw new IllegalArgumentException("RedisCache.getAllAsync key is null");
+        return async.getAll(new HashSet<>(keys));
+    }
+
     /**
      * Gets values from redis cache
      * read-through: If not found, it can use the default cacheloader if present
@@ -188,65 +797,265 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      * If not found, it can use the given cacheloader
      * The default cacheloader is overridden
      * Not found values will not be present in result map (null results are no retunned)
+     * All the values are retrieved with one MGET, all the missing values are loaded with one
+     * call to cacheLoader.loadAll and stored in redis with one pipeline
      * @param keys not null set of keys
+     * @param cacheLoader current cache loader of the operation
      * @return map with values from cache or loaded, (no nulls)
      */
     public Map<String, String> getAll(Set<String> keys, CacheLoader cacheLoader) {
         checkClosed();
-        try (Jedis jedis = jedisPool.getResource()) {
-            Map<String, Response<String>> responses = new HashMap<>();
-            Transaction t = jedis.multi();
+        if (keys == null) throw new IllegalArgumentException("RedisCache.getAll keys is null");
+        Map<String, String> result = new HashMap<>();
+        List<String> remoteKeys = new ArrayList<>(keys.size());
+        for(String key: keys) {
+            if (key == null) throw new IllegalArgumentException("RedisCache.getAll key is null");
+            String localValue = nearCache != null ? nearCache.get(key) : null;
+            if (localValue != null) {
+                result.put(key, localValue);
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (statistics != null) {
+            statistics.recordHits(keys.size() - remoteKeys.size());
+        }
+        if (!remoteKeys.isEmpty()) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                long start = System.nanoTime();
+                List<String> remoteValues = remoteGetAll(jedis, remoteKeys, cacheLoader);
+                if (statistics != null) {
+                    statistics.recordRemoteGet(start);
+                }
+                Set<String> missingKeys = new HashSet<>();
+                for(int i = 0; i < remoteKeys.size(); i++) {
+                    if (remoteValues.get(i) == TOMBSTONE) {
+                        if (statistics != null) {
+                            statistics.recordHits(1);
+                        }
+                    } else if (remoteValues.get(i) != null) {
+                        result.put(remoteKeys.get(i), remoteValues.get(i));
+                        if (statistics != null) {
+                            statistics.recordHits(1);
+                        }
+                    } else {
+                        missingKeys.add(remoteKeys.get(i));
+                    }
+                }
+                if (statistics != null) {
+                    statistics.recordMisses(missingKeys.size());
+                }
+                if (!missingKeys.isEmpty()) {
+                    result.putAll(readThrougthAll(jedis, missingKeys, cacheLoader));
+                }
+            }
+        }
+        if (eviction != null) {
+            eviction.recordAccess(result.keySet());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values from redis with a MGET
+     * If the near cache, refresh-ahead or early expiration are enabled, the remaining times to live
+     * are retrieved in the same pipeline; the values are stored locally and/or reloaded in background,
+     * or treated as not found if they expire early
+     * @param jedis connection
+     * @param keys keys
+     * @param cacheLoader current cache loader of the operation, used to refresh-ahead
+     * @return values from redis in the same order as keys, null if not exists, TOMBSTONE if negatively cached
+     */
+    private List<String> remoteGetAll(Jedis jedis, List<String> keys, CacheLoader cacheLoader) {
+        if (nearCache == null && refreshAhead == null && earlyExpiration == null) {
+            List<String> decoded = new ArrayList<>(keys.size());
+            storage.getAll(jedis, keys).forEach(stored -> decoded.add(decodeRemoteValue(stored)));
+            return decoded;
+        } else {
+            long epoch = nearCache != null ? nearCache.currentEpoch() : 0L;
+            Pipeline pipeline = jedis.pipelined();
+            Response<List<String>> values = storage.getAll(pipeline, keys);
+            List<Supplier<Long>> ttls = new ArrayList<>(keys.size());
             for(String key: keys) {
-                responses.put(key, t.get(resolveKey(key)));
+                ttls.add(storage.pttl(pipeline, key));
             }
-            t.exec();
-            return resolveTransactionEntries(jedis, responses, cacheLoader);
+            pipeline.sync();
+            List<String> decoded = new ArrayList<>(keys.size());
+            for(int i = 0; i < keys.size(); i++) {
+                String stored = values.get().get(i);
+                if (isExpiredEarly(stored, ttls.get(i).get(), cacheLoader)) {
+                    LOGGER.debug("early expiration key {}", keys.get(i));
+                    decoded.add(null);
+                } else {
+                    decoded.add(decodeRemoteValue(stored));
+                }
+            }
+            for(int i = 0; i < keys.size(); i++) {
+                if (decoded.get(i) == TOMBSTONE) {
+                    continue;
+                }
+                if (nearCache != null) {
+                    nearCache.putIfNotInvalidated(keys.get(i), decoded.get(i), ttls.get(i).get(), epoch);
+                }
+                refreshAheadIfNeeded(keys.get(i), decoded.get(i), ttls.get(i).get(), cacheLoader);
+            }
+            return decoded;
+        }
+    }
+
+    /**
+     * Checks if a value read from redis must be treated as expired, if early expiration is enabled
+     * @param stored value read from redis, null if not exists
+     * @param remoteTtlMs remaining time to live on redis
+     * @param cacheLoader current cache loader of the operation, without it values never expire early
+     * @return true if expired early
+     */
+    private boolean isExpiredEarly(String stored, Long remoteTtlMs, CacheLoader cacheLoader) {
+        return earlyExpiration != null && cacheLoader != null && isValue(stored) && remoteTtlMs != null &&
+                earlyExpiration.isExpiredEarly(CacheEarlyExpiration.loadTime(stored), remoteTtlMs);
+    }
+
+    /**
+     * Reloads a key in background if refresh-ahead is enabled and the value is about to expire
+     * @param key key
+     * @param value value read from redis, null if not exists
+     * @param remoteTtlMs remaining time to live on redis
+     * @param cacheLoader current cache loader of the operation
+     */
+    private void refreshAheadIfNeeded(String key, String value, Long remoteTtlMs, CacheLoader cacheLoader) {
+        if (refreshAhead != null && cacheLoader != null && value != null &&
+                remoteTtlMs != null && refreshAhead.needsRefresh(remoteTtlMs)) {
+            LOGGER.debug("refresh-ahead key {} ttl {}", key, remoteTtlMs);
+            refreshAhead.refresh(key, () -> reload(key, cacheLoader));
+        }
+    }
+
+    /**
+     * Loads a value from the external source and updates it in redis with the cache timeout
+     * If the value no longer exists externally, the current one is left to expire
+     * @param key Key
+     * @param cacheLoader Cache loader
+     */
+    private void reload(String key, CacheLoader cacheLoader) {
+        long start = System.nanoTime();
+        String value = load(() -> cacheLoader.load(key), 1);
+        if (value != null && !isClosed()) {
+            String stored = encodeLoadedValue(value, start, 1);
+            withJedisPoolDo(jedis -> {
+                storage.set(jedis, key, stored, entryTimeOut());
+                invalidateNearCache(jedis, key);
+            });
+        }
+    }
+
+    /**
+     * Gets a value from the external source,
+     * and updates it in jedis if not null with the cache timeout
+     * If load coalescing is enabled, concurrent loads of the same key are shared
+     * No connection is held while the value is loaded
+     * @param key Key
+     * @param cacheLoader Current cache loader of operation
+     * @return external value, null if not exists
+     */
+    private String readThrougth(String key, CacheLoader cacheLoader) {
+        if (cacheLoader == null) {
+            return null;
+        } else if (loadCoalescer != null) {
+            return loadCoalescer.load(key, cacheLoader, () -> loadAndStore(key, cacheLoader));
+        } else {
+            return loadAndStore(key, cacheLoader);
         }
     }
 
     /**
-     * Covert data from trasnaction to a map value
-     * read-through: if theres a cacheloader, data is returned from external
-     * @param jedis connection
-     * @param responses Map of key reponses
-     * @param cacheLoader current cache loader of the operation
-     * @return map with key values from cache
+     * Gets a value from the external source,
+     * and updates it in jedis if not null with the cache timeout
+     * If null and negative caching is enabled, a tombstone is stored
+     * @param key Key
+     * @param cacheLoader Current cache loader of operation
+     * @return external value, null if not exists
      */
-    private Map<String, String> resolveTransactionEntries(Jedis jedis, Map<String, Response<String>> responses, CacheLoader cacheLoader) {
-        Map<String, String> result = new HashMap<>();
-        for (Map.Entry<String, Response<String>> entry: responses.entrySet()) {
-            String resolvedValue;
-            if (entry.getValue() != null && entry.getValue().get() != null) {
-                resolvedValue = entry.getValue().get();
-            } else {
-                //TODO use a loadAll ?
-                resolvedValue = readThrougth(jedis, entry.getKey(), cacheLoader);
-            }
-            if (resolvedValue != null) {
-                result.put(entry.getKey(), resolvedValue);
-            }
+    private String loadAndStore(String key, CacheLoader cacheLoader) {
+        LOGGER.debug("read-through load key {}", key);
+        long start = System.nanoTime();
+        String value = load(() -> cacheLoader.load(key), 1);
+        if (value != null) {
+            String stored = encodeLoadedValue(value, start, 1);
+            withJedisPoolDo(jedis -> storage.set(jedis, key, stored, entryTimeOut()));
+        } else if (negativeCacheTtlMs > 0) {
+            LOGGER.debug("negative cache store key {}", key);
+            withJedisPoolDo(jedis -> storage.set(jedis, key, TOMBSTONE, negativeCacheTtlMs));
         }
-        return result;
+        return value;
     }
 
     /**
-     * Gets a value from the external source,
-     * and updates it in jedis if not null
+     * Gets a group of values from the external source with one loadAll call,
+     * and updates them in jedis with one pipeline with the cache timeout
+     * If negative caching is enabled, tombstones are stored for the keys not found
      * @param jedis  Jedis connnection
-     * @param key Keyº
+     * @param keys Keys
      * @param cacheLoader Current cache loader of operation
-     * @return external value, null if not exists
+     * @return external values, not found keys are not present
      */
-    private String readThrougth(Jedis jedis, String key, CacheLoader cacheLoader) {
-        String value = null;
+    private Map<String, String> readThrougthAll(Jedis jedis, Set<String> keys, CacheLoader cacheLoader) {
+        Map<String, String> values = new HashMap<>();
         if (cacheLoader != null) {
-            LOGGER.debug("read-through load key {}", key);
-            value = cacheLoader.load(key);
-            if (value != null) {
-                jedis.set(resolveKey(key), value);
+            LOGGER.debug("read-through load keys {}", keys);
+            long start = System.nanoTime();
+            Map<String, String> loaded = load(() -> cacheLoader.loadAll(keys), keys.size());
+            if (loaded != null) {
+                loaded.forEach((k, v) -> {
+                    if (k != null && v != null) {
+                        values.put(k, v);
+                    }
+                });
+            }
+            Map<String, String> tombstones = new HashMap<>();
+            if (negativeCacheTtlMs > 0) {
+                keys.stream().
+                        filter(k -> !values.containsKey(k)).
+                        forEach(k -> tombstones.put(k, TOMBSTONE));
+            }
+            if (!values.isEmpty() || !tombstones.isEmpty()) {
+                Map<String, String> encoded = new HashMap<>();
+                values.forEach((k, v) -> encoded.put(k, encodeLoadedValue(v, start, keys.size())));
+                Pipeline pipeline = jedis.pipelined();
+                if (ttlJitterRatio > 0.0) {
+                    encoded.forEach((k, v) -> storage.setAll(pipeline, Collections.singletonMap(k, v), entryTimeOut()));
+                } else {
+                    storage.setAll(pipeline, encoded, timeOutMs);
+                }
+                if (!tombstones.isEmpty()) {
+                    LOGGER.debug("negative cache store keys {}", tombstones.keySet());
+                    storage.setAll(pipeline, tombstones, negativeCacheTtlMs);
+                }
+                pipeline.sync();
             }
         }
-        return value;
+        return values;
+    }
+
+    /**
+     * Calls the cache loader, recording it in the statistics if enabled
+     * @param loader call to the cache loader
+     * @param count number of keys loaded
+     * @param <T> type of the result
+     * @return result of the cache loader
+     */
+    private <T> T load(Supplier<T> loader, int count) {
+        if (statistics == null) {
+            return loader.get();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = loader.get();
+            statistics.recordLoad(count, start);
+            return result;
+        } catch (RuntimeException e) {
+            statistics.recordLoadFailure(start);
+            throw e;
+        }
     }
 
     /**
@@ -256,7 +1065,14 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      */
     public boolean containsKey(String key) {
         checkClosed();
-        return withJedisPoolGet(jedis -> jedis.exists(resolveKey(key)));
+        if (nearCache != null && nearCache.get(key) != null) {
+            return true;
+        }
+        if (negativeCacheTtlMs > 0) {
+            return withJedisPoolGet(jedis -> isValue(storage.get(jedis, key)));
+        } else {
+            return withJedisPoolGet(jedis -> storage.exists(jedis, key));
+        }
     }
 
     /**
@@ -283,6 +1099,20 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         }
     }
 
+    /**
+     * Load the set of keys from external sources without blocking the caller, as loadAll
+     * It runs in the executor of the asynchronous operations, withAsync must be called before
+     * @param keys Set of keys to update
+     * @param replaceExistingValues if a value is found in redis, should it be updated
+     * @return future completed when the values are loaded
+     */
+    public CompletableFuture<Void> loadAllAsync(Set<String> keys, boolean replaceExistingValues) {
+        checkAsync();
+        if (keys == null) throw new IllegalArgumentException("RedisCache.loadAllAsync keys is null");
+        Set<String> keysCopy = new HashSet<>(keys);
+        return async.run(() -> loadAll(keysCopy, replaceExistingValues));
+    }
+
     /**
      * Inserts a new value for given key in redis
      * The new value will use the default timeout of the cache
@@ -292,7 +1122,7 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      * @param value Data of the value
      */
     public void put(String key, String value) {
-        put(key, value, timeOutMs);
+        put(key, value, entryTimeOut());
     }
 
     /**
@@ -308,12 +1138,26 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         checkClosed();
         if (key == null) throw new IllegalArgumentException("RedisCache.put key is null");
         if (value == null) throw new IllegalArgumentException("RedisCache.put value is null");
-        SetParams setParams = new SetParams().px(timeOutMs);
-        withJedisPoolDo(jedis -> jedis.set(resolveKey(key), value, setParams));
-        if (cacheWriter != null) {
-            LOGGER.debug("write-through store key {} value {}", key, value);
-            cacheWriter.write(key, value);
-        }
+        withJedisPoolDo(jedis -> {
+            storage.set(jedis, key, encodeValue(value), timeOutMs);
+            invalidateNearCache(jedis, key);
+        });
+        recordPuts(key);
+        writeThrough(key, value);
+    }
+
+    /**
+     * Inserts a new value for given key in redis without blocking the caller, as put(key, value)
+     * It's batched with other asynchronous operations, withAsync must be called before
+     * @param key Key of the value
+     * @param value Data of the value
+     * @return future completed when the value is stored
+     */
+    public CompletableFuture<Void> putAsync(String key, String value) {
+        checkAsync();
+        if (key == null) throw new IllegalArgumentException("RedisCache.putAsync key is null");
+        if (value == null) throw new IllegalArgumentException("RedisCache.putAsync value is null");
+        return async.put(key, value);
     }
 
     /**
@@ -330,16 +1174,14 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         if (key == null) throw new IllegalArgumentException("RedisCache.getAndPut key is null");
         if (value == null) throw new IllegalArgumentException("RedisCache.getAndPut value is null");
         try (Jedis jedis = jedisPool.getResource()) {
-            SetParams setParams = new SetParams().px(timeOutMs);
             Transaction t = jedis.multi();
-            Response<String> response = t.get(resolveKey(key));
-            t.set(resolveKey(key), value, setParams);
+            Response<String> response = storage.get(t, key);
+            storage.set(t, key, encodeValue(value), entryTimeOut());
             t.exec();
-            if (cacheWriter != null) {
-                LOGGER.debug("write-through store key {} value {}", key, value);
-                cacheWriter.write(key, value);
-            }
-            return response.get();
+            invalidateNearCache(jedis, key);
+            recordPuts(key);
+            writeThrough(key, value);
+            return decodeValue(response.get());
         }
     }
 
@@ -367,13 +1209,19 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         checkClosed();
         if (values == null) throw new IllegalArgumentException("RedisCache.putAll map is null");
         try (Jedis jedis = jedisPool.getResource()) {
-            SetParams setParams = new SetParams().px(timeOutMs);
+            Map<String, String> encoded = new HashMap<>();
+            values.forEach( (k,v) -> encoded.put(k, encodeValue(v)));
             Transaction t = jedis.multi();
-            values.forEach( (k,v) -> t.set(resolveKey(k),v, setParams));
+            if (ttlJitterRatio > 0.0) {
+                encoded.forEach((k, v) -> storage.set(t, k, v, entryTimeOut()));
+            } else {
+                storage.setAll(t, encoded, timeOutMs);
+            }
             t.exec();
-            if (allowWriteThrougth && cacheWriter != null) {
-                LOGGER.debug("write-through store values {}", values);
-                cacheWriter.writeAll(values);
+            invalidateNearCache(jedis, values.keySet());
+            recordPuts(values.keySet());
+            if (allowWriteThrougth) {
+                writeThroughAll(values);
             }
         }
     }
@@ -381,6 +1229,8 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
     /**
      * Inserts a new value for given key in redis if no previous value is present
      * Nothing will be done otherwise
+     * With negative caching, a tombstone is not a value and it will be replaced
+     * (atomically, with the conditional script)
      * The new value will use given timeout
      * write-through: If a cacheWriter is present and can be updated in redis,
      * it will be updated in external sources
@@ -391,13 +1241,27 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         checkClosed();
         if (key == null) throw new IllegalArgumentException("RedisCache.putIfAbsent key is null");
         if (value == null) throw new IllegalArgumentException("RedisCache.putIfAbsent value is null");
-        SetParams setParams = new SetParams().nx().px(timeOutMs);
-        String result = withJedisPoolGet(jedis -> jedis.set(resolveKey(key), value, setParams));
-        if (result!= null && cacheWriter != null) {
-            LOGGER.debug("write-through store key {} value {}", key, value);
-            cacheWriter.write(key, value);
+        boolean result;
+        if (negativeCacheTtlMs > 0) {
+            result = storage.conditional(conditionalScript, PUT_IF_ABSENT, key, "", encodeValue(value),
+                    entryTimeOut()) != null;
+            if (result) {
+                invalidateNearCache(key);
+            }
+        } else {
+            result = withJedisPoolGet(jedis -> {
+                boolean setResult = storage.setIfAbsent(jedis, key, encodeValue(value), entryTimeOut());
+                if (setResult) {
+                    invalidateNearCache(jedis, key);
+                }
+                return setResult;
+            });
         }
-        return result != null;
+        if (result) {
+            recordPuts(key);
+            writeThrough(key, value);
+        }
+        return result;
     }
 
     /**
@@ -412,20 +1276,35 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         if (key == null) throw new IllegalArgumentException("RedisCache.remove key is null");
         try (Jedis jedis = jedisPool.getResource()) {
             Transaction t = jedis.multi();
-            Response<String> previous = t.get(resolveKey(key));
-            t.del(resolveKey(key));
+            Response<String> previous = storage.get(t, key);
+            storage.delete(t, key);
             t.exec();
-            if (previous.get() != null && cacheWriter != null) {
-                LOGGER.debug("write-through remove key {} ", key);
-                cacheWriter.delete(key);
+            boolean removed = isValue(previous.get());
+            if (removed) {
+                invalidateNearCache(jedis, key);
+                recordRemovals(key);
+                deleteThrough(key);
             }
-            return previous.get() != null;
+            return removed;
         }
     }
 
+    /**
+     * Removes for given key in redis without blocking the caller, as remove(key)
+     * It's batched with other asynchronous operations, withAsync must be called before
+     * @param key Key of the value
+     * @return future with true if a values has been removed
+     */
+    public CompletableFuture<Boolean> removeAsync(String key) {
+        checkAsync();
+        if (key == null) throw new IllegalArgumentException("RedisCache.removeAsync key is null");
+        return async.remove(key);
+    }
+
     /**
      * Removes for given key in redis if the value matches
      * The deletion will happen if current value matches with given value
+     * The comparison and deletion are done atomically in redis with a script, in one round trip
      * write-through: If a cacheWriter is present and the deletion is done,
      * it will be removed in external sources
      * @param key Key of the value
@@ -434,16 +1313,13 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      */
     public boolean remove(String key, String oldValue) {
         checkClosed();
-        //Better with script
         if (key == null) throw new IllegalArgumentException("RedisCache.remove key is null");
         if (oldValue == null) throw new IllegalArgumentException("RedisCache.remove oldValue is null");
-        String current = withJedisPoolGet(jedis -> jedis.get(resolveKey(key)));
-        if (current != null && current.equals(oldValue)) {
-            withJedisPoolDo(jedis -> jedis.del(resolveKey(key)));
-            if (cacheWriter != null) {
-                LOGGER.debug("write-through remove key {} ", key);
-                cacheWriter.delete(key);
-            }
+        String previous = storage.conditional(conditionalScript, REMOVE_IF_EQUALS, key, encodeValue(oldValue), "", 0L);
+        if (previous != null) {
+            invalidateNearCache(key);
+            recordRemovals(key);
+            deleteThrough(key);
             return true;
         }  else {
             return false;
@@ -462,19 +1338,21 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         if (key == null) throw new IllegalArgumentException("RedisCache.getAndRemove key is null");
         try (Jedis jedis = jedisPool.getResource()) {
             Transaction t = jedis.multi();
-            Response<String> previous = t.get(resolveKey(key));
-            t.del(resolveKey(key));
+            Response<String> previous = storage.get(t, key);
+            storage.delete(t, key);
             t.exec();
-            if (previous.get() != null && cacheWriter != null) {
-                LOGGER.debug("write-through remove key {} ", key);
-                cacheWriter.delete(key);
+            if (isValue(previous.get())) {
+                invalidateNearCache(jedis, key);
+                recordRemovals(key);
+                deleteThrough(key);
             }
-            return previous.get();
+            return decodeValue(previous.get());
         }
     }
 
     /**
      * Replaces key value with new value if current redis value is equals to given oldValue
+     * The comparison and replacement are done atomically in redis with a script, in one round trip
      * write-through: If value is replaced and a cachewriter exits, external source is updated too
      * @param key Key to have replacement
      * @param oldValue Value to be matched
@@ -486,49 +1364,28 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         if (key == null) throw new IllegalArgumentException("RedisCache.replace key is null");
         if (oldValue == null) throw new IllegalArgumentException("RedisCache.replace oldValue is null");
         if (newValue == null) throw new IllegalArgumentException("RedisCache.replace newValue is null");
-        //Better with script
-        try (Jedis jedis = jedisPool.getResource()) {
-            String current = jedis.get(resolveKey(key));
-            if (current != null && current.equals(oldValue)) {
-                SetParams setParams = new SetParams().px(timeOutMs);
-                jedis.set(resolveKey(key), newValue, setParams);
-                if (cacheWriter != null) {
-                    LOGGER.debug("write-through replace key {} value {}", key, newValue);
-                    cacheWriter.write(key, newValue);
-                }
-                return true;
-            }  else {
-                return false;
-            }
+        String previous = storage.conditional(conditionalScript, REPLACE_IF_EQUALS, key, encodeValue(oldValue),
+                encodeValue(newValue), entryTimeOut());
+        if (previous != null) {
+            invalidateNearCache(key);
+            recordPuts(key);
+            writeThrough(key, newValue);
+            return true;
+        }  else {
+            return false;
         }
     }
 
     /**
      * Replaces key value with new value if key exists
+     * The check and replacement are done atomically in redis with a script, in one round trip
      * write-through: If value is replaced and a cachewriter exits, external source is updated too
      * @param key Key to have replacement
      * @param value New value to update in redis
      * @return true if replaced
      */
     public boolean replace(String key, String value) {
-        checkClosed();
-        if (key == null) throw new IllegalArgumentException("RedisCache.replace key is null");
-        if (value == null) throw new IllegalArgumentException("RedisCache.replace value is null");
-        //Better with script
-        try (Jedis jedis = jedisPool.getResource()) {
-            String current = jedis.get(resolveKey(key));
-            if (current != null) {
-                SetParams setParams = new SetParams().px(timeOutMs);
-                jedis.set(resolveKey(key), value, setParams);
-                if (cacheWriter != null) {
-                    LOGGER.debug("write-through replace key {} value {}", key, value);
-                    cacheWriter.write(key, value);
-                }
-                return true;
-            }  else {
-                return false;
-            }
-        }
+        return getAndReplace(key, value, "RedisCache.replace") != null;
     }
 
     /**
@@ -543,51 +1400,99 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      *     return null
      *   }
      *
+     * but done atomically in redis with a script, in one round trip
+     *
      * write-through: If the value is going to be updated in redis, in external system too
      * @param key Key to be modified
      * @param value New value to be updated
      * @return Old value in cache
      */
     public String getAndReplace(String key, String value) {
+        return getAndReplace(key, value, "RedisCache.getAndReplace");
+    }
+
+    /**
+     * Replaces key value with new value if key exists, with the conditional script
+     * @param key Key to be modified
+     * @param value New value to be updated
+     * @param operationName Name of the public operation, for errors
+     * @return Old value in cache, null if not replaced
+     */
+    private String getAndReplace(String key, String value, String operationName) {
         checkClosed();
-        if (key == null) throw new IllegalArgumentException("RedisCache.getAndReplace key is null");
-        if (value == null) throw new IllegalArgumentException("RedisCache.getAndReplace value is null");
-        //Better with script
-        try (Jedis jedis = jedisPool.getResource()) {
-            String current = jedis.get(resolveKey(key));
-            if (current != null) {
-                SetParams setParams = new SetParams().px(timeOutMs);
-                jedis.set(resolveKey(key), value, setParams);
-                if (cacheWriter != null) {
-                    LOGGER.debug("write-through replace key {} value {}", key, value);
-                    cacheWriter.write(key, value);
-                }
-                return current;
-            }  else {
-                return null;
-            }
+        if (key == null) throw new IllegalArgumentException(operationName + " key is null");
+        if (value == null) throw new IllegalArgumentException(operationName + " value is null");
+        String previous = storage.conditional(conditionalScript, REPLACE_IF_EXISTS, key, "",
+                encodeValue(value), entryTimeOut());
+        if (previous != null) {
+            invalidateNearCache(key);
+            recordPuts(key);
+            writeThrough(key, value);
+            return decodeValue(previous);
+        }  else {
+            return null;
         }
     }
 
     /**
      * Will remove entries from redis with the given keys
+     * Only the keys that existed are counted as removals in the statistics
      * write-through: If a cacheWriter is present, all external values wil be deleted
      * @param keys keys to remove
      */
     public void removeAll(Set<String> keys) {
         checkClosed();
         if (keys == null) throw new IllegalArgumentException("RedisCache.removeAll keys is null");
-        String[] keysAsArray = keys.toArray(new String[0]);
-        for(int i=0; i < keysAsArray.length; i++) {
-            keysAsArray[i] = resolveKey(keysAsArray[i]);
+        long removed;
+        try (Jedis jedis = jedisPool.getResource()) {
+            removed = storage.deleteAll(jedis, keys);
+            invalidateNearCache(jedis, keys);
         }
+        recordRemovals(removed, keys);
+        deleteThroughAll(keys);
+    }
+
+    /**
+     * Will remove entries from redis with the given keys, in one transaction
+     * write-through: If a cacheWriter is present, the removed values wil be deleted
+     * @param keys keys to remove
+     * @return keys that had a value
+     */
+    Set<String> removeAllExisting(Set<String> keys) {
+        checkClosed();
+        Set<String> removed = new HashSet<>();
         try (Jedis jedis = jedisPool.getResource()) {
-            jedis.del(keysAsArray);
+            Transaction t = jedis.multi();
+            Map<String, Response<String>> previous = new HashMap<>();
+            for(String key: keys) {
+                previous.put(key, storage.get(t, key));
+                storage.delete(t, key);
+            }
+            t.exec();
+            previous.forEach( (key, response) -> {
+                if (isValue(response.get())) {
+                    removed.add(key);
+                }
+            });
+            invalidateNearCache(jedis, removed);
         }
-        if (cacheWriter != null) {
-            LOGGER.debug("write-through delete keys {} ", keys);
-            cacheWriter.deleteAll(keys);
+        recordRemovals(removed.size(), removed);
+        if (!removed.isEmpty()) {
+            deleteThroughAll(removed);
         }
+        return removed;
+    }
+
+    /**
+     * Evicts entries to keep the size bound, without using the cache writer
+     * @param jedis connection
+     * @param keys keys to evict
+     * @return number of entries that existed
+     */
+    long evict(Jedis jedis, Collection<String> keys) {
+        long evicted = storage.deleteAll(jedis, keys);
+        invalidateNearCache(jedis, keys);
+        return evicted;
     }
 
     /**
@@ -613,18 +1518,49 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      */
     private void removeAll(boolean allowCacheWriter) {
         checkClosed();
-        List<String> scanned = new CacheKeyIterator(this, false).asList();
-        // No need to convert here
-        if (!scanned.isEmpty()) {
-            withJedisPoolDo(jedis -> jedis.del(scanned.toArray(new String[]{})));
-            if (allowCacheWriter && cacheWriter != null) {
-                List<String> unresolved = scanned.stream().
-                        map(this::unresolveKey).
-                        collect(Collectors.toList());
-                LOGGER.debug("write-through delete key {} ", unresolved);
-                cacheWriter.deleteAll(unresolved);
-            }
+        boolean useCacheWriter = allowCacheWriter && cacheWriter != null;
+        long removed = storage.removeAll(useCacheWriter ? this::deleteThroughAll : null);
+        recordRemovals(removed);
+        if (nearCacheInvalidation != null) {
+            withJedisPoolDo(nearCacheInvalidation::invalidateAll);
+        }
+        if (eviction != null) {
+            withJedisPoolDo(eviction::clear);
+        }
+    }
+
+    /**
+     * Writes all the entries of the cache, with their remaining time to live, in a binary snapshot file
+     * The file is replaced if it exists
+     * Entries are read one scan page at a time (values and times to live in one pipeline per page)
+     * and written through a buffered file channel, so memory doesn't grow with the size of the cache
+     * Values are written as stored, so the snapshot must be loaded in caches with the same
+     * compression and early expiration settings
+     * @param file snapshot file
+     * @return number of entries written
+     */
+    public long exportSnapshot(Path file) {
+        checkClosed();
+        if (file == null) throw new IllegalArgumentException("RedisCache.exportSnapshot file is null");
+        return CacheSnapshot.export(this, storage, file);
+    }
+
+    /**
+     * Writes the entries of a snapshot file in the cache, to warm it up after a flush or failover
+     * Every entry keeps the expiration time it had when exported; expired entries are skipped
+     * The file is read as a stream and the entries are written in pipelines of many values,
+     * overwriting the current ones; cache loader and cache writer are not used
+     * @param file snapshot file, written by exportSnapshot
+     * @return number of entries written in the cache
+     */
+    public long warmUp(Path file) {
+        checkClosed();
+        if (file == null) throw new IllegalArgumentException("RedisCache.warmUp file is null");
+        long count = CacheSnapshot.warmUp(this, storage, file, this::recordPuts);
+        if (nearCacheInvalidation != null) {
+            withJedisPoolDo(nearCacheInvalidation::invalidateAll);
         }
+        return count;
     }
 
     /**
@@ -656,9 +1592,41 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         return keysIterator().asList();
     }
 
+    /**
+     * Number of entries in the cache
+     * With the default storage all the keys of the cache are scanned and counted page by page
+     * (a key returned twice by SCAN is counted twice),
+     * with hash storage it's one HLEN (that can count expired entries not yet reclaimed)
+     * With negative caching, all the keys and values are scanned page by page to skip the tombstones
+     * @return number of entries
+     */
+    public long size() {
+        checkClosed();
+        if (negativeCacheTtlMs > 0) {
+            long size = 0L;
+            Iterator<Map.Entry<String, String>> entries = storage.entriesIterator();
+            while (entries.hasNext()) {
+                if (isValue(entries.next().getValue())) {
+                    size++;
+                }
+            }
+            return size;
+        } else {
+            return storage.size();
+        }
+    }
+
+    /**
+     * Storage layout of the entries of this cache
+     * @return storage
+     */
+    CacheStorage getStorage() {
+        return storage;
+    }
+
     /**
      * Return all the current key-value pairs in the cache into a local unmodifiable entry list
-     * This will make N access to redis and make a copy of the remote data
+     * This will make one access to redis per scan page and make a copy of the remote data
      * @return list with data
      */
     @Override
@@ -668,7 +1636,7 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
 
     /**
      * Return all the current key-value pairs in the cache into a local unmodifiable map
-     * This will make N access to redis and make a copy of the remote data
+     * This will make one access to redis per scan page and make a copy of the remote data
      * @return map with data
      */
     public Map<String, String> asMap() {
@@ -680,8 +1648,309 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
      * Close this instance of redis cache
      * Does not affect redis of extenal data
      */
-    public void close() {
+    public synchronized void close() {
+        if (async != null) {
+            async.close();
+        }
         isClosed.set(true);
+        if (!entryListeners.isEmpty()) {
+            entryListeners.clear();
+            CacheEventSubscriber.unregister(this);
+        }
+        if (eviction != null) {
+            eviction.close();
+        }
+        if (refreshAhead != null) {
+            refreshAhead.close();
+        }
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        if (nearCacheInvalidation != null) {
+            nearCacheInvalidation.close();
+        }
+        if (statistics != null) {
+            statistics.unregisterMBean();
+        }
+    }
+
+    /**
+     * Converts a value to the form stored in redis (compressed if enabled and needed)
+     * Values that look compressed are always stored compressed, even if compression is not enabled
+     * @param value plain value
+     * @return value to store
+     */
+    String encodeValue(String value) {
+        String stored;
+        if (compression != null) {
+            stored = compression.encode(value);
+        } else if (CacheCompression.startsWithHeader(value)) {
+            stored = FALLBACK_COMPRESSION.encode(value);
+        } else {
+            stored = value;
+        }
+        if (CacheEarlyExpiration.startsWithHeader(stored)) {
+            stored = CacheEarlyExpiration.withLoadTime(stored, 0L);
+        }
+        return stored;
+    }
+
+    /**
+     * Converts a loaded value to the form stored in redis
+     * If early expiration is enabled, the time of the load is stored with the value
+     * @param value plain value
+     * @param startNanos moment when the load started, from System.nanoTime()
+     * @param count number of values loaded together
+     * @return value to store
+     */
+    private String encodeLoadedValue(String value, long startNanos, int count) {
+        String stored = encodeValue(value);
+        if (earlyExpiration != null) {
+            long elapsedNanos = (System.nanoTime() - startNanos) / Math.max(1, count);
+            long loadTimeMs = (elapsedNanos + 999_999L) / 1_000_000L;
+            if (loadTimeMs > 0 && !CacheEarlyExpiration.startsWithHeader(stored)) {
+                stored = CacheEarlyExpiration.withLoadTime(stored, loadTimeMs);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Converts a value read from redis to the plain value (decompressed if needed)
+     * Values are decoded even if compression is not enabled, as they could be stored compressed
+     * Tombstones are decoded as null
+     * @param stored value read from redis, can be null
+     * @return plain value
+     */
+    String decodeValue(String stored) {
+        if (isTombstone(stored)) {
+            return null;
+        }
+        stored = CacheEarlyExpiration.withoutLoadTime(stored);
+        if (compression != null) {
+            return compression.decode(stored);
+        } else if (CacheCompression.startsWithHeader(stored)) {
+            return FALLBACK_COMPRESSION.decode(stored);
+        } else {
+            return stored;
+        }
+    }
+
+    /**
+     * Converts a value read from redis to the plain value, keeping the tombstones
+     * @param stored value read from redis, can be null
+     * @return plain value, TOMBSTONE if negatively cached
+     */
+    private String decodeRemoteValue(String stored) {
+        return isTombstone(stored) ? TOMBSTONE : decodeValue(stored);
+    }
+
+    /**
+     * Checks if a value read from redis is a tombstone of negative caching
+     * @param stored value read from redis, can be null
+     * @return true if tombstone
+     */
+    static boolean isTombstone(String stored) {
+        return TOMBSTONE.equals(stored);
+    }
+
+    /**
+     * Checks if a value read from redis is a value (not null nor a tombstone)
+     * @param stored value read from redis, can be null
+     * @return true if value
+     */
+    static boolean isValue(String stored) {
+        return stored != null && !isTombstone(stored);
+    }
+
+    /**
+     * Stores a value in external sources, if a cachewriter exists
+     * With write-behind, the write is queued
+     * @param key key
+     * @param value value
+     */
+    private void writeThrough(String key, String value) {
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through store key {} value {}", key, value);
+            if (writeBehind != null) {
+                writeBehind.write(key, value);
+            } else {
+                write(() -> cacheWriter.write(key, value));
+            }
+        }
+    }
+
+    /**
+     * Stores values in external sources, if a cachewriter exists
+     * With write-behind, the writes are queued
+     * @param values keys and values
+     */
+    private void writeThroughAll(Map<String, String> values) {
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through store values {}", values);
+            if (writeBehind != null) {
+                writeBehind.writeAll(values);
+            } else {
+                write(() -> cacheWriter.writeAll(values));
+            }
+        }
+    }
+
+    /**
+     * Deletes a value in external sources, if a cachewriter exists
+     * With write-behind, the delete is queued
+     * @param key key
+     */
+    private void deleteThrough(String key) {
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through remove key {} ", key);
+            if (writeBehind != null) {
+                writeBehind.delete(key);
+            } else {
+                write(() -> cacheWriter.delete(key));
+            }
+        }
+    }
+
+    /**
+     * Deletes values in external sources, if a cachewriter exists
+     * With write-behind, the deletes are queued
+     * @param keys keys
+     */
+    private void deleteThroughAll(Collection<String> keys) {
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through delete keys {} ", keys);
+            if (writeBehind != null) {
+                writeBehind.deleteAll(keys);
+            } else {
+                write(() -> cacheWriter.deleteAll(keys));
+            }
+        }
+    }
+
+    /**
+     * Calls the cache writer, recording it in the statistics if enabled
+     * (with write-behind, calls are recorded by the flushes)
+     * @param writer call to the cache writer
+     */
+    private void write(Runnable writer) {
+        if (statistics == null) {
+            writer.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            writer.run();
+            statistics.recordWrite(start);
+        } catch (RuntimeException e) {
+            statistics.recordWriteFailure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Timeout of a value stored with the default cache timeout, with jitter if enabled
+     * @return time to live in milliseconds
+     */
+    private long entryTimeOut() {
+        if (ttlJitterRatio > 0.0) {
+            return timeOutMs - (long) (timeOutMs * ttlJitterRatio * ThreadLocalRandom.current().nextDouble());
+        } else {
+            return timeOutMs;
+        }
+    }
+
+    /**
+     * Counts a put in the statistics and records the access for eviction, if enabled
+     * @param key key put
+     */
+    private void recordPuts(String key) {
+        if (statistics != null) {
+            statistics.recordPuts(1);
+        }
+        if (eviction != null) {
+            eviction.recordAccess(key);
+        }
+    }
+
+    /**
+     * Counts puts in the statistics and records the accesses for eviction, if enabled
+     * @param keys keys put
+     */
+    private void recordPuts(Collection<String> keys) {
+        if (statistics != null) {
+            statistics.recordPuts(keys.size());
+        }
+        if (eviction != null) {
+            eviction.recordAccess(keys);
+        }
+    }
+
+    /**
+     * Counts removals in the statistics, if enabled
+     * @param count number of values removed
+     */
+    private void recordRemovals(long count) {
+        if (statistics != null) {
+            statistics.recordRemovals(count);
+        }
+    }
+
+    /**
+     * Counts a removal in the statistics and forgets the access for eviction, if enabled
+     * @param key key removed
+     */
+    private void recordRemovals(String key) {
+        recordRemovals(1);
+        if (eviction != null) {
+            eviction.recordRemoval(key);
+        }
+    }
+
+    /**
+     * Counts removals in the statistics and forgets the accesses for eviction, if enabled
+     * @param count number of values removed
+     * @param keys keys removed (can include keys that had no value)
+     */
+    private void recordRemovals(long count, Collection<String> keys) {
+        recordRemovals(count);
+        if (eviction != null) {
+            eviction.recordRemoval(keys);
+        }
+    }
+
+    /**
+     * Evicts the near cache copy of a modified key, in this and other instances
+     * Must be called after the data is modified in redis
+     * A connection is used only if the near cache is enabled
+     * @param key modified key
+     */
+    private void invalidateNearCache(String key) {
+        if (nearCacheInvalidation != null) {
+            withJedisPoolDo(jedis -> invalidateNearCache(jedis, key));
+        }
+    }
+
+    /**
+     * Evicts the near cache copy of a modified key, in this and other instances
+     * Must be called after the data is modified in redis
+     * @param jedis connection
+     * @param key modified key
+     */
+    private void invalidateNearCache(Jedis jedis, String key) {
+        invalidateNearCache(jedis, Collections.singletonList(key));
+    }
+
+    /**
+     * Evicts the near cache copy of modified keys, in this and other instances
+     * Must be called after the data is modified in redis
+     * @param jedis connection
+     * @param keys modified keys
+     */
+    private void invalidateNearCache(Jedis jedis, Collection<String> keys) {
+        if (nearCacheInvalidation != null) {
+            nearCacheInvalidation.invalidate(jedis, keys);
+        }
     }
 
     /**
@@ -701,4 +1970,12 @@ public class SimpleCache implements Iterable<Map.Entry<String,String>>,
         }
     }
 
+    /**
+     * Check if closed and if the asynchronous operations are enabled
+     */
+    private void checkAsync() {
+        checkClosed();
+        if (async == null) throw new IllegalStateException("RedisCache async operations not enabled, call withAsync");
+    }
+
 }
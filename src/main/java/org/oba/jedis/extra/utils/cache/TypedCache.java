@@ -0,0 +1,781 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import io.valkey.params.ScanParams;
+import io.valkey.params.SetParams;
+import io.valkey.resps.ScanResult;
+import org.oba.jedis.extra.utils.utils.JedisPoolUser;
+import org.oba.jedis.extra.utils.utils.Named;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.oba.jedis.extra.utils.utils.UniversalReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * A typed cache, like SimpleCache but with keys and values of any type
+ *
+ * Keys and values are converted to binary data with the given codecs, and stored
+ * in redis with the binary commands; so no intermediate strings are created
+ * and compact binary formats can be stored
+ *
+ * Keys inside redis are resolved with the cache name to avoid duplication in redis space,
+ * as the UTF-8 name followed by ':' and the encoded key
+ *
+ * Unlike maps, null keys or values aren't allowed.
+ * Every value has a timeout before it's deleted automatically by redis
+ *
+ * You can use a TypedCacheLoader to give read-through caching, and a TypedCacheWriter
+ * to give write-through caching
+ *
+ * Conditional operations (replace, getAndReplace, remove with a value) are done atomically
+ * in redis with a script, comparing the encoded values byte by byte
+ * Operations on all the entries (iterator, keys, removeAll, clear) scan the keys one page at a time
+ *
+ * The cache must have a Jedis connection pool
+ * Also a name, every instance with the same name will access the same redis data
+ * And a timeout that will be applied to all data by default
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class TypedCache<K, V> implements Iterable<Map.Entry<K, V>>, Named, JedisPoolUser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypedCache.class);
+
+    public static final int DEFAULT_RESULTS_PER_SCAN_ITERATORS = 50;
+
+    public static final String SCRIPT_NAME = "typedCacheConditional.lua";
+    public static final String FILE_PATH = "./src/main/resources/typedCacheConditional.lua";
+
+    // Operations of the conditional script
+    static final String REPLACE_IF_EQUALS = "replaceIfEquals";
+    static final String REPLACE_IF_EXISTS = "replaceIfExists";
+    static final String REMOVE_IF_EQUALS = "removeIfEquals";
+
+
+    private final JedisPool jedisPool;
+
+    private final String name;
+
+    private final long timeOutMs;
+
+    private final CacheCodec<K> keyCodec;
+
+    private final CacheCodec<V> valueCodec;
+
+    private final byte[] keyPrefix;
+
+    private final ScriptEvalSha1 conditionalScript;
+
+    private TypedCacheLoader<K, V> cacheLoader;
+
+    private TypedCacheWriter<K, V> cacheWriter;
+
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+
+    /**
+     * Create a typed cache
+     * @param jedisPool Connection pool
+     * @param name Name shared across instances
+     * @param timeOutMs Default timeout for every entry
+     * @param keyCodec Codec for keys
+     * @param valueCodec Codec for values
+     */
+    public TypedCache(JedisPool jedisPool, String name, long timeOutMs, CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        if (keyCodec == null) throw new IllegalArgumentException("TypedCache keyCodec is null");
+        if (valueCodec == null) throw new IllegalArgumentException("TypedCache valueCodec is null");
+        this.jedisPool = jedisPool;
+        this.name = name;
+        this.timeOutMs = timeOutMs;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keyPrefix = (name + ":").getBytes(StandardCharsets.UTF_8);
+        this.conditionalScript = new ScriptEvalSha1(jedisPool, new UniversalReader().
+                withResoruce(SCRIPT_NAME).
+                withFile(FILE_PATH));
+    }
+
+    /**
+     * Adds a cache loader to this cache
+     * @param cacheLoader Default cacheloader readthrougth
+     * @return cache
+     */
+    public TypedCache<K, V> withCacheLoader(TypedCacheLoader<K, V> cacheLoader) {
+        this.cacheLoader = cacheLoader;
+        return this;
+    }
+
+    /**
+     * Adds a cache writer to this cache
+     * @param cacheWriter Default cachewriter writethrough
+     * @return cache
+     */
+    public TypedCache<K, V> withCacheWriter(TypedCacheWriter<K, V> cacheWriter) {
+        this.cacheWriter = cacheWriter;
+        return this;
+    }
+
+    @Override
+    public JedisPool getJedisPool() {
+        return jedisPool;
+    }
+
+    /**
+     * Current name
+     * @return name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Converts the key from external representation to internal (redis) one
+     * No null accepted
+     * @param key key to convert
+     * @return key converted
+     */
+    public byte[] resolveKey(K key) {
+        if (key == null) throw new IllegalArgumentException("Key must be not null");
+        byte[] encoded = keyCodec.encode(key);
+        byte[] resolved = Arrays.copyOf(keyPrefix, keyPrefix.length + encoded.length);
+        System.arraycopy(encoded, 0, resolved, keyPrefix.length, encoded.length);
+        return resolved;
+    }
+
+    /**
+     * Converts the key from internal (redis) representation to external one
+     * No null accepted
+     * @param key key to un-convert
+     * @return key un-converted
+     */
+    public K unresolveKey(byte[] key) {
+        if (key == null) throw new IllegalArgumentException("Key must be not null");
+        return keyCodec.decode(Arrays.copyOfRange(key, keyPrefix.length, key.length));
+    }
+
+    private byte[] encodeValue(V value) {
+        return valueCodec.encode(value);
+    }
+
+    private V decodeValue(byte[] data) {
+        return data != null ? valueCodec.decode(data) : null;
+    }
+
+    /**
+     * Gets current value from redis cache
+     * read-through: If not found, it can use the default cacheloader if present
+     * @param key not null key
+     * @return value from cache or loaded, or null if no exists
+     */
+    public V get(K key) {
+        return get(key, cacheLoader);
+    }
+
+    /**
+     * Gets current value from redis cache
+     * read-through: If not found, it can use the provided cacheloader
+     * The default cacheloader is overridden
+     * @param key not null key
+     * @param cacheLoader current cache loader of the operation
+     * @return value from cache or loaded, or null if no exists
+     */
+    public V get(K key, TypedCacheLoader<K, V> cacheLoader) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.get key is null");
+        V value = decodeValue(withJedisPoolGet(jedis -> jedis.get(resolveKey(key))));
+        if (value == null && cacheLoader != null) {
+            LOGGER.debug("read-through load key {}", key);
+            value = cacheLoader.load(key);
+            if (value != null) {
+                byte[] data = encodeValue(value);
+                withJedisPoolDo(jedis -> jedis.set(resolveKey(key), data, new SetParams().px(timeOutMs)));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets values from redis cache
+     * read-through: If not found, it can use the default cacheloader if present
+     * Not found values will not be present in result map
+     * @param keys not null set of keys
+     * @return map with values from cache or loaded, (no nulls)
+     */
+    public Map<K, V> getAll(Set<K> keys) {
+        return getAll(keys, cacheLoader);
+    }
+
+    /**
+     * Gets values from redis cache
+     * If not found, it can use the given cacheloader
+     * The default cacheloader is overridden
+     * Not found values will not be present in result map
+     * All the values are retrieved with one MGET, all the missing values are loaded with one
+     * call to cacheLoader.loadAll and stored in redis with one pipeline
+     * @param keys not null set of keys
+     * @param cacheLoader current cache loader of the operation
+     * @return map with values from cache or loaded, (no nulls)
+     */
+    public Map<K, V> getAll(Set<K> keys, TypedCacheLoader<K, V> cacheLoader) {
+        checkClosed();
+        if (keys == null) throw new IllegalArgumentException("TypedCache.getAll keys is null");
+        Map<K, V> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        byte[][] resolvedKeys = new byte[keyList.size()][];
+        for(int i = 0; i < keyList.size(); i++) {
+            if (keyList.get(i) == null) throw new IllegalArgumentException("TypedCache.getAll key is null");
+            resolvedKeys[i] = resolveKey(keyList.get(i));
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<byte[]> values = jedis.mget(resolvedKeys);
+            Set<K> missingKeys = new HashSet<>();
+            for(int i = 0; i < keyList.size(); i++) {
+                if (values.get(i) != null) {
+                    result.put(keyList.get(i), decodeValue(values.get(i)));
+                } else {
+                    missingKeys.add(keyList.get(i));
+                }
+            }
+            if (!missingKeys.isEmpty() && cacheLoader != null) {
+                result.putAll(readThrougthAll(jedis, missingKeys, cacheLoader));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets a group of values from the external source with one loadAll call,
+     * and updates them in jedis with one pipeline with the cache timeout
+     * @param jedis  Jedis connnection
+     * @param keys Keys
+     * @param cacheLoader Current cache loader of operation
+     * @return external values, not found keys are not present
+     */
+    private Map<K, V> readThrougthAll(Jedis jedis, Set<K> keys, TypedCacheLoader<K, V> cacheLoader) {
+        LOGGER.debug("read-through load keys {}", keys);
+        Map<K, V> values = new HashMap<>();
+        Map<K, V> loaded = cacheLoader.loadAll(keys);
+        if (loaded != null) {
+            loaded.forEach((k, v) -> {
+                if (k != null && v != null) {
+                    values.put(k, v);
+                }
+            });
+        }
+        if (!values.isEmpty()) {
+            SetParams setParams = new SetParams().px(timeOutMs);
+            Pipeline pipeline = jedis.pipelined();
+            values.forEach((k, v) -> pipeline.set(resolveKey(k), encodeValue(v), setParams));
+            pipeline.sync();
+        }
+        return values;
+    }
+
+    /**
+     * Checks if a key exists in redis
+     * @param key Key
+     * @return true if a value is bound to this key
+     */
+    public boolean containsKey(K key) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.containsKey key is null");
+        return withJedisPoolGet(jedis -> jedis.exists(resolveKey(key)));
+    }
+
+    /**
+     * Load the set of keys from external sources, updating their values in redis
+     * If no cacheLoader exists, it does nothing
+     * read-through: resolves data from external source if possible
+     * @param keys Set of keys to update
+     * @param replaceExistingValues if a value is found in redis, should it be updated
+     */
+    public void loadAll(Set<K> keys, boolean replaceExistingValues) {
+        checkClosed();
+        if (keys == null) throw new IllegalArgumentException("TypedCache.loadAll keys is null");
+        if (cacheLoader != null) {
+            Set<K> toBeLoadedKeys;
+            if (!replaceExistingValues) {
+                toBeLoadedKeys = keys.stream().
+                        filter(k -> !containsKey(k)).
+                        collect(Collectors.toSet());
+            } else {
+                toBeLoadedKeys = keys;
+            }
+            if (!toBeLoadedKeys.isEmpty()) {
+                LOGGER.debug("read-through load keys {}", toBeLoadedKeys);
+                Map<K, V> newKeyValues = cacheLoader.loadAll(toBeLoadedKeys);
+                if (newKeyValues != null && !newKeyValues.isEmpty()) {
+                    storeAll(newKeyValues);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts a new value for given key in redis
+     * The new value will use the default timeout of the cache
+     * If the value exists, it will be overwritten
+     * write-through: If a cacheWriter is present, it will be updated in external sources
+     * @param key Key of the value
+     * @param value Data of the value
+     */
+    public void put(K key, V value) {
+        put(key, value, timeOutMs);
+    }
+
+    /**
+     * Inserts a new value for given key in redis
+     * The new value will use given timeout
+     * If the value exists, it will be overwritten
+     * write-through: If a cacheWriter is present, it will be updated in external sources
+     * @param key Key of the value
+     * @param value Data of the value
+     * @param timeOutMs Time to live
+     */
+    public void put(K key, V value, long timeOutMs) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.put key is null");
+        if (value == null) throw new IllegalArgumentException("TypedCache.put value is null");
+        SetParams setParams = new SetParams().px(timeOutMs);
+        withJedisPoolDo(jedis -> jedis.set(resolveKey(key), encodeValue(value), setParams));
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through store key {} value {}", key, value);
+            cacheWriter.write(key, value);
+        }
+    }
+
+    /**
+     * Inserts a new value for given key in redis
+     * The new value will use the default timeout of the cache
+     * If the value exists it will be returned in this method (and overwritten)
+     * write-through: If a cacheWriter is present, it will be updated in external sources
+     * @param key Key of the value
+     * @param value Data of the value
+     * @return previous value, null if there was no one
+     */
+    public V getAndPut(K key, V value) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.getAndPut key is null");
+        if (value == null) throw new IllegalArgumentException("TypedCache.getAndPut value is null");
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] resolvedKey = resolveKey(key);
+            Transaction t = jedis.multi();
+            Response<byte[]> response = t.get(resolvedKey);
+            t.set(resolvedKey, encodeValue(value), new SetParams().px(timeOutMs));
+            t.exec();
+            if (cacheWriter != null) {
+                LOGGER.debug("write-through store key {} value {}", key, value);
+                cacheWriter.write(key, value);
+            }
+            return decodeValue(response.get());
+        }
+    }
+
+    /**
+     * Inserts a list of new key-values in cache
+     * The new values will use the default timeout of the cache
+     * If any value exists, it will be overwritten
+     * write-through: If a cacheWriter is present, it will be updated in external sources
+     * @param values map of the key-values data
+     */
+    public void putAll(Map<K, V> values) {
+        checkClosed();
+        if (values == null) throw new IllegalArgumentException("TypedCache.putAll map is null");
+        storeAll(values);
+        if (cacheWriter != null) {
+            LOGGER.debug("write-through store values {}", values);
+            cacheWriter.writeAll(values);
+        }
+    }
+
+    /**
+     * Stores values in redis, in one transaction, with the default timeout of the cache
+     * @param values map of the key-values data
+     */
+    private void storeAll(Map<K, V> values) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            SetParams setParams = new SetParams().px(timeOutMs);
+            Transaction t = jedis.multi();
+            values.forEach( (k,v) -> t.set(resolveKey(k), encodeValue(v), setParams));
+            t.exec();
+        }
+    }
+
+    /**
+     * Inserts a new value for given key in redis if no previous value is present
+     * Nothing will be done otherwise
+     * write-through: If a cacheWriter is present and can be updated in redis,
+     * it will be updated in external sources
+     * @param key Key of the value
+     * @param value Data of the value
+     * @return true if inserted
+     */
+    public boolean putIfAbsent(K key, V value) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.putIfAbsent key is null");
+        if (value == null) throw new IllegalArgumentException("TypedCache.putIfAbsent value is null");
+        SetParams setParams = new SetParams().nx().px(timeOutMs);
+        String result = withJedisPoolGet(jedis -> jedis.set(resolveKey(key), encodeValue(value), setParams));
+        if (result != null && cacheWriter != null) {
+            LOGGER.debug("write-through store key {} value {}", key, value);
+            cacheWriter.write(key, value);
+        }
+        return result != null;
+    }
+
+    /**
+     * Removes for given key in redis
+     * If the value doesn't exist, nothing will happen
+     * write-through: If a cacheWriter is present, it will be removed in external sources
+     * @param key Key of the value
+     * @return true if a values has been removed
+     */
+    public boolean remove(K key) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.remove key is null");
+        boolean removed = withJedisPoolGet(jedis -> jedis.del(resolveKey(key))) > 0;
+        if (removed && cacheWriter != null) {
+            LOGGER.debug("write-through remove key {} ", key);
+            cacheWriter.delete(key);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes for given key in redis if the value matches
+     * The comparison and deletion are done atomically in redis with a script, in one round trip
+     * write-through: If a cacheWriter is present and the deletion is done,
+     * it will be removed in external sources
+     * @param key Key of the value
+     * @param oldValue value that must equal to redis one to execute deletion
+     * @return true if deleted
+     */
+    public boolean remove(K key, V oldValue) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.remove key is null");
+        if (oldValue == null) throw new IllegalArgumentException("TypedCache.remove oldValue is null");
+        byte[] previous = conditional(REMOVE_IF_EQUALS, key, encodeValue(oldValue), new byte[0]);
+        if (previous != null && cacheWriter != null) {
+            LOGGER.debug("write-through remove key {} ", key);
+            cacheWriter.delete(key);
+        }
+        return previous != null;
+    }
+
+    /**
+     * Removes for given key in redis and returns the current redis value
+     * write-through: If a cacheWriter is present, it will be removed in external sources
+     * @param key Key of the value
+     * @return previous value or null if ther wasn't one
+     */
+    public V getAndRemove(K key) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.getAndRemove key is null");
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] resolvedKey = resolveKey(key);
+            Transaction t = jedis.multi();
+            Response<byte[]> previous = t.get(resolvedKey);
+            t.del(resolvedKey);
+            t.exec();
+            if (previous.get() != null && cacheWriter != null) {
+                LOGGER.debug("write-through remove key {} ", key);
+                cacheWriter.delete(key);
+            }
+            return decodeValue(previous.get());
+        }
+    }
+
+    /**
+     * Replaces key value with new value if current redis value is equals to given oldValue
+     * The comparison and replacement are done atomically in redis with a script, in one round trip
+     * write-through: If value is replaced and a cachewriter exits, external source is updated too
+     * @param key Key to have replacement
+     * @param oldValue Value to be matched
+     * @param newValue New value to update in redis
+     * @return true if replaced
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException("TypedCache.replace key is null");
+        if (oldValue == null) throw new IllegalArgumentException("TypedCache.replace oldValue is null");
+        if (newValue == null) throw new IllegalArgumentException("TypedCache.replace newValue is null");
+        byte[] previous = conditional(REPLACE_IF_EQUALS, key, encodeValue(oldValue), encodeValue(newValue));
+        if (previous != null && cacheWriter != null) {
+            LOGGER.debug("write-through store key {} value {}", key, newValue);
+            cacheWriter.write(key, newValue);
+        }
+        return previous != null;
+    }
+
+    /**
+     * Replaces key value with new value if key exists
+     * The check and replacement are done atomically in redis with a script, in one round trip
+     * write-through: If value is replaced and a cachewriter exits, external source is updated too
+     * @param key Key to have replacement
+     * @param value New value to update in redis
+     * @return true if replaced
+     */
+    public boolean replace(K key, V value) {
+        return getAndReplace(key, value, "TypedCache.replace") != null;
+    }
+
+    /**
+     * Will return the current value for a specified key, and replace it with the given new value
+     * If not value is present in redis cache, no operation will be done
+     * The check and replacement are done atomically in redis with a script, in one round trip
+     * write-through: If the value is going to be updated in redis, in external system too
+     * @param key Key to be modified
+     * @param value New value to be updated
+     * @return Old value in cache
+     */
+    public V getAndReplace(K key, V value) {
+        return getAndReplace(key, value, "TypedCache.getAndReplace");
+    }
+
+    /**
+     * Replaces key value with new value if key exists, with the conditional script
+     * @param key Key to be modified
+     * @param value New value to be updated
+     * @param operationName Name of the public operation, for errors
+     * @return Old value in cache, null if not replaced
+     */
+    private V getAndReplace(K key, V value, String operationName) {
+        checkClosed();
+        if (key == null) throw new IllegalArgumentException(operationName + " key is null");
+        if (value == null) throw new IllegalArgumentException(operationName + " value is null");
+        byte[] previous = conditional(REPLACE_IF_EXISTS, key, new byte[0], encodeValue(value));
+        if (previous != null && cacheWriter != null) {
+            LOGGER.debug("write-through store key {} value {}", key, value);
+            cacheWriter.write(key, value);
+        }
+        return decodeValue(previous);
+    }
+
+    /**
+     * Executes an operation of the conditional script, new values use the default timeout
+     * @param operation operation of the script
+     * @param key key
+     * @param expected expected value, encoded
+     * @param value new value, encoded
+     * @return previous stored value if the operation is done, null otherwise
+     */
+    private byte[] conditional(String operation, K key, byte[] expected, byte[] value) {
+        Object result = conditionalScript.evalShaBinary(Collections.singletonList(resolveKey(key)),
+                Arrays.asList(operation.getBytes(StandardCharsets.UTF_8), expected, value,
+                        Long.toString(timeOutMs).getBytes(StandardCharsets.UTF_8)));
+        return (byte[]) result;
+    }
+
+    /**
+     * Will remove entries from redis with the given keys
+     * write-through: If a cacheWriter is present, all external values wil be deleted
+     * @param keys keys to remove
+     */
+    public void removeAll(Set<K> keys) {
+        checkClosed();
+        if (keys == null) throw new IllegalArgumentException("TypedCache.removeAll keys is null");
+        if (!keys.isEmpty()) {
+            byte[][] resolvedKeys = keys.stream().
+                    map(this::resolveKey).
+                    toArray(byte[][]::new);
+            withJedisPoolDo(jedis -> jedis.del(resolvedKeys));
+            if (cacheWriter != null) {
+                LOGGER.debug("write-through delete keys {} ", keys);
+                cacheWriter.deleteAll(keys);
+            }
+        }
+    }
+
+    /**
+     * Will remove ALL entries from redis
+     * It will not affect external values
+     */
+    public void clear() {
+        removeAll(false);
+    }
+
+    /**
+     * Will remove ALL entries from redis
+     * write-through: If a cacheWriter is present, all external values wil be deleted
+     */
+    public void removeAll() {
+        removeAll(true);
+    }
+
+    /**
+     * Will remove ALL entries from redis
+     * Keys are scanned one page at a time, and every page is removed with one UNLINK
+     * (and deleted in the cacheWriter with one deleteAll), so memory doesn't grow with the size of the cache
+     * @param allowCacheWriter use cacheWriter if present
+     */
+    private void removeAll(boolean allowCacheWriter) {
+        checkClosed();
+        boolean useCacheWriter = allowCacheWriter && cacheWriter != null;
+        withJedisPoolDo(jedis -> forEachScanPage(jedis, page -> {
+            jedis.unlink(page.toArray(new byte[0][]));
+            if (useCacheWriter) {
+                Set<K> unresolved = new HashSet<>();
+                page.forEach(key -> unresolved.add(unresolveKey(key)));
+                LOGGER.debug("write-through delete keys {} ", unresolved);
+                cacheWriter.deleteAll(unresolved);
+            }
+        }));
+    }
+
+    /**
+     * Return all the current keys in the cache into a local set
+     * All the keys are copied in memory, use the iterator to travel big caches
+     * @return set with keys
+     */
+    public Set<K> keys() {
+        checkClosed();
+        Set<K> keys = new HashSet<>();
+        withJedisPoolDo(jedis -> forEachScanPage(jedis, page -> page.forEach(key -> keys.add(unresolveKey(key)))));
+        return keys;
+    }
+
+    /**
+     * Return an iterator for current key-value pairs
+     * Until hasNext / next is called, no data is retrieved from redis
+     * Keys are scanned one page at a time and the values of every page are retrieved with one MGET;
+     * entries expired during the iteration are skipped, and an entry could be returned twice
+     * if it's modified during the iteration (as the keys of a SCAN)
+     * @return iterator
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        checkClosed();
+        return new TypedCacheIterator();
+    }
+
+    /**
+     * Pattern of all the keys of this cache
+     * @return scan params
+     */
+    private ScanParams newScanParams() {
+        byte[] pattern = Arrays.copyOf(keyPrefix, keyPrefix.length + 1);
+        pattern[keyPrefix.length] = '*';
+        return new ScanParams().match(pattern).count(DEFAULT_RESULTS_PER_SCAN_ITERATORS);
+    }
+
+    /**
+     * Scans all the keys of this cache, giving them one page at a time
+     * Empty pages are not given
+     * @param jedis connection
+     * @param pageConsumer consumer of every page of resolved keys, can contain duplicates between pages
+     */
+    private void forEachScanPage(Jedis jedis, Consumer<List<byte[]>> pageConsumer) {
+        ScanParams scanParams = newScanParams();
+        byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+        ScanResult<byte[]> scanResult;
+        do {
+            scanResult = jedis.scan(cursor, scanParams);
+            if (!scanResult.getResult().isEmpty()) {
+                pageConsumer.accept(scanResult.getResult());
+            }
+            cursor = scanResult.getCursorAsBytes();
+        } while (!scanResult.isCompleteIteration());
+    }
+
+    /**
+     * Close this instance of typed cache
+     * Does not affect redis of extenal data
+     */
+    public void close() {
+        isClosed.set(true);
+    }
+
+    /**
+     * Check if closed
+     * @return true if closed
+     */
+    public boolean isClosed() {
+        return isClosed.get();
+    }
+
+    /**
+     * If cache is closed, an exception will abort any operation
+     */
+    void checkClosed() {
+        if (isClosed.get()) {
+            throw new IllegalStateException("TypedCache is closed");
+        }
+    }
+
+    /**
+     * Iterator of the entries of the cache, one scan page (and one MGET) at a time
+     */
+    private final class TypedCacheIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final ScanParams scanParams = newScanParams();
+        private byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+        private boolean completed = false;
+        private Iterator<Map.Entry<K, V>> pageIterator = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!pageIterator.hasNext() && !completed) {
+                pageIterator = nextPage().iterator();
+            }
+            return pageIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more entries");
+            }
+            return pageIterator.next();
+        }
+
+        /**
+         * Scans the next page of keys and retrieves their values
+         * @return entries of the page that still exist
+         */
+        private List<Map.Entry<K, V>> nextPage() {
+            return withJedisPoolGet(jedis -> {
+                ScanResult<byte[]> scanResult = jedis.scan(cursor, scanParams);
+                cursor = scanResult.getCursorAsBytes();
+                completed = scanResult.isCompleteIteration();
+                List<byte[]> keys = scanResult.getResult();
+                List<Map.Entry<K, V>> entries = new ArrayList<>(keys.size());
+                if (!keys.isEmpty()) {
+                    List<byte[]> values = jedis.mget(keys.toArray(new byte[0][]));
+                    for(int i = 0; i < keys.size(); i++) {
+                        if (values.get(i) != null) {
+                            entries.add(new AbstractMap.SimpleImmutableEntry<>(unresolveKey(keys.get(i)), decodeValue(values.get(i))));
+                        }
+                    }
+                }
+                return entries;
+            });
+        }
+
+    }
+
+}
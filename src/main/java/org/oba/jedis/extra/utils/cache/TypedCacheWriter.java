@@ -0,0 +1,57 @@
+package org.oba.jedis.extra.utils.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Used to give a typed cache write-through capabilities or
+ * when storing data into a typed cache, to also store in external sources (like a database)
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public interface TypedCacheWriter<K, V> {
+
+    /**
+     * Write the specified value under the specified key to the external resource.
+     *
+     * This method is intended to support both key/value creation and value update
+     * for a specific key.
+     *
+     * @param key the key to be written
+     * @param value the value to be written
+     */
+    void write(K key, V value);
+
+    /**
+     * Write the specified entries to the external resource. This method is intended
+     * to support both insert and update.
+     *
+     * A default, looping, non-optimized implementation is provided
+     *
+     * @param values a collection to write.
+     */
+    default void writeAll(Map<K, V> values) {
+        values.forEach(this::write);
+    }
+
+    /**
+     * Delete the cache entry from the external resource.
+     *
+     * @param key the key that is used for the delete operation
+     */
+    void delete(K key);
+
+    /**
+     * Remove data and keys from the external resource for the given collection of
+     * keys, if present.
+     *
+     * A default, looping, non-optimized implementation is provided
+     *
+     * @param keys a collection of keys for entries to delete.
+     */
+    default void deleteAll(Collection<K> keys) {
+        keys.forEach(this::delete);
+    }
+
+}
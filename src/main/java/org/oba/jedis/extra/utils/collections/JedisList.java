@@ -1,8 +1,9 @@
 package org.oba.jedis.extra.utils.collections;
 
+import io.valkey.Pipeline;
 import io.valkey.Response;
 import io.valkey.Transaction;
-import io.valkey.args.ListPosition;
+import io.valkey.params.LPosParams;
 import org.oba.jedis.extra.utils.utils.Named;
 import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
 import org.oba.jedis.extra.utils.utils.UniversalReader;
@@ -12,12 +13,17 @@ import io.valkey.Jedis;
 import io.valkey.JedisPool;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Spliterator;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * A Jedis-based implementation of a List interface backed on Redis list on server
@@ -37,26 +43,31 @@ import java.util.concurrent.ThreadLocalRandom;
  * and you can retrieve the data to a pure Java list anytime.
  * But helpers on Redis lists is not the goal of this class, rather than have a list object backed by Redis
  *
- * Scripts from stackoverflow for indexof
- * https://stackoverflow.com/questions/8899111/get-the-index-of-an-item-by-value-in-a-redis-list
+ * Searches of elements are done by the server with LPOS, without reading the list
+ * Inserts and removals by index are done by scripts in one atomic operation
  */
 public final class JedisList implements List<String>, Named {
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JedisList.class);
 
-    public static final String SCRIPT_NAME_INDEX_OF = "list.indexOf.lua";
-    public static final String FILE_PATH_INDEX_OF = "./src/main/resources/list.indexOf.lua";
+    public static final String SCRIPT_NAME_INSERT_AT = "list.insertAt.lua";
+    public static final String FILE_PATH_INSERT_AT = "./src/main/resources/list.insertAt.lua";
 
-    public static final String SCRIPT_NAME_LAST_INDEX_OF = "list.lastIndexOf.lua";
-    public static final String FILE_PATH_LAST_INDEX_OF = "./src/main/resources/list.lastIndexOf.lua";
+    public static final String SCRIPT_NAME_REMOVE_AT = "list.removeAt.lua";
+    public static final String FILE_PATH_REMOVE_AT = "./src/main/resources/list.removeAt.lua";
+
+    /**
+     * Number of elements read from server in every call by iterators, forEach and streams
+     */
+    public static final int ITERATOR_WINDOW_SIZE = 500;
 
     private static final String TO_DELETE = "TO_DELETE";
 
     private final JedisPool jedisPool;
     private final String name;
-    private final ScriptEvalSha1 scriptIndexOf;
-    private final ScriptEvalSha1 scriptLastIndexOf;
+    private final ScriptEvalSha1 scriptInsertAt;
+    private final ScriptEvalSha1 scriptRemoveAt;
 
     /**
      * Creates a new list in jedis with given name, or references an existing one
@@ -69,13 +80,12 @@ public final class JedisList implements List<String>, Named {
     public JedisList(JedisPool jedisPool, String name){
         this.jedisPool = jedisPool;
         this.name = name;
-        this.scriptIndexOf = new ScriptEvalSha1(jedisPool, new UniversalReader().
-                withResoruce(SCRIPT_NAME_INDEX_OF).
-                withFile(FILE_PATH_INDEX_OF));
-        this.scriptLastIndexOf = new ScriptEvalSha1(jedisPool, new UniversalReader().
-                withResoruce(SCRIPT_NAME_LAST_INDEX_OF).
-                withFile(FILE_PATH_LAST_INDEX_OF));
-
+        this.scriptInsertAt = new ScriptEvalSha1(jedisPool, new UniversalReader().
+                withResoruce(SCRIPT_NAME_INSERT_AT).
+                withFile(FILE_PATH_INSERT_AT));
+        this.scriptRemoveAt = new ScriptEvalSha1(jedisPool, new UniversalReader().
+                withResoruce(SCRIPT_NAME_REMOVE_AT).
+                withFile(FILE_PATH_REMOVE_AT));
     }
 
     /**
@@ -151,10 +161,14 @@ public final class JedisList implements List<String>, Named {
     public void checkIndex(int index) {
         int size = size();
         if (index < 0 || index >= size) {
-            throw new IndexOutOfBoundsException("Current index out of bounds, value: " + index + " and list size " + size + " (size 0 is Jedis non existen list)");
+            throw indexOutOfBounds(index, size);
         }
     }
 
+    private static IndexOutOfBoundsException indexOutOfBounds(int index, long size) {
+        return new IndexOutOfBoundsException("Current index out of bounds, value: " + index + " and list size " + size + " (size 0 is Jedis non existen list)");
+    }
+
     @Override
     public int size() {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -204,13 +218,25 @@ public final class JedisList implements List<String>, Named {
         }
     }
 
+    /**
+     * Checks all the elements with one LPOS for each distinct element, all of them in one pipeline
+     * @param c collection to be checked for containment in this list
+     * @return true if all the elements are in the list
+     */
     @Override
     public boolean containsAll(Collection<?> c) {
-        boolean contains = true;
-        for(Object o: c) {
-            contains = contains && contains(o);
+        if (c.isEmpty()) {
+            return true;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> positions = new ArrayList<>(c.size());
+            for(Object o: new HashSet<>(c)) {
+                positions.add(pipeline.lpos(name, (String) o));
+            }
+            pipeline.sync();
+            return positions.stream().allMatch(position -> position.get() != null);
         }
-        return contains;
     }
 
     @Override
@@ -222,13 +248,20 @@ public final class JedisList implements List<String>, Named {
         }
     }
 
+    /**
+     * Inserts all the elements at the index in one atomic operation
+     * @param index index at which to insert the first element, from 0 to size (to append)
+     * @param c elements to be inserted
+     * @return true if the list changed
+     * @throws IndexOutOfBoundsException if index is less than zero or more than size
+     */
     @Override
     public boolean addAll(int index, Collection<? extends String> c) {
-        int pos = 0;
-        for(String s: c){
-            add(index + pos, s);
-            pos++;
+        if (c.isEmpty()) {
+            checkInsertIndex(index);
+            return false;
         }
+        insertAt(index, c);
         return true;
     }
 
@@ -283,27 +316,54 @@ public final class JedisList implements List<String>, Named {
         }
     }
 
+    /**
+     * Inserts the element at the index in one atomic operation
+     * @param index index at which the element is to be inserted, from 0 to size (to append)
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException if index is less than zero or more than size
+     */
     @Override
     public void add(int index, String element) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            String pivot = get(index);
-            jedis.linsert(name, ListPosition.BEFORE, pivot, element);
+        insertAt(index, Collections.singletonList(element));
+    }
+
+    private void insertAt(int index, Collection<? extends String> elements) {
+        List<String> args = new ArrayList<>(elements.size() + 1);
+        args.add(Integer.toString(index));
+        args.addAll(elements);
+        Object result = scriptInsertAt.evalSha(Collections.singletonList(name), args);
+        LOGGER.debug("insertAt result {}", result);
+        long length = (Long) result;
+        if (length < 0) {
+            // The script returns -1 - length when the index is out of bounds
+            throw indexOutOfBounds(index, -1L - length);
         }
     }
 
+    private void checkInsertIndex(int index) {
+        int size = size();
+        if (index < 0 || index > size) {
+            throw indexOutOfBounds(index, size);
+        }
+    }
+
+    /**
+     * Removes the element at the index in one atomic operation
+     * @param index the index of the element to be removed
+     * @return removed element
+     * @throws IndexOutOfBoundsException if index is less than zero or more_or_equal to list size
+     */
     @Override
     public String remove(int index) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            /* https://stackoverflow.com/questions/31580535/remove-element-at-specific-index-from-redis-list */
-            checkIndex(index);
-            String toDeleteTempName = generateToDelete();
-            Transaction tjedis = jedis.multi();
-            Response<String> futureDeleted = tjedis.lindex(name, index);
-            tjedis.lset(name, index, toDeleteTempName);
-            tjedis.lrem(name, 1, toDeleteTempName);
-            tjedis.exec();
-            return futureDeleted.get();
+        /* https://stackoverflow.com/questions/31580535/remove-element-at-specific-index-from-redis-list */
+        Object result = scriptRemoveAt.evalSha(Collections.singletonList(name),
+                Arrays.asList(Integer.toString(index), generateToDelete()));
+        LOGGER.debug("removeAt result {}", result);
+        if (result instanceof List) {
+            // The script returns the length in a list when the index is out of bounds
+            throw indexOutOfBounds(index, (Long) ((List<?>) result).get(0));
         }
+        return (String) result;
     }
 
     private static synchronized String generateToDelete() {
@@ -312,18 +372,21 @@ public final class JedisList implements List<String>, Named {
 
     @Override
     public int indexOf(Object o) {
-        String element = (String) o;
-        Object result = scriptIndexOf.evalSha(Collections.singletonList(name), Collections.singletonList(element));
-        LOGGER.debug("indexOf result {}", result);
-        return ((Long) result).intValue();
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long result = jedis.lpos(name, (String) o);
+            LOGGER.debug("indexOf result {}", result);
+            return result != null ? result.intValue() : -1;
+        }
     }
 
     @Override
     public int lastIndexOf(Object o) {
-        String element = (String) o;
-        Object result = scriptLastIndexOf.evalSha(Collections.singletonList(name), Collections.singletonList(element));
-        LOGGER.debug("lastIndexOf result {}", result);
-        return ((Long) result).intValue();
+        try (Jedis jedis = jedisPool.getResource()) {
+            // Rank -1 searches from the tail
+            Long result = jedis.lpos(name, (String) o, LPosParams.lPosParams().rank(-1));
+            LOGGER.debug("lastIndexOf result {}", result);
+            return result != null ? result.intValue() : -1;
+        }
     }
 
     @Override
@@ -349,14 +412,156 @@ public final class JedisList implements List<String>, Named {
         }
     }
 
+    /**
+     * Performs the action for each element, reading the list in windows of ITERATOR_WINDOW_SIZE elements
+     * with one connection for the whole walk
+     * @param action The action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super String> action) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            long start = 0;
+            List<String> window;
+            do {
+                window = jedis.lrange(name, start, start + ITERATOR_WINDOW_SIZE - 1);
+                window.forEach(action);
+                start += window.size();
+            } while (window.size() == ITERATOR_WINDOW_SIZE);
+        }
+    }
+
+    /**
+     * Spliterator that reads the list in windows of ITERATOR_WINDOW_SIZE elements
+     * It splits by index ranges, so every part of a parallel stream reads its own range with its own connection
+     * The size is read when it is created; if the list shrinks meanwhile, the parts end when there is no more data
+     * @return spliterator, ORDERED, SIZED, SUBSIZED and NONNULL
+     */
+    @Override
+    public Spliterator<String> spliterator() {
+        return new JedisListSpliterator(0, size());
+    }
+
+    /**
+     * Reads a range of the list, inclusive; out of range indexes are limited like in redis
+     * @param from first index
+     * @param to last index
+     * @return elements, empty if none
+     */
+    private List<String> lrange(long from, long to) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.lrange(name, from, to);
+        }
+    }
+
+
+    /**
+     * Implementation of Spliterator for JedisList, over a range of indexes
+     */
+    private class JedisListSpliterator implements Spliterator<String> {
+
+        private int index;
+        private int end;
+        private List<String> window = Collections.emptyList();
+        private int windowPosition = 0;
+
+        /**
+         * Creates a spliterator for a range
+         * @param index first index, inclusive
+         * @param end last index, exclusive
+         */
+        private JedisListSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        private List<String> readWindow(Jedis jedis) {
+            int windowEnd = Math.min(index + ITERATOR_WINDOW_SIZE, end);
+            List<String> data = jedis.lrange(name, index, windowEnd - 1L);
+            if (data.isEmpty()) {
+                // The list has shrunk
+                end = index;
+            }
+            return data;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (windowPosition >= window.size()) {
+                if (index >= end) {
+                    return false;
+                }
+                try (Jedis jedis = jedisPool.getResource()) {
+                    window = readWindow(jedis);
+                    windowPosition = 0;
+                }
+                if (window.isEmpty()) {
+                    return false;
+                }
+            }
+            index++;
+            action.accept(window.get(windowPosition++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            while (windowPosition < window.size()) {
+                index++;
+                action.accept(window.get(windowPosition++));
+            }
+            window = Collections.emptyList();
+            windowPosition = 0;
+            if (index < end) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    while (index < end) {
+                        List<String> data = readWindow(jedis);
+                        index += data.size();
+                        data.forEach(action);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Splits the first half of the range not read, if it has at least one window
+         * @return spliterator of the first half, null if it can't be split
+         */
+        @Override
+        public Spliterator<String> trySplit() {
+            int half = (end - index) / 2;
+            if (windowPosition < window.size() || half < ITERATOR_WINDOW_SIZE) {
+                return null;
+            }
+            int middle = index + half;
+            JedisListSpliterator prefix = new JedisListSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+    }
 
     /**
      * Implementation of ListIterator and Iterator for JedisList
+     * Elements are read in windows of ITERATOR_WINDOW_SIZE elements with LRANGE and served from a local buffer,
+     * so a full walk costs size / ITERATOR_WINDOW_SIZE calls to the server
+     * Any change made by the iterator discards the buffer
      */
     private class JedisListIterator implements ListIterator<String> {
 
         private int currentIndex = 0;
         private int lastReturned = -1;
+        private List<String> window = null;
+        private int windowStart = 0;
 
         /**
          * Set an initial index to the iterator
@@ -370,16 +575,42 @@ public final class JedisList implements List<String>, Named {
             return this;
         }
 
+        /**
+         * If index is in the current window, or else in the new window read from server
+         * @param index index to read
+         * @param forward if true the new window starts in index, if false it ends in index
+         * @return true if the index exists in the list
+         */
+        private boolean loadWindow(int index, boolean forward) {
+            if (window != null) {
+                int windowEnd = windowStart + window.size();
+                if (index >= windowStart && index < windowEnd) {
+                    return true;
+                } else if (forward && index == windowEnd && window.size() < ITERATOR_WINDOW_SIZE) {
+                    // The last window was shorter, so the end of the list was read with it
+                    return false;
+                }
+            }
+            windowStart = forward ? index : Math.max(0, index - ITERATOR_WINDOW_SIZE + 1);
+            window = lrange(windowStart, windowStart + ITERATOR_WINDOW_SIZE - 1);
+            return index - windowStart < window.size();
+        }
+
+        private void invalidateWindow() {
+            window = null;
+            windowStart = 0;
+        }
+
         @Override
         public boolean hasNext() {
-            return currentIndex < size();
+            return loadWindow(currentIndex, true);
         }
 
         @Override
         public String next() {
             String value = null;
             if (hasNext()) {
-                value = get(currentIndex);
+                value = window.get(currentIndex - windowStart);
                 lastReturned = currentIndex;
                 currentIndex++;
             }
@@ -393,10 +624,10 @@ public final class JedisList implements List<String>, Named {
 
         @Override
         public String previous() {
-            if (hasPrevious()) {
+            if (hasPrevious() && loadWindow(currentIndex - 1, false)) {
                 currentIndex--;
                 lastReturned = currentIndex;
-                return get(currentIndex);
+                return window.get(currentIndex - windowStart);
             } else {
                 return null;
             }
@@ -414,6 +645,7 @@ public final class JedisList implements List<String>, Named {
 
         @Override
         public void remove() {
+            invalidateWindow();
             JedisList.this.remove(lastReturned);
             int currentSize = size();
             if (currentSize == 0) {
@@ -427,11 +659,13 @@ public final class JedisList implements List<String>, Named {
 
         @Override
         public void set(String s) {
+            invalidateWindow();
             JedisList.this.set(lastReturned, s);
         }
 
         @Override
         public void add(String s) {
+            invalidateWindow();
             JedisList.this.add(currentIndex, s);
         }
 
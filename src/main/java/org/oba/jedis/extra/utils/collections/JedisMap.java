@@ -3,22 +3,43 @@ package org.oba.jedis.extra.utils.collections;
 
 import org.oba.jedis.extra.utils.iterators.HScanIterator;
 import org.oba.jedis.extra.utils.utils.Named;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.oba.jedis.extra.utils.utils.UniversalReader;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
+import io.valkey.Pipeline;
 import io.valkey.Transaction;
 import io.valkey.Response;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
 
 public class JedisMap implements Map<String, String>, Named {
 
+    /**
+     * Default maximum number of fields written by every HSET in bulk writes
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final String SCRIPT_NAME_REMOVE_IF_EQUALS = "map.removeIfEquals.lua";
+    public static final String FILE_PATH_REMOVE_IF_EQUALS = "./src/main/resources/map.removeIfEquals.lua";
+
     private final JedisPool jedisPool;
     private final String name;
+    private final ScriptEvalSha1 scriptRemoveIfEquals;
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     /**
      * Creates a new list in jedis with given name, or references an existing one
@@ -31,6 +52,9 @@ public class JedisMap implements Map<String, String>, Named {
     public JedisMap(JedisPool jedisPool, String name){
         this.jedisPool = jedisPool;
         this.name = name;
+        this.scriptRemoveIfEquals = new ScriptEvalSha1(jedisPool, new UniversalReader().
+                withResoruce(SCRIPT_NAME_REMOVE_IF_EQUALS).
+                withFile(FILE_PATH_REMOVE_IF_EQUALS));
     }
 
     /**
@@ -46,6 +70,27 @@ public class JedisMap implements Map<String, String>, Named {
         putAll(from);
     }
 
+    /**
+     * Sets the maximum number of fields written by every HSET in bulk writes
+     * @param batchSize fields by command, more than zero
+     * @return this
+     */
+    public JedisMap withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("JedisMap batchSize must be more than zero");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Maximum number of fields written by every HSET in bulk writes
+     * @return fields by command
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     /**
      * Name of the redis map
      * @return redis name
@@ -111,10 +156,23 @@ public class JedisMap implements Map<String, String>, Named {
         }
     }
 
+    /**
+     * Scans the map a HSCAN page at a time until the value is found
+     * @param value value whose presence in this map is to be tested
+     * @return true if some key has the value
+     */
     @Override
     public boolean containsValue(Object value) {
-        // Could be lua optimized ?
-        return values().contains(value);
+        if (value == null) {
+            return false;
+        }
+        HScanIterator hScanIterator = hScanIterator();
+        while (hScanIterator.hasNext()) {
+            if (value.equals(hScanIterator.next().getValue())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -147,26 +205,104 @@ public class JedisMap implements Map<String, String>, Named {
         }
     }
 
+    /**
+     * Removes the key only if it has the given value, in one atomic operation
+     * @param key key to remove
+     * @param value expected value
+     * @return true if removed
+     */
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof String) || !(value instanceof String)) {
+            return false;
+        }
+        Object result = scriptRemoveIfEquals.evalSha(Collections.singletonList(name),
+                Arrays.asList((String) key, (String) value));
+        return result != null && (Long) result > 0;
+    }
+
+    /**
+     * Puts all the entries in one transaction, with a multi-field HSET for every batchSize entries
+     * @param m mappings to be stored in this map
+     */
     @Override
     public void putAll(Map<? extends String, ? extends String> m) {
-        // Quick dirty way
-//        for(Entry<? extends String, ? extends String> data : m.entrySet()){
-//            put(data.getKey(), data.getValue());
-//        }
-        // better way
+        if (m.isEmpty()) {
+            return;
+        }
         try (Jedis jedis = jedisPool.getResource()) {
             final Transaction t = jedis.multi();
-            for(Entry<? extends String, ? extends String> entry : m.entrySet()){
-                t.hset(name, entry.getKey(), entry.getValue());
+            for(Map<String, String> batch : toBatches(m)){
+                t.hset(name, batch);
             }
-//            m.entrySet().
-//                    forEach( entry ->
-//                            t.hset(name, entry.getKey(), entry.getValue())
-//                    );
             t.exec();
         }
     }
 
+    /**
+     * Puts a value without reading the previous one, with only one HSET
+     * @param key key
+     * @param value value
+     * @return true if the key is new in the map, false if the value was replaced
+     */
+    public boolean fastPut(String key, String value) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.hset(name, key, value) > 0;
+        }
+    }
+
+    /**
+     * Removes keys without reading the previous values, with only one HDEL
+     * @param keys keys to remove
+     * @return number of keys removed
+     */
+    public long fastRemove(String... keys) {
+        if (keys.length == 0) {
+            return 0L;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.hdel(name, keys);
+        }
+    }
+
+    /**
+     * Puts all the entries with a multi-field HSET for every batchSize entries, in one pipeline
+     * It's not a transaction, so other clients could see some batches written before the others
+     * @param m mappings to be stored in this map
+     * @return number of keys new in the map
+     */
+    public long putAllFast(Map<? extends String, ? extends String> m) {
+        if (m.isEmpty()) {
+            return 0L;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<Map<String, String>> batches = toBatches(m);
+            if (batches.size() == 1) {
+                return jedis.hset(name, batches.get(0));
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> responses = new ArrayList<>(batches.size());
+            for(Map<String, String> batch : batches){
+                responses.add(pipeline.hset(name, batch));
+            }
+            pipeline.sync();
+            return responses.stream().mapToLong(Response::get).sum();
+        }
+    }
+
+    private List<Map<String, String>> toBatches(Map<? extends String, ? extends String> m) {
+        List<Map<String, String>> batches = new ArrayList<>();
+        Map<String, String> batch = null;
+        for(Entry<? extends String, ? extends String> entry : m.entrySet()){
+            if (batch == null || batch.size() == batchSize) {
+                batch = new HashMap<>();
+                batches.add(batch);
+            }
+            batch.put(entry.getKey(), entry.getValue());
+        }
+        return batches;
+    }
+
     @Override
     public void clear() {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -174,38 +310,177 @@ public class JedisMap implements Map<String, String>, Named {
         }
     }
 
+    /**
+     * Live view of the keys, read from the server a HSCAN page at a time
+     * Size is HLEN, contains is HEXISTS and remove is HDEL; iterators and streams can
+     * return a key more than once if the hash changes while scanning, like HSCAN
+     * @return keys
+     */
     @Override
     public Set<String> keySet() {
-        // I was thinking in using hkeys,
-        // but I don't want to block the main thread
-        Set<Entry<String, String>> keyValues = doHscan();
-        return keyValues.stream().
-                map(Entry::getKey).
-                collect(Collectors.toSet());
+        return new KeySetView();
     }
 
+    /**
+     * Live view of the values, read from the server a HSCAN page at a time
+     * Size is HLEN; contains scans until the value is found
+     * @return values
+     */
     @Override
     public Collection<String> values() {
-        // I was thinking in using hvals,
-        // but I don't want to block the main thread
-        Set<Entry<String, String>> keyValues = doHscan();
-        return keyValues.stream().
-                map(Entry::getValue).
-                collect(Collectors.toList());
+        return new ValuesView();
     }
 
+    /**
+     * Live view of the entries, read from the server a HSCAN page at a time
+     * Size is HLEN, contains is HGET and remove is HDEL if the value matches
+     * @return entries
+     */
     @Override
     public Set<Entry<String, String>> entrySet() {
-        return doHscan();
+        return new EntrySetView();
     }
 
-    private Set<Entry<String, String>> doHscan() {
-        Set<Entry<String, String>> keyValues = new HashSet<>();
-        HScanIterator hScanIterator = new HScanIterator(jedisPool, name);
-        while (hScanIterator.hasNext()){
-            keyValues.add(hScanIterator.next());
+    private HScanIterator hScanIterator() {
+        return new HScanIterator(jedisPool, name, batchSize);
+    }
+
+    /**
+     * Iterator over a hscan, returning a part of every entry
+     * @param <T> returned type
+     */
+    private static final class EntryPartIterator<T> implements Iterator<T> {
+
+        private final HScanIterator hScanIterator;
+        private final Function<Entry<String, String>, T> part;
+
+        private EntryPartIterator(HScanIterator hScanIterator, Function<Entry<String, String>, T> part) {
+            this.hScanIterator = hScanIterator;
+            this.part = part;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hScanIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            Entry<String, String> next = hScanIterator.next();
+            return next != null ? part.apply(next) : null;
+        }
+
+        @Override
+        public void remove() {
+            hScanIterator.remove();
+        }
+
+    }
+
+    private final class KeySetView extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new EntryPartIterator<>(hScanIterator(), Entry::getKey);
+        }
+
+        @Override
+        public Spliterator<String> spliterator() {
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL);
+        }
+
+        @Override
+        public int size() {
+            return JedisMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof String && fastRemove((String) o) > 0;
+        }
+
+        @Override
+        public void clear() {
+            JedisMap.this.clear();
+        }
+
+    }
+
+    private final class ValuesView extends AbstractCollection<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new EntryPartIterator<>(hScanIterator(), Entry::getValue);
+        }
+
+        @Override
+        public Spliterator<String> spliterator() {
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL);
+        }
+
+        @Override
+        public int size() {
+            return JedisMap.this.size();
         }
-        return keyValues;
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            JedisMap.this.clear();
+        }
+
+    }
+
+    private final class EntrySetView extends AbstractSet<Entry<String, String>> {
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            return hScanIterator();
+        }
+
+        @Override
+        public Spliterator<Entry<String, String>> spliterator() {
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL);
+        }
+
+        @Override
+        public int size() {
+            return JedisMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return entry.getKey() instanceof String && entry.getValue() != null &&
+                    entry.getValue().equals(get(entry.getKey()));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return JedisMap.this.remove(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            JedisMap.this.clear();
+        }
+
     }
 
 }
@@ -4,23 +4,57 @@ import org.oba.jedis.extra.utils.iterators.SScanIterator;
 import org.oba.jedis.extra.utils.utils.Named;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
+import io.valkey.Response;
 import io.valkey.Transaction;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class JedisSet implements Set<String>, Named {
 
+    /**
+     * Default maximum number of members sent by every command in bulk operations
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String RETAIN_SUFFIX = "__retainAll_";
+
     private final JedisPool jedisPool;
     private final String name;
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     public JedisSet(JedisPool jedisPool, String name){
         this.jedisPool = jedisPool;
         this.name = name;
     }
 
+    /**
+     * Sets the maximum number of members sent by every command in bulk operations
+     * @param batchSize members by command, more than zero
+     * @return this
+     */
+    public JedisSet withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("JedisSet batchSize must be more than zero");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Maximum number of members sent by every command in bulk operations
+     * @return members by command
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     /**
      * Name of the redis set
      * @return redis name
@@ -111,15 +145,21 @@ public class JedisSet implements Set<String>, Named {
         }
     }
 
+    /**
+     * Checks the members with one SMISMEMBER for every batchSize distinct members,
+     * stopping at the first batch with a member not found
+     * @param c collection to be checked for containment in this set
+     * @return true if all the members are in the set
+     */
     @Override
     public boolean containsAll(Collection<?> c) {
         try (Jedis jedis = jedisPool.getResource()) {
-            boolean result = true;
-            Iterator<?> it = c.iterator();
-            while (result && it.hasNext()){
-                result = jedis.sismember(name, (String) it.next());
+            for(String[] batch: toBatches(c)) {
+                if (jedis.smismember(name, batch).contains(Boolean.FALSE)) {
+                    return false;
+                }
             }
-            return result;
+            return true;
         }
     }
 
@@ -138,26 +178,48 @@ public class JedisSet implements Set<String>, Named {
         }
     }
 
+    /**
+     * Retains the members in one transaction, without reading the set:
+     * the members are written in a temporal set and SINTERSTORE keeps the common ones
+     * @param c collection containing members to be retained in this set
+     * @return true if the set changed
+     */
     @Override
     public boolean retainAll(Collection<?> c) {
+        List<String[]> batches = toBatches(c);
         try (Jedis jedis = jedisPool.getResource()) {
-            Set<String> retained = new HashSet<>(doSscan());
-            boolean result = retained.retainAll(c);
-            if (result) {
-                Transaction t = jedis.multi();
+            Transaction t = jedis.multi();
+            Response<Long> before = t.scard(name);
+            Response<Long> after;
+            if (batches.isEmpty()) {
                 t.del(name);
-                retained.forEach( s -> t.sadd(name, s));
-                t.exec();
+                after = null;
+            } else {
+                String retainName = name + RETAIN_SUFFIX + System.currentTimeMillis() + "_" +
+                        ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+                for(String[] batch: batches) {
+                    t.sadd(retainName, batch);
+                }
+                after = t.sinterstore(name, name, retainName);
+                t.del(retainName);
             }
-            return result;
+            t.exec();
+            return before.get() != (after != null ? after.get() : 0L);
         }
     }
 
+    /**
+     * Removes the members with one SREM for every batchSize members
+     * @param c collection containing members to be removed from this set
+     * @return true if the set changed
+     */
     @Override
     public boolean removeAll(Collection<?> c) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String[] a = c.toArray(new String[0]);
-            long result = jedis.srem(name, a);
+            long result = 0L;
+            for(String[] batch: toBatches(c)) {
+                result += jedis.srem(name, batch);
+            }
             return result != 0L;
         }
     }
@@ -169,6 +231,99 @@ public class JedisSet implements Set<String>, Named {
         }
     }
 
+    /**
+     * Stores in the server the union of this set and others, with SUNIONSTORE
+     * No data is read from the server
+     * @param destination name of the new set, replaced if it exists
+     * @param others sets to join, in the same server
+     * @return new set
+     */
+    public JedisSet unionWith(String destination, JedisSet... others) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.sunionstore(destination, withNames(others));
+        }
+        return new JedisSet(jedisPool, destination);
+    }
+
+    /**
+     * Stores in the server the intersection of this set and others, with SINTERSTORE
+     * No data is read from the server
+     * @param destination name of the new set, replaced if it exists
+     * @param others sets to intersect, in the same server
+     * @return new set
+     */
+    public JedisSet intersectWith(String destination, JedisSet... others) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.sinterstore(destination, withNames(others));
+        }
+        return new JedisSet(jedisPool, destination);
+    }
+
+    /**
+     * Stores in the server the members of this set not in others, with SDIFFSTORE
+     * No data is read from the server
+     * @param destination name of the new set, replaced if it exists
+     * @param others sets to subtract, in the same server
+     * @return new set
+     */
+    public JedisSet differenceWith(String destination, JedisSet... others) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.sdiffstore(destination, withNames(others));
+        }
+        return new JedisSet(jedisPool, destination);
+    }
+
+    /**
+     * Number of members of the intersection of this set and others, with SINTERCARD
+     * @param others sets to intersect, in the same server
+     * @return number of common members
+     */
+    public long intersectionSize(JedisSet... others) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.sintercard(withNames(others));
+        }
+    }
+
+    /**
+     * Number of members of the intersection of this set and others, with SINTERCARD
+     * The server stops counting at the limit
+     * @param limit maximum to count, 0 for no limit
+     * @param others sets to intersect, in the same server
+     * @return number of common members, up to limit
+     */
+    public long intersectionSize(int limit, JedisSet... others) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.sintercard(limit, withNames(others));
+        }
+    }
+
+    private String[] withNames(JedisSet... others) {
+        String[] names = new String[others.length + 1];
+        names[0] = name;
+        for(int i = 0; i < others.length; i++) {
+            names[i + 1] = others[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * Splits the distinct members in batches of batchSize members
+     * @param c members
+     * @return batches, empty if there are no members
+     */
+    private List<String[]> toBatches(Collection<?> c) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for(Object o: c) {
+            distinct.add((String) o);
+        }
+        List<String> members = new ArrayList<>(distinct);
+        List<String[]> batches = new ArrayList<>();
+        for(int i = 0; i < members.size(); i += batchSize) {
+            batches.add(members.subList(i, Math.min(i + batchSize, members.size())).toArray(new String[0]));
+        }
+        return batches;
+    }
+
     private Set<String> doSscan() {
         Set<String> values = new HashSet<>();
         SScanIterator sScanIterator = new SScanIterator(jedisPool, name);
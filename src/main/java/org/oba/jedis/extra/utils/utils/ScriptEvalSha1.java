@@ -90,6 +90,21 @@ public class ScriptEvalSha1 implements JedisPoolUser {
         return withJedisPoolGet(jedis -> jedis.evalsha(sha1Digest, keys, params));
     }
 
+    /**
+     * Executes the script with sha1 digest from redis, with binary keys and values
+     * @param keys List of keys
+     * @param params List of value
+     * @return Result of execution, binary
+     */
+    public Object evalShaBinary(List<byte[]> keys, List<byte[]> params) {
+        if (sha1Digest == null) {
+            load();
+        }
+        LOGGER.debug("SHA1 eval binary {}", sha1Digest);
+        byte[] sha1 = sha1Digest.getBytes(StandardCharsets.UTF_8);
+        return withJedisPoolGet(jedis -> jedis.evalsha(sha1, keys, params));
+    }
+
     /**
      * As seen in http://oliviertech.com/es/java/generate-SHA1-hash-from-a-String/
      * Pure Java SHA-1 hash code
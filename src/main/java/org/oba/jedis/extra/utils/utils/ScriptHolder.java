@@ -1,6 +1,9 @@
 package org.oba.jedis.extra.utils.utils;
 
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.cache.TypedCache;
 import org.oba.jedis.extra.utils.collections.JedisList;
+import org.oba.jedis.extra.utils.collections.JedisMap;
 import org.oba.jedis.extra.utils.cycle.CycleData;
 import org.oba.jedis.extra.utils.interruptinglocks.JedisLock;
 import org.oba.jedis.extra.utils.rateLimiter.BucketRateLimiter;
@@ -19,9 +22,12 @@ public class ScriptHolder implements JedisPoolUser {
     public static ScriptHolder generateHolderForJedisExtraUtils(JedisPool jedisPool) {
         ScriptHolder scriptHolder = new ScriptHolder(jedisPool);
         scriptHolder.addScriptWithResourceAndFile(BucketRateLimiter.SCRIPT_NAME, BucketRateLimiter.FILE_PATH);
+        scriptHolder.addScriptWithResourceAndFile(SimpleCache.SCRIPT_NAME, SimpleCache.FILE_PATH);
+        scriptHolder.addScriptWithResourceAndFile(TypedCache.SCRIPT_NAME, TypedCache.FILE_PATH);
         scriptHolder.addScriptWithResourceAndFile(CycleData.SCRIPT_NAME, CycleData.FILE_PATH);
-        scriptHolder.addScriptWithResourceAndFile(JedisList.SCRIPT_NAME_INDEX_OF, JedisList.FILE_PATH_INDEX_OF);
-        scriptHolder.addScriptWithResourceAndFile(JedisList.SCRIPT_NAME_LAST_INDEX_OF, JedisList.FILE_PATH_LAST_INDEX_OF);
+        scriptHolder.addScriptWithResourceAndFile(JedisList.SCRIPT_NAME_INSERT_AT, JedisList.FILE_PATH_INSERT_AT);
+        scriptHolder.addScriptWithResourceAndFile(JedisList.SCRIPT_NAME_REMOVE_AT, JedisList.FILE_PATH_REMOVE_AT);
+        scriptHolder.addScriptWithResourceAndFile(JedisMap.SCRIPT_NAME_REMOVE_IF_EQUALS, JedisMap.FILE_PATH_REMOVE_IF_EQUALS);
         scriptHolder.addScriptWithResourceAndFile(JedisLock.SCRIPT_NAME, JedisLock.FILE_PATH);
         scriptHolder.addScriptWithResourceAndFile(JedisSemaphore.SCRIPT_NAME, JedisSemaphore.FILE_PATH);
         return scriptHolder;
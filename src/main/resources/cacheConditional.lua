@@ -0,0 +1,58 @@
+-- for org.oba.jedis.extra.utils.cache.SimpleCache
+-- Conditional operations on a cache value, done in one round trip
+-- KEYS[1] redis key of the value (key storage) or of the hash (hash storage)
+-- ARGV[1] operation: replaceIfEquals, replaceIfExists, removeIfEquals or putIfAbsent
+-- ARGV[2] storage: key or hash
+-- ARGV[3] field of the value (hash storage)
+-- ARGV[4] expected value, encoded
+-- ARGV[5] new value, encoded
+-- ARGV[6] time to live of the new value, in milliseconds
+-- Returns the previous stored value if the operation is done, nil otherwise
+-- (putIfAbsent returns the replaced tombstone or an empty string if done)
+-- Load times of early expiration are ignored when comparing; tombstones are not values
+
+local LOAD_TIME_HEADER = "\239\191\191"
+
+local function plain(value)
+    if value and string.sub(value, 1, 3) == LOAD_TIME_HEADER then
+        local separator = string.find(value, ":", 4, true)
+        if separator == nil then
+            return nil
+        end
+        return string.sub(value, separator + 1)
+    end
+    return value
+end
+
+local operation = ARGV[1]
+local isHash = ARGV[2] == "hash"
+local current
+if isHash then
+    current = redis.call("hget", KEYS[1], ARGV[3])
+else
+    current = redis.call("get", KEYS[1])
+end
+local absent = not current or plain(current) == nil
+if operation == "putIfAbsent" then
+    if not absent then
+        return false
+    end
+elseif absent then
+    return false
+elseif operation ~= "replaceIfExists" and plain(current) ~= plain(ARGV[4]) then
+    return false
+end
+if operation == "removeIfEquals" then
+    if isHash then
+        redis.call("hdel", KEYS[1], ARGV[3])
+    else
+        redis.call("del", KEYS[1])
+    end
+else
+    if isHash then
+        redis.call("hsetex", KEYS[1], "PX", ARGV[6], "FIELDS", "1", ARGV[3], ARGV[5])
+    else
+        redis.call("set", KEYS[1], ARGV[5], "PX", ARGV[6])
+    end
+end
+return current or ""
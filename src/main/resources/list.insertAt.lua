@@ -0,0 +1,61 @@
+-- for org.oba.jedis.extra.utils.collections.JedisList
+-- insertAt: inserts elements in a list at an index, in one atomic operation
+-- KEYS[1] list
+-- ARGV[1] index, from 0 to the length of the list (to append)
+-- ARGV[2..n] elements to insert, in order
+-- Returns the new length of the list, or -1 - length if the index is out of bounds
+-- The shorter side of the list (before or after the index) is read and pushed again,
+-- so duplicated values are not a problem and the cost is bounded by half the list
+
+local CHUNK_SIZE = 1000
+
+-- LPUSH puts every value at the head, so values are pushed from the last one
+local function prepend(key, values)
+    local chunk = {}
+    for i = #values, 1, -1 do
+        chunk[#chunk + 1] = values[i]
+        if #chunk == CHUNK_SIZE or i == 1 then
+            redis.call("lpush", key, unpack(chunk))
+            chunk = {}
+        end
+    end
+end
+
+local function append(key, values)
+    local chunk = {}
+    for i = 1, #values do
+        chunk[#chunk + 1] = values[i]
+        if #chunk == CHUNK_SIZE or i == #values then
+            redis.call("rpush", key, unpack(chunk))
+            chunk = {}
+        end
+    end
+end
+
+local key = KEYS[1]
+local index = tonumber(ARGV[1])
+local len = redis.call("llen", key)
+if index == nil or index < 0 or index > len then
+    return -1 - len
+end
+local elements = {}
+for i = 2, #ARGV do
+    elements[#elements + 1] = ARGV[i]
+end
+if index <= len - index then
+    local moved = {}
+    if index > 0 then
+        moved = redis.call("lrange", key, 0, index - 1)
+        redis.call("ltrim", key, index, -1)
+    end
+    for i = 1, #elements do
+        moved[#moved + 1] = elements[i]
+    end
+    prepend(key, moved)
+else
+    local moved = redis.call("lrange", key, index, -1)
+    redis.call("ltrim", key, 0, index - 1)
+    append(key, elements)
+    append(key, moved)
+end
+return redis.call("llen", key)
@@ -0,0 +1,28 @@
+-- for org.oba.jedis.extra.utils.collections.JedisList
+-- removeAt: removes the element at an index of a list, in one atomic operation
+-- KEYS[1] list
+-- ARGV[1] index
+-- ARGV[2] temporal marker, a value not present in the list
+-- Returns the removed element, or a table with the length if the index is out of bounds
+-- The element is replaced by the marker, and the marker is removed searching from the nearer end
+
+local key = KEYS[1]
+local index = tonumber(ARGV[1])
+local marker = ARGV[2]
+local len = redis.call("llen", key)
+if index == nil or index < 0 or index >= len then
+    return { len }
+end
+local fromTail = index >= len / 2
+if fromTail then
+    -- Negative indexes are walked from the tail
+    index = index - len
+end
+local removed = redis.call("lindex", key, index)
+redis.call("lset", key, index, marker)
+if fromTail then
+    redis.call("lrem", key, -1, marker)
+else
+    redis.call("lrem", key, 1, marker)
+end
+return removed
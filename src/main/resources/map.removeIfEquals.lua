@@ -0,0 +1,11 @@
+-- for org.oba.jedis.extra.utils.collections.JedisMap
+-- removeIfEquals: removes a field of a hash if it has the expected value, in one atomic operation
+-- KEYS[1] hash
+-- ARGV[1] field
+-- ARGV[2] expected value
+-- Returns 1 if the field has been removed, 0 otherwise
+
+if redis.call("hget", KEYS[1], ARGV[1]) == ARGV[2] then
+    return redis.call("hdel", KEYS[1], ARGV[1])
+end
+return 0
@@ -0,0 +1,24 @@
+-- for org.oba.jedis.extra.utils.cache.TypedCache
+-- Conditional operations on a binary cache value, done in one round trip
+-- KEYS[1] redis key of the value
+-- ARGV[1] operation: replaceIfEquals, replaceIfExists or removeIfEquals
+-- ARGV[2] expected value, encoded
+-- ARGV[3] new value, encoded
+-- ARGV[4] time to live of the new value, in milliseconds
+-- Returns the previous stored value if the operation is done, nil otherwise
+-- Values are compared byte by byte
+
+local operation = ARGV[1]
+local current = redis.call("get", KEYS[1])
+if not current then
+    return false
+end
+if operation ~= "replaceIfExists" and current ~= ARGV[2] then
+    return false
+end
+if operation == "removeIfEquals" then
+    redis.call("del", KEYS[1])
+else
+    redis.call("set", KEYS[1], ARGV[3], "PX", ARGV[4])
+end
+return current
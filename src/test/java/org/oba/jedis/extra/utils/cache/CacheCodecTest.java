@@ -0,0 +1,27 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CacheCodecTest {
+
+    @Test
+    public void stringCodecTest() {
+        CacheCodec<String> codec = CacheCodec.stringCodec();
+        byte[] data = codec.encode("Keyº");
+        assertArrayEquals("Keyº".getBytes(StandardCharsets.UTF_8), data);
+        assertEquals("Keyº", codec.decode(data));
+    }
+
+    @Test
+    public void bytesCodecTest() {
+        CacheCodec<byte[]> codec = CacheCodec.bytesCodec();
+        byte[] data = new byte[]{0, 1, (byte) 0xFF};
+        assertSame(data, codec.encode(data));
+        assertSame(data, codec.decode(data));
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CacheCompressionTest {
+
+    private static final String BIG_VALUE = "{\"name\":\"value\",\"items\":[1,2,3,4,5]}".repeat(100);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorThresholdTest() {
+        new CacheCompression(0, CacheCompression.DEFAULT_LEVEL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorLevelTest() {
+        new CacheCompression(100, 10);
+    }
+
+    @Test
+    public void smallValueTest() {
+        CacheCompression compression = new CacheCompression(100, CacheCompression.DEFAULT_LEVEL);
+        assertEquals("small", compression.encode("small"));
+        assertEquals("small", compression.decode("small"));
+        assertNull(compression.decode(null));
+        assertEquals(0, compression.getCompressedValues());
+        assertEquals(0.0, compression.getCompressionRatio(), 0.001);
+    }
+
+    @Test
+    public void bigValueTest() {
+        CacheCompression compression = new CacheCompression(100, CacheCompression.DEFAULT_LEVEL);
+        String stored = compression.encode(BIG_VALUE);
+        assertEquals(CacheCompression.HEADER, stored.charAt(0));
+        assertTrue(stored.length() < BIG_VALUE.length() / 5);
+        assertEquals(BIG_VALUE, compression.decode(stored));
+        assertEquals(1, compression.getCompressedValues());
+        assertEquals(1, compression.getDecompressedValues());
+        assertEquals(BIG_VALUE.length(), compression.getUncompressedBytes());
+        assertTrue(compression.getCompressionRatio() > 5.0);
+        assertTrue(compression.getCompressCpuTimeMs() >= 0.0);
+    }
+
+    @Test
+    public void valueWithHeaderTest() {
+        CacheCompression compression = new CacheCompression(100, CacheCompression.DEFAULT_LEVEL);
+        String value = CacheCompression.HEADER + "a";
+        String stored = compression.encode(value);
+        assertNotEquals(value, stored);
+        assertEquals(value, compression.decode(stored));
+    }
+
+}
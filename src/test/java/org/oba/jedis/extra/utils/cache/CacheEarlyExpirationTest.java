@@ -0,0 +1,52 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CacheEarlyExpirationTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorBetaTest() {
+        new CacheEarlyExpiration(0.0);
+    }
+
+    @Test
+    public void loadTimeTest() {
+        String stored = CacheEarlyExpiration.withLoadTime("value:with:separators", 125L);
+        assertTrue(CacheEarlyExpiration.startsWithHeader(stored));
+        assertEquals(125L, CacheEarlyExpiration.loadTime(stored));
+        assertEquals("value:with:separators", CacheEarlyExpiration.withoutLoadTime(stored));
+        assertEquals(0L, CacheEarlyExpiration.loadTime("plain"));
+        assertEquals("plain", CacheEarlyExpiration.withoutLoadTime("plain"));
+        assertNull(CacheEarlyExpiration.withoutLoadTime(null));
+        String nested = CacheEarlyExpiration.withLoadTime(CacheEarlyExpiration.HEADER + "x", 0L);
+        assertEquals(CacheEarlyExpiration.HEADER + "x", CacheEarlyExpiration.withoutLoadTime(nested));
+    }
+
+    @Test
+    public void isExpiredEarlyTest() {
+        CacheEarlyExpiration earlyExpiration = new CacheEarlyExpiration(CacheEarlyExpiration.DEFAULT_BETA);
+        assertFalse(earlyExpiration.isExpiredEarly(0L, 0L));
+        assertFalse(earlyExpiration.isExpiredEarly(1_000L, -1L));
+        assertFalse(earlyExpiration.isExpiredEarly(1L, 3_600_000L));
+        assertEquals(0, earlyExpiration.getEarlyExpirations());
+        assertTrue(earlyExpiration.isExpiredEarly(1_000L, 0L));
+        assertEquals(1, earlyExpiration.getEarlyExpirations());
+    }
+
+    @Test
+    public void isExpiredEarlyProbabilityTest() {
+        CacheEarlyExpiration earlyExpiration = new CacheEarlyExpiration(CacheEarlyExpiration.DEFAULT_BETA);
+        int near = 0;
+        int far = 0;
+        for(int i = 0; i < 1_000; i++) {
+            if (earlyExpiration.isExpiredEarly(100L, 50L)) near++;
+            if (earlyExpiration.isExpiredEarly(100L, 500L)) far++;
+        }
+        assertTrue(near > far);
+        assertTrue(near > 500);
+        assertTrue(far < 50);
+    }
+
+}
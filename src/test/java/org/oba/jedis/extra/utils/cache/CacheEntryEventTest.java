@@ -0,0 +1,27 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CacheEntryEventTest {
+
+    @Test
+    public void fromKeyspaceEventTest() {
+        assertEquals(CacheEntryEvent.Type.UPDATED, CacheEntryEvent.fromKeyspaceEvent("set"));
+        assertEquals(CacheEntryEvent.Type.REMOVED, CacheEntryEvent.fromKeyspaceEvent("del"));
+        assertEquals(CacheEntryEvent.Type.REMOVED, CacheEntryEvent.fromKeyspaceEvent("unlink"));
+        assertEquals(CacheEntryEvent.Type.EXPIRED, CacheEntryEvent.fromKeyspaceEvent("expired"));
+        assertEquals(CacheEntryEvent.Type.EVICTED, CacheEntryEvent.fromKeyspaceEvent("evicted"));
+        assertNull(CacheEntryEvent.fromKeyspaceEvent("expire"));
+        assertNull(CacheEntryEvent.fromKeyspaceEvent(CacheEntryEvent.NEW_KEY_EVENT));
+    }
+
+    @Test
+    public void keyspacePatternTest() {
+        assertEquals("__keyspace@*__:cache:a:*", CacheEventSubscriber.keyspacePattern("cache:a"));
+        assertEquals("__keyspace@*__:c\\*\\?\\[x\\]:*", CacheEventSubscriber.keyspacePattern("c*?[x]"));
+        assertEquals("cache:a:key:1", CacheEventSubscriber.keyFromChannel("__keyspace@0__:cache:a:key:1"));
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class CacheSnapshotTest {
+
+    @Test
+    public void writeAndReadTest() throws IOException {
+        Path file = Files.createTempFile("cacheSnapshot", ".bin");
+        try {
+            String bigValue = "\u00f1value".repeat(300_000);
+            try (CacheSnapshot.Writer writer = new CacheSnapshot.Writer(file)) {
+                for(int i = 0; i < 10_000; i++) {
+                    writer.write(i, "key" + i, "V" + i);
+                }
+                writer.write(-1L, "big", bigValue);
+                writer.writeEnd();
+            }
+            try (CacheSnapshot.Reader reader = new CacheSnapshot.Reader(file)) {
+                for(int i = 0; i < 10_000; i++) {
+                    CacheSnapshot.Record record = reader.next();
+                    assertEquals(i, record.expireAtMs);
+                    assertEquals("key" + i, record.key);
+                    assertEquals("V" + i, record.value);
+                }
+                CacheSnapshot.Record big = reader.next();
+                assertEquals(-1L, big.expireAtMs);
+                assertEquals(bigValue, big.value);
+                assertNull(reader.next());
+                assertNull(reader.next());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readNotSnapshotTest() throws IOException {
+        Path file = Files.createTempFile("cacheSnapshot", ".bin");
+        try {
+            Files.write(file, "not a snapshot".getBytes());
+            new CacheSnapshot.Reader(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyTest() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getMeanMs(), 0.001);
+        assertEquals(0.0, snapshot.getPercentileMs(99.0), 0.001);
+        assertEquals(snapshot.getBucketBoundsMs().length + 1, snapshot.getBucketCounts().length);
+    }
+
+    @Test
+    public void recordTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 0; i < 99; i++) {
+            histogram.record(80_000L);
+        }
+        histogram.record(3_000_000L);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(0.1092, snapshot.getMeanMs(), 0.0001);
+        assertEquals(3.0, snapshot.getMaxMs(), 0.001);
+        assertEquals(0.1, snapshot.getPercentileMs(50.0), 0.001);
+        assertEquals(0.1, snapshot.getPercentileMs(99.0), 0.001);
+        assertEquals(3.0, snapshot.getPercentileMs(100.0), 0.001);
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void overflowTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(20_000_000_000L);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long[] counts = snapshot.getBucketCounts();
+        assertEquals(1, counts[counts.length - 1]);
+        assertEquals(20_000.0, snapshot.getPercentileMs(50.0), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileErrorTest() {
+        new LatencyHistogram().snapshot().getPercentileMs(101.0);
+    }
+
+}
@@ -3,15 +3,18 @@ package org.oba.jedis.extra.utils.cache;
 import io.valkey.Connection;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
+import io.valkey.Pipeline;
 import io.valkey.Response;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 import io.valkey.params.ScanParams;
 import io.valkey.resps.ScanResult;
+import io.valkey.resps.Tuple;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.oba.jedis.extra.utils.test.TTL;
 import org.oba.jedis.extra.utils.test.TransactionOrder;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.api.support.membermodification.MemberMatcher;
 import org.slf4j.Logger;
@@ -48,9 +51,20 @@ public class MockOfJedisForSimpleCache {
         return UNIT_TEST_CYCLES_LIST > 0;
     }
 
+    // Keys returned by every scan call
+    static final int SCAN_PAGE_SIZE = 10;
+
     private final Jedis jedis;
     private final JedisPool jedisPool;
     private final Map<String, String> data = Collections.synchronizedMap(new HashMap<>());
+    // Expiration moment of the keys with time to live, and the PX of their last SET
+    private final Map<String, Long> expirations = new HashMap<>();
+    private final Map<String, Long> lastTimeOuts = new HashMap<>();
+    // Members and scores of the sorted sets
+    private final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+    // Last key returned by every open scan cursor
+    private final Map<String, String> scanCursors = new HashMap<>();
+    private int scanCursorCount = 0;
     private final List<TransactionOrder<?>> transactionActions = new ArrayList<>();
     private final Timer timer;
 
@@ -69,6 +83,8 @@ public class MockOfJedisForSimpleCache {
         when(jedisPool.getResource()).thenReturn(jedis);
         Transaction transaction = PowerMockito.mock(Transaction.class);
         when(jedis.multi()).thenReturn(transaction);
+        Pipeline pipeline = Mockito.mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
 
         when(jedis.exists(anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
@@ -78,6 +94,14 @@ public class MockOfJedisForSimpleCache {
             String key = ioc.getArgument(0);
             return mockGet(key);
         });
+        when(jedis.mget(ArgumentMatchers.<String[]>any())).thenAnswer(ioc -> {
+            Object arg1 = ioc.getArgument(0);
+            if (ioc.getArguments().length == 1 && arg1.getClass().isArray()) {
+                return mockMget((String[]) arg1);
+            } else {
+                return mockMget(fromObjectArray(ioc.getArguments()));
+            }
+        });
         when(jedis.set(anyString(), anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             String value = ioc.getArgument(1);
@@ -105,6 +129,14 @@ public class MockOfJedisForSimpleCache {
                 throw new UnsupportedOperationException("Mock jedis del. Dont know what is Object arg1: " + arg1);
             }
         });
+        when(jedis.unlink(ArgumentMatchers.<String[]>any())).thenAnswer(ioc -> {
+            Object arg1 = ioc.getArgument(0);
+            if (ioc.getArguments().length == 1 && arg1 instanceof String[]) {
+                return mockDel((String[]) arg1);
+            } else {
+                return mockDel(fromObjectArray(ioc.getArguments()));
+            }
+        });
         when(jedis.scan(anyString(), any(ScanParams.class))).thenAnswer(ioc -> {
             String cursor = ioc.getArgument(0);
             ScanParams scanParams = ioc.getArgument(1);
@@ -115,6 +147,12 @@ public class MockOfJedisForSimpleCache {
             String key = ioc.getArgument(0);
             return mockTransactionGet(key);
         });
+        when(transaction.pttl(anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            TransactionOrder<Long> transactionOrder = new TransactionOrder<>(() -> mockPttl(key));
+            transactionActions.add(transactionOrder);
+            return transactionOrder.getResponse();
+        });
         when(transaction.set(anyString(), anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             String value = ioc.getArgument(1);
@@ -144,7 +182,65 @@ public class MockOfJedisForSimpleCache {
         });
         PowerMockito.when(transaction.exec()).thenAnswer(ioc -> mockTransactionExec());
 
+        when(pipeline.pttl(anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return TransactionOrder.quickReponseExecuted(mockPttl(key));
+        });
+        when(pipeline.set(anyString(), anyString(), any(SetParams.class))).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            String value = ioc.getArgument(1);
+            SetParams setParams = ioc.getArgument(2);
+            return TransactionOrder.quickReponseExecuted(mockSet(key, value, setParams));
+        });
+
+        when(pipeline.zadd(anyString(), ArgumentMatchers.<Map<String, Double>>any())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            Map<String, Double> scores = ioc.getArgument(1);
+            return TransactionOrder.quickReponseExecuted(mockZadd(key, scores));
+        });
+        when(pipeline.zincrby(anyString(), ArgumentMatchers.anyDouble(), anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            double increment = ioc.getArgument(1);
+            String member = ioc.getArgument(2);
+            return TransactionOrder.quickReponseExecuted(mockZincrby(key, increment, member));
+        });
+        when(pipeline.zremrangeByScore(anyString(), anyString(), anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            String max = ioc.getArgument(2);
+            return TransactionOrder.quickReponseExecuted(mockZremrangeByScoreBelow(key, max));
+        });
+        when(pipeline.zrem(anyString(), ArgumentMatchers.<String[]>any())).thenAnswer(ioc ->
+                TransactionOrder.quickReponseExecuted(mockZrem(ioc.getArgument(0), membersFromArguments(ioc.getArguments()))));
+        when(pipeline.zcard(anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return TransactionOrder.quickReponseExecuted((long) getSortedSetMembers(key).size());
+        });
+        when(pipeline.exists(anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return TransactionOrder.quickReponseExecuted(mockExists(key));
+        });
+        when(jedis.zpopmin(anyString(), ArgumentMatchers.anyInt())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            int count = ioc.getArgument(1);
+            return mockZpopmin(key, count);
+        });
+        when(jedis.zscan(anyString(), anyString(), any(ScanParams.class))).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return mockZscan(key);
+        });
+        when(jedis.zrem(anyString(), ArgumentMatchers.<String[]>any())).thenAnswer(ioc ->
+                mockZrem(ioc.getArgument(0), membersFromArguments(ioc.getArguments())));
+
         when(jedis.eval(anyString(),any(List.class), any(List.class))).thenAnswer(ioc -> null);
+        when(jedis.scriptLoad(anyString())).thenAnswer( ioc -> {
+            String script = ioc.getArgument(0, String.class);
+            return ScriptEvalSha1.sha1(script);
+        });
+        when(jedis.evalsha(anyString(), any(List.class), any(List.class))).thenAnswer( ioc -> {
+            List<String> keys = ioc.getArgument(1, List.class);
+            List<String> args = ioc.getArgument(2, List.class);
+            return mockEvalshaConditional(keys, args);
+        });
 
     }
 
@@ -167,6 +263,14 @@ public class MockOfJedisForSimpleCache {
         return data.get(key);
     }
 
+    synchronized List<String> mockMget(String[] keys) {
+        List<String> result = new ArrayList<>(keys.length);
+        for(String key: keys) {
+            result.add(data.get(key));
+        }
+        return result;
+    }
+
     synchronized String mockSet(final String key, String value) {
         return mockSet(key, value, new SetParams());
     }
@@ -180,7 +284,12 @@ public class MockOfJedisForSimpleCache {
             data.put(key, value);
             Long expireTime = extractSetParamsExpireTimePX(setParams);
             if (expireTime != null){
+                expirations.put(key, System.currentTimeMillis() + expireTime);
+                lastTimeOuts.put(key, expireTime);
                 timer.schedule(TTL.wrapTTL(() -> data.remove(key)),expireTime);
+            } else {
+                expirations.remove(key);
+                lastTimeOuts.remove(key);
             }
             return  CLIENT_RESPONSE_OK;
         } else {
@@ -195,23 +304,158 @@ public class MockOfJedisForSimpleCache {
     synchronized Long mockDel(String[] keys) {
         long result = 0L;
         for(String key: keys) {
-            if (data.containsKey(key)) {
+            if (sortedSets.remove(key) != null) {
+                result++;
+            } else if (data.containsKey(key)) {
                 data.remove(key);
+                expirations.remove(key);
                 result++;
             }
         }
         return result;
     }
 
-    private ScanResult<String> mockScan(String cursor, ScanParams scanParams) {
-        if (!cursor.equals("0")) {
+    synchronized Long mockPttl(String key) {
+        if (!data.containsKey(key)) {
+            return -2L;
+        } else if (!expirations.containsKey(key)) {
+            return -1L;
+        } else {
+            return Math.max(0L, expirations.get(key) - System.currentTimeMillis());
+        }
+    }
+
+    synchronized Long mockZadd(String key, Map<String, Double> scores) {
+        Map<String, Double> sortedSet = sortedSets.computeIfAbsent(key, k -> new HashMap<>());
+        long added = scores.keySet().stream().filter(member -> !sortedSet.containsKey(member)).count();
+        sortedSet.putAll(scores);
+        return added;
+    }
+
+    synchronized Double mockZincrby(String key, double increment, String member) {
+        return sortedSets.computeIfAbsent(key, k -> new HashMap<>()).merge(member, increment, Double::sum);
+    }
+
+    /**
+     * Removes the members with score under max (exclusive with '(', as redis), min is always -inf
+     */
+    synchronized Long mockZremrangeByScoreBelow(String key, String max) {
+        Map<String, Double> sortedSet = sortedSets.getOrDefault(key, new HashMap<>());
+        boolean exclusive = max.startsWith("(");
+        double limit = Double.parseDouble(exclusive ? max.substring(1) : max);
+        List<String> removed = sortedSet.entrySet().stream().
+                filter(e -> exclusive ? e.getValue() < limit : e.getValue() <= limit).
+                map(Map.Entry::getKey).
+                collect(Collectors.toList());
+        return mockZrem(key, removed.toArray(new String[0]));
+    }
+
+    synchronized Long mockZrem(String key, String[] members) {
+        Map<String, Double> sortedSet = sortedSets.get(key);
+        long removed = 0L;
+        if (sortedSet != null) {
+            for(String member: members) {
+                if (sortedSet.remove(member) != null) {
+                    removed++;
+                }
+            }
+            if (sortedSet.isEmpty()) {
+                sortedSets.remove(key);
+            }
+        }
+        return removed;
+    }
+
+    synchronized List<Tuple> mockZpopmin(String key, int count) {
+        List<Tuple> popped = sortedSets.getOrDefault(key, new HashMap<>()).entrySet().stream().
+                sorted(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey())).
+                limit(count).
+                map(e -> new Tuple(e.getKey(), e.getValue())).
+                collect(Collectors.toList());
+        mockZrem(key, popped.stream().map(Tuple::getElement).toArray(String[]::new));
+        return popped;
+    }
+
+    /**
+     * Scans all the members of a sorted set in one call
+     */
+    synchronized ScanResult<Tuple> mockZscan(String key) {
+        List<Tuple> members = sortedSets.getOrDefault(key, new HashMap<>()).entrySet().stream().
+                map(e -> new Tuple(e.getKey(), e.getValue())).
+                collect(Collectors.toList());
+        return new ScanResult<>(ScanParams.SCAN_POINTER_START, members);
+    }
+
+    /**
+     * Current members of a sorted set
+     * @param key key of the sorted set
+     * @return members, empty if not exists
+     */
+    synchronized Set<String> getSortedSetMembers(String key) {
+        return new HashSet<>(sortedSets.getOrDefault(key, new HashMap<>()).keySet());
+    }
+
+    /**
+     * Time to live (PX) given in the last SET of a key
+     * @param key key
+     * @return time in milliseconds, null if the last SET had no time to live
+     */
+    synchronized Long getLastTimeOut(String key) {
+        return lastTimeOuts.get(key);
+    }
+
+    /**
+     * Emulates the conditional script of the cache, with key storage
+     */
+    synchronized String mockEvalshaConditional(List<String> keys, List<String> args) {
+        String key = keys.get(0);
+        String operation = args.get(0);
+        String current = data.get(key);
+        if (operation.equals(SimpleCache.PUT_IF_ABSENT)) {
+            if (current != null && !SimpleCache.isTombstone(current)) {
+                return null;
+            }
+            mockSet(key, args.get(4), new SetParams().px(Long.parseLong(args.get(5))));
+            return current != null ? current : "";
+        }
+        if (current == null || SimpleCache.isTombstone(current)) {
+            return null;
+        }
+        if (!operation.equals(SimpleCache.REPLACE_IF_EXISTS) && !current.equals(args.get(3))) {
+            return null;
+        }
+        if (operation.equals(SimpleCache.REMOVE_IF_EQUALS)) {
+            mockDelOne(key);
+        } else {
+            mockSet(key, args.get(4), new SetParams().px(Long.parseLong(args.get(5))));
+        }
+        return current;
+    }
+
+    /**
+     * Scans the keys that match the pattern, SCAN_PAGE_SIZE keys per call
+     * Keys are returned in order, and every cursor remembers the last key returned,
+     * so keys deleted or added during the scan don't make it skip the others (as redis)
+     */
+    private synchronized ScanResult<String> mockScan(String cursor, ScanParams scanParams) {
+        String lastKey = scanCursors.remove(cursor);
+        if (!cursor.equals(ScanParams.SCAN_POINTER_START) && lastKey == null) {
             LOGGER.warn("Cursor inited wirh value {}", cursor);
         }
         String pattern = extractPatternFromScanParams(scanParams);
-        List<String> keys = data.keySet().stream().
+        List<String> page = data.keySet().stream().
                 filter( k -> k.matches(pattern) ).
+                filter( k -> lastKey == null || k.compareTo(lastKey) > 0 ).
+                sorted().
+                limit(SCAN_PAGE_SIZE + 1L).
                 collect(Collectors.toList());
-        return new ScanResult<>("0", keys);
+        String nextCursor = ScanParams.SCAN_POINTER_START;
+        if (page.size() > SCAN_PAGE_SIZE) {
+            page = page.subList(0, SCAN_PAGE_SIZE);
+            nextCursor = Integer.toString(++scanCursorCount);
+            scanCursors.put(nextCursor, page.get(page.size() - 1));
+        }
+        return new ScanResult<>(nextCursor, new ArrayList<>(page));
     }
 
     private synchronized Response<String> mockTransactionGet(String key){
@@ -254,6 +498,9 @@ public class MockOfJedisForSimpleCache {
 
     synchronized void clearData(){
         data.clear();
+        expirations.clear();
+        lastTimeOuts.clear();
+        sortedSets.clear();
     }
 
     synchronized Map<String,Object> getCurrentData() {
@@ -277,6 +524,16 @@ public class MockOfJedisForSimpleCache {
     }
 
 
+    /**
+     * Members of a varargs command, after its key
+     */
+    static String[] membersFromArguments(Object[] arguments){
+        if (arguments.length == 2 && arguments[1] instanceof String[]) {
+            return (String[]) arguments[1];
+        }
+        return fromObjectArray(Arrays.copyOfRange(arguments, 1, arguments.length));
+    }
+
     static String[] fromObjectArray(Object[] data){
         String[] result = new String[data.length];
         for(int i = 0; i < data.length; i++){
@@ -0,0 +1,244 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Connection;
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import io.valkey.Pipeline;
+import io.valkey.Response;
+import io.valkey.Transaction;
+import io.valkey.TransactionBase;
+import io.valkey.params.ScanParams;
+import io.valkey.params.SetParams;
+import io.valkey.resps.ScanResult;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.oba.jedis.extra.utils.test.TTL;
+import org.oba.jedis.extra.utils.test.TransactionOrder;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.api.support.membermodification.MemberMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.oba.jedis.extra.utils.test.TestingUtils.extractSetParamsExpireTimePX;
+import static org.oba.jedis.extra.utils.test.TestingUtils.isSetParamsNX;
+
+/**
+ * Mock of the binary jedis methods used by the typed cache
+ */
+public class MockOfJedisForTypedCache {
+
+    public static final String CLIENT_RESPONSE_OK = "OK";
+    public static final String CLIENT_RESPONSE_KO = null;
+
+    // Keys returned by every scan call
+    static final int SCAN_PAGE_SIZE = 10;
+
+    private final Jedis jedis;
+    private final JedisPool jedisPool;
+    // Binary keys are stored as ISO-8859-1 strings, one char per byte
+    private final Map<String, byte[]> data = Collections.synchronizedMap(new HashMap<>());
+    private final List<TransactionOrder<?>> transactionActions = new ArrayList<>();
+    private final Timer timer = new Timer();
+    // Last key returned by every open scan cursor
+    private final Map<String, String> scanCursors = new HashMap<>();
+    private int scanCursorCount = 0;
+
+
+    public MockOfJedisForTypedCache() {
+        PowerMockito.suppress(MemberMatcher.methodsDeclaredIn(TransactionBase.class));
+
+        jedis = Mockito.mock(Jedis.class);
+        Connection connection = Mockito.mock(Connection.class);
+        when(jedis.getConnection()).thenReturn(connection);
+        jedisPool = Mockito.mock(JedisPool.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        Transaction transaction = PowerMockito.mock(Transaction.class);
+        when(jedis.multi()).thenReturn(transaction);
+        Pipeline pipeline = Mockito.mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+
+        when(jedis.exists(any(byte[].class))).thenAnswer(ioc -> mockExists(ioc.getArgument(0)));
+        when(jedis.get(any(byte[].class))).thenAnswer(ioc -> mockGet(ioc.getArgument(0)));
+        when(jedis.mget(ArgumentMatchers.<byte[][]>any())).thenAnswer(ioc -> mockMget(fromArguments(ioc.getArguments())));
+        when(jedis.set(any(byte[].class), any(byte[].class), any(SetParams.class))).thenAnswer(ioc ->
+                mockSet(ioc.getArgument(0), ioc.getArgument(1), ioc.getArgument(2)));
+        when(jedis.del(any(byte[].class))).thenAnswer(ioc -> mockDel(new byte[][]{ioc.getArgument(0)}));
+        when(jedis.del(ArgumentMatchers.<byte[][]>any())).thenAnswer(ioc -> mockDel(fromArguments(ioc.getArguments())));
+        when(jedis.unlink(ArgumentMatchers.<byte[][]>any())).thenAnswer(ioc -> mockDel(fromArguments(ioc.getArguments())));
+        when(jedis.scan(any(byte[].class), any(ScanParams.class))).thenAnswer(ioc ->
+                mockScan(ioc.getArgument(0), ioc.getArgument(1)));
+
+        when(transaction.get(any(byte[].class))).thenAnswer(ioc -> {
+            byte[] key = ioc.getArgument(0);
+            return mockTransaction(() -> mockGet(key));
+        });
+        when(transaction.set(any(byte[].class), any(byte[].class), any(SetParams.class))).thenAnswer(ioc -> {
+            byte[] key = ioc.getArgument(0);
+            byte[] value = ioc.getArgument(1);
+            SetParams setParams = ioc.getArgument(2);
+            return mockTransaction(() -> mockSet(key, value, setParams));
+        });
+        when(transaction.del(any(byte[].class))).thenAnswer(ioc -> {
+            byte[] key = ioc.getArgument(0);
+            return mockTransaction(() -> mockDel(new byte[][]{key}));
+        });
+        PowerMockito.when(transaction.exec()).thenAnswer(ioc -> mockTransactionExec());
+
+        when(pipeline.set(any(byte[].class), any(byte[].class), any(SetParams.class))).thenAnswer(ioc ->
+                TransactionOrder.quickReponseExecuted(mockSet(ioc.getArgument(0), ioc.getArgument(1), ioc.getArgument(2))));
+
+        when(jedis.scriptLoad(anyString())).thenAnswer( ioc -> {
+            String script = ioc.getArgument(0, String.class);
+            return ScriptEvalSha1.sha1(script);
+        });
+        when(jedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenAnswer( ioc -> {
+            List<byte[]> keys = ioc.getArgument(1, List.class);
+            List<byte[]> args = ioc.getArgument(2, List.class);
+            return mockEvalshaConditional(keys, args);
+        });
+    }
+
+
+    Jedis getJedis(){
+        return jedis;
+    }
+
+    JedisPool getJedisPool() {
+        return jedisPool;
+    }
+
+    private static String asString(byte[] key) {
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] asBytes(String key) {
+        return key.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    synchronized boolean mockExists(byte[] key) {
+        return data.containsKey(asString(key));
+    }
+
+    synchronized byte[] mockGet(byte[] key) {
+        return data.get(asString(key));
+    }
+
+    synchronized List<byte[]> mockMget(byte[][] keys) {
+        List<byte[]> result = new ArrayList<>(keys.length);
+        for(byte[] key: keys) {
+            result.add(data.get(asString(key)));
+        }
+        return result;
+    }
+
+    synchronized String mockSet(byte[] key, byte[] value, SetParams setParams) {
+        String stringKey = asString(key);
+        if (isSetParamsNX(setParams) && data.containsKey(stringKey)) {
+            return CLIENT_RESPONSE_KO;
+        }
+        data.put(stringKey, value);
+        Long expireTime = extractSetParamsExpireTimePX(setParams);
+        if (expireTime != null) {
+            timer.schedule(TTL.wrapTTL(() -> data.remove(stringKey, value)), expireTime);
+        }
+        return CLIENT_RESPONSE_OK;
+    }
+
+    synchronized Long mockDel(byte[][] keys) {
+        long result = 0L;
+        for(byte[] key: keys) {
+            if (data.remove(asString(key)) != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Emulates the conditional script of the typed cache
+     */
+    synchronized byte[] mockEvalshaConditional(List<byte[]> keys, List<byte[]> args) {
+        String operation = new String(args.get(0), StandardCharsets.UTF_8);
+        byte[] current = mockGet(keys.get(0));
+        if (current == null) {
+            return null;
+        }
+        if (!operation.equals(TypedCache.REPLACE_IF_EXISTS) && !Arrays.equals(current, args.get(1))) {
+            return null;
+        }
+        if (operation.equals(TypedCache.REMOVE_IF_EQUALS)) {
+            mockDel(new byte[][]{keys.get(0)});
+        } else {
+            long timeOut = Long.parseLong(new String(args.get(3), StandardCharsets.UTF_8));
+            mockSet(keys.get(0), args.get(2), new SetParams().px(timeOut));
+        }
+        return current;
+    }
+
+    /**
+     * Scans the keys that start with the pattern (without the final '*'), SCAN_PAGE_SIZE keys per call
+     * Keys are returned in order, and every cursor remembers the last key returned,
+     * so keys deleted or added during the scan don't make it skip the others (as redis)
+     */
+    private synchronized ScanResult<byte[]> mockScan(byte[] cursor, ScanParams scanParams) {
+        String pattern = scanParams.match();
+        String prefix = pattern.endsWith("*") ? pattern.substring(0, pattern.length() - 1) : pattern;
+        String lastKey = scanCursors.remove(new String(cursor, StandardCharsets.UTF_8));
+        List<String> page = data.keySet().stream().
+                filter(k -> k.startsWith(prefix)).
+                filter(k -> lastKey == null || k.compareTo(lastKey) > 0).
+                sorted().
+                limit(SCAN_PAGE_SIZE + 1L).
+                collect(Collectors.toList());
+        String nextCursor = ScanParams.SCAN_POINTER_START;
+        if (page.size() > SCAN_PAGE_SIZE) {
+            page = page.subList(0, SCAN_PAGE_SIZE);
+            nextCursor = Integer.toString(++scanCursorCount);
+            scanCursors.put(nextCursor, page.get(page.size() - 1));
+        }
+        return new ScanResult<>(nextCursor.getBytes(StandardCharsets.UTF_8),
+                page.stream().map(MockOfJedisForTypedCache::asBytes).collect(Collectors.toList()));
+    }
+
+    private synchronized <T> Response<T> mockTransaction(Supplier<T> action) {
+        TransactionOrder<T> transactionOrder = new TransactionOrder<>(action);
+        transactionActions.add(transactionOrder);
+        return transactionOrder.getResponse();
+    }
+
+    private synchronized List<Object> mockTransactionExec(){
+        transactionActions.forEach(TransactionOrder::execute);
+        List<Object> responses = transactionActions.stream().
+                map(TransactionOrder::getResponse).
+                collect(Collectors.toList());
+        transactionActions.clear();
+        return responses;
+    }
+
+    synchronized void clearData(){
+        data.clear();
+    }
+
+    synchronized int size() {
+        return data.size();
+    }
+
+    static byte[][] fromArguments(Object[] arguments){
+        if (arguments.length == 1 && arguments[0] instanceof byte[][]) {
+            return (byte[][]) arguments[0];
+        }
+        byte[][] result = new byte[arguments.length][];
+        for(int i = 0; i < arguments.length; i++){
+            result[i] = (byte[]) arguments[i];
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.oba.jedis.extra.utils.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NearCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorEntriesTest() {
+        new NearCache(0, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorTtlTest() {
+        new NearCache(10, 0);
+    }
+
+    @Test
+    public void putAndGetTest() {
+        NearCache nearCache = new NearCache(10, 10_000);
+        nearCache.putIfNotInvalidated("a", "A1", 5_000, nearCache.currentEpoch());
+        assertEquals("A1", nearCache.get("a"));
+        assertNull(nearCache.get("b"));
+        assertEquals(1, nearCache.getHitCount());
+        assertEquals(1, nearCache.getMissCount());
+        assertEquals(0.5, nearCache.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void putAfterInvalidationTest() {
+        NearCache nearCache = new NearCache(10, 10_000);
+        long epoch = nearCache.currentEpoch();
+        nearCache.invalidate("a");
+        nearCache.putIfNotInvalidated("a", "A1", 5_000, epoch);
+        assertNull(nearCache.get("a"));
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void putAfterOtherKeyInvalidationTest() {
+        NearCache nearCache = new NearCache(10, 10_000);
+        long epoch = nearCache.currentEpoch();
+        nearCache.invalidate("b");
+        nearCache.invalidate("c");
+        nearCache.putIfNotInvalidated("a", "A1", 5_000, epoch);
+        assertEquals("A1", nearCache.get("a"));
+        long nextEpoch = nearCache.currentEpoch();
+        nearCache.invalidateAll();
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, nextEpoch);
+        assertNull(nearCache.get("b"));
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, nearCache.currentEpoch());
+        assertEquals("B1", nearCache.get("b"));
+    }
+
+    @Test
+    public void putAfterForgottenInvalidationTest() {
+        NearCache nearCache = new NearCache(10, 10_000);
+        long epoch = nearCache.currentEpoch();
+        nearCache.invalidate("a");
+        for(int i = 0; i < NearCache.MIN_TRACKED_INVALIDATIONS; i++) {
+            nearCache.invalidate("k" + i);
+        }
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, epoch);
+        assertNull(nearCache.get("b"));
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, nearCache.currentEpoch());
+        assertEquals("B1", nearCache.get("b"));
+    }
+
+    @Test
+    public void invalidateTest() {
+        NearCache nearCache = new NearCache(10, 10_000);
+        nearCache.putIfNotInvalidated("a", "A1", 5_000, nearCache.currentEpoch());
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, nearCache.currentEpoch());
+        nearCache.invalidate("a");
+        assertNull(nearCache.get("a"));
+        assertEquals("B1", nearCache.get("b"));
+        nearCache.invalidateAll();
+        assertNull(nearCache.get("b"));
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void maxEntriesTest() {
+        NearCache nearCache = new NearCache(2, 10_000);
+        nearCache.putIfNotInvalidated("a", "A1", 5_000, nearCache.currentEpoch());
+        nearCache.putIfNotInvalidated("b", "B1", 5_000, nearCache.currentEpoch());
+        nearCache.get("a");
+        nearCache.putIfNotInvalidated("c", "C1", 5_000, nearCache.currentEpoch());
+        assertEquals(2, nearCache.size());
+        assertEquals("A1", nearCache.get("a"));
+        assertNull(nearCache.get("b"));
+        assertEquals("C1", nearCache.get("c"));
+    }
+
+    @Test
+    public void localTtlTest() throws InterruptedException {
+        NearCache nearCache = new NearCache(10, 10_000);
+        nearCache.putIfNotInvalidated("a", "A1", 200, nearCache.currentEpoch());
+        nearCache.putIfNotInvalidated("b", "B1", 0, nearCache.currentEpoch());
+        assertEquals("A1", nearCache.get("a"));
+        assertNull(nearCache.get("b"));
+        Thread.sleep(300);
+        assertNull(nearCache.get("a"));
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Transaction;
+import io.valkey.TransactionBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.oba.jedis.extra.utils.cache.MockOfJedisForSimpleCache.unitTestEnabledForSimpleCache;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Transaction.class, TransactionBase.class })
+public class SimpleCacheEvictionTest {
+
+    private MockOfJedisForSimpleCache mockOfJedisForSimpleCache;
+
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(unitTestEnabledForSimpleCache());
+        if (!unitTestEnabledForSimpleCache()) return;
+        mockOfJedisForSimpleCache = new MockOfJedisForSimpleCache();
+    }
+
+    @After
+    public void tearDown() {
+        if (mockOfJedisForSimpleCache != null) {
+            mockOfJedisForSimpleCache.clearData();
+        }
+    }
+
+    SimpleCache createNewCache() {
+        return createNewCache(100, CacheEviction.Policy.LRU);
+    }
+
+    SimpleCache createNewCache(long maxEntries, CacheEviction.Policy policy) {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        // Flushed by the tests, not by the background thread
+        return new SimpleCache(mockOfJedisForSimpleCache.getJedisPool(), name, 3_600_000).
+                withMaxEntries(maxEntries, policy, 3_600_000);
+    }
+
+    private Set<String> accessMembers(SimpleCache simpleCache) {
+        return mockOfJedisForSimpleCache.getSortedSetMembers(simpleCache.getEviction().getAccessKey());
+    }
+
+    @Test
+    public void removalsFlushedTest() {
+        SimpleCache simpleCache = createNewCache();
+        for(String key: Arrays.asList("a", "b", "c", "d", "e", "f")) {
+            simpleCache.put(key, key.toUpperCase());
+        }
+        simpleCache.getEviction().flush();
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e", "f")), accessMembers(simpleCache));
+        assertTrue(simpleCache.remove("a"));
+        assertEquals("B", simpleCache.getAndRemove("b"));
+        assertTrue(simpleCache.remove("c", "C"));
+        simpleCache.removeAll(new HashSet<>(Arrays.asList("d", "x")));
+        assertEquals(Collections.singleton("e"), simpleCache.removeAllExisting(new HashSet<>(Arrays.asList("e", "y"))));
+        assertEquals(6, accessMembers(simpleCache).size());
+        assertTrue(simpleCache.getEviction().getPendingRemovals() > 0);
+        simpleCache.getEviction().flush();
+        assertEquals(0, simpleCache.getEviction().getPendingRemovals());
+        assertEquals(Collections.singleton("f"), accessMembers(simpleCache));
+        assertEquals(0, simpleCache.getEviction().getEvictedEntries());
+        simpleCache.close();
+    }
+
+    @Test
+    public void evictLeastFrequentlyUsedTest() {
+        SimpleCache simpleCache = createNewCache(5, CacheEviction.Policy.LFU);
+        for(int i = 0; i < 10; i++) {
+            simpleCache.put("k" + i, "V" + i);
+        }
+        for(int i = 0; i < 5; i++) {
+            assertEquals("V" + i, simpleCache.get("k" + i));
+        }
+        simpleCache.getEviction().flush();
+        assertEquals(5, simpleCache.getEviction().getEvictedEntries());
+        for(int i = 0; i < 5; i++) {
+            assertTrue(simpleCache.containsKey("k" + i));
+            assertFalse(simpleCache.containsKey("k" + (i + 5)));
+        }
+        assertEquals(5, accessMembers(simpleCache).size());
+        Mockito.verify(mockOfJedisForSimpleCache.getJedis(), times(0)).zrange(anyString(), anyLong(), anyLong());
+        simpleCache.close();
+    }
+
+    @Test
+    public void expiredMembersDiscardedTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache(5, CacheEviction.Policy.LFU);
+        for(int i = 0; i < 5; i++) {
+            simpleCache.put("h" + i, "H" + i, 50);
+            for(int j = 0; j < 10; j++) {
+                assertEquals("H" + i, simpleCache.get("h" + i));
+            }
+        }
+        simpleCache.getEviction().flush();
+        assertEquals(5, accessMembers(simpleCache).size());
+        Thread.sleep(150);
+        for(int i = 0; i < 5; i++) {
+            assertFalse(simpleCache.containsKey("h" + i));
+            simpleCache.put("l" + i, "L" + i);
+        }
+        simpleCache.getEviction().flush();
+        assertEquals(0, simpleCache.getEviction().getEvictedEntries());
+        for(int i = 0; i < 5; i++) {
+            assertEquals("L" + i, simpleCache.get("l" + i));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("l0", "l1", "l2", "l3", "l4")), accessMembers(simpleCache));
+        simpleCache.close();
+    }
+
+    @Test
+    public void putAfterRemovalTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a", "A1");
+        simpleCache.getEviction().flush();
+        assertTrue(simpleCache.remove("a"));
+        simpleCache.put("a", "A2");
+        assertEquals(0, simpleCache.getEviction().getPendingRemovals());
+        simpleCache.getEviction().flush();
+        assertEquals(Collections.singleton("a"), accessMembers(simpleCache));
+        simpleCache.close();
+    }
+
+}
@@ -5,6 +5,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.oba.jedis.extra.utils.utils.SimpleEntry;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -136,6 +138,19 @@ public class SimpleCacheIteratorTest {
         }
     }
 
+    @Test
+    public void iteratorPageTest() {
+        SimpleCache simpleCache = createNewCache();
+        Map<String, String> data = new HashMap<>();
+        data.put("a", "A1");
+        data.put("b", "B1");
+        data.put("c", "C1");
+        simpleCache.putAll(data);
+        assertEquals(data, simpleCache.asMap());
+        Mockito.verify(mockOfJedisForSimpleCache.getJedis(), Mockito.times(1)).mget(ArgumentMatchers.<String[]>any());
+        Mockito.verify(mockOfJedisForSimpleCache.getJedis(), Mockito.never()).get(ArgumentMatchers.anyString());
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void iteratorAsListErrorTest() {
         SimpleCache simpleCache = createNewCache();
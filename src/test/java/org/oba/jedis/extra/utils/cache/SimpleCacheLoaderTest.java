@@ -11,6 +11,7 @@ import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -101,6 +102,20 @@ public class SimpleCacheLoaderTest {
         assertEquals(2, testingCacheLoader.countDataGenerator());
     }
 
+    @Test
+    public void getAllTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a","A1");
+        Set<String> keys = new HashSet<>(Arrays.asList("a","b","c"));
+        Map<String, String> result = simpleCache.getAll(keys);
+        assertEquals(3, result.size());
+        assertEquals("A1", result.get("a"));
+        assertEquals(result.get("b"), simpleCache.get("b"));
+        assertEquals(result.get("c"), simpleCache.get("c"));
+        assertEquals(2, testingCacheLoader.countDataGenerator());
+        assertEquals(1, testingCacheLoader.countLoadAll());
+    }
+
     @Test
     public void getTest() {
         SimpleCache simpleCache = createNewCache();
@@ -119,6 +134,53 @@ public class SimpleCacheLoaderTest {
         assertEquals(0, testingCacheLoader.countDataGenerator());
     }
 
+    @Test
+    public void getWithLoadCoalescingTest() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger(0);
+        CacheLoader slowCacheLoader = key -> {
+            loads.incrementAndGet();
+            doSleep(250);
+            return key + ":loaded";
+        };
+        SimpleCache simpleCache = createNewCache(slowCacheLoader).withLoadCoalescing();
+        List<String> results = concurrentGets(simpleCache, simpleCache, 10);
+        assertEquals(1, loads.get());
+        assertEquals(10, results.size());
+        results.forEach(result -> assertEquals("a:loaded", result));
+    }
+
+    private List<String> concurrentGets(SimpleCache simpleCache1, SimpleCache simpleCache2, int num) throws InterruptedException {
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < num; i++) {
+            SimpleCache simpleCache = i % 2 == 0 ? simpleCache1 : simpleCache2;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(simpleCache.get("a"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for(Thread t: threads) {
+            t.join();
+        }
+        return results;
+    }
+
+    private static void doSleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Test(expected = IllegalStateException.class)
     public void getWithErrorTest() {
         testingCacheLoader.doNextError();
@@ -127,6 +189,45 @@ public class SimpleCacheLoaderTest {
     }
 
 
+    @Test
+    public void negativeCachingTest() {
+        AtomicInteger loads = new AtomicInteger(0);
+        SimpleCache simpleCache = createNewCache(key -> {
+            loads.incrementAndGet();
+            return key.startsWith("missing") ? null : key.toUpperCase();
+        }).withNegativeCaching(60_000);
+        assertNull(simpleCache.get("missing1"));
+        assertNull(simpleCache.get("missing1"));
+        assertEquals(1, loads.get());
+        assertFalse(simpleCache.containsKey("missing1"));
+        Map<String, String> result = simpleCache.getAll(new HashSet<>(Arrays.asList("missing1", "missing2", "b")));
+        assertEquals(1, result.size());
+        assertEquals("B", result.get("b"));
+        assertEquals(3, loads.get());
+        assertTrue(simpleCache.getAll(new HashSet<>(Arrays.asList("missing1", "missing2"))).isEmpty());
+        assertEquals(3, loads.get());
+        assertEquals(Collections.singletonList("b"), simpleCache.keys());
+        assertEquals(Collections.singletonMap("b", "B"), simpleCache.asMap());
+        assertEquals(1, simpleCache.size());
+        assertFalse(simpleCache.remove("missing1"));
+        simpleCache.put("missing2", "M2");
+        assertTrue(simpleCache.containsKey("missing2"));
+        assertEquals("M2", simpleCache.get("missing2"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void putIfAbsentOverTombstoneTest() {
+        SimpleCache simpleCache = createNewCache(key -> null).withNegativeCaching(60_000);
+        assertNull(simpleCache.get("missing1"));
+        assertTrue(simpleCache.putIfAbsent("missing1", "M1"));
+        assertEquals("M1", simpleCache.get("missing1"));
+        assertFalse(simpleCache.putIfAbsent("missing1", "M2"));
+        assertEquals("M1", simpleCache.get("missing1"));
+        assertTrue(simpleCache.putIfAbsent("missing2", "M2"));
+        assertEquals("M2", simpleCache.get("missing2"));
+    }
+
     private static class TestingCacheLoader implements CacheLoader {
 
         private final Map<String, String> internalData = new HashMap<>();
@@ -135,6 +236,8 @@ public class SimpleCacheLoaderTest {
 
         private final AtomicInteger dataGenerated = new AtomicInteger(0);
 
+        private final AtomicInteger loadAllCalls = new AtomicInteger(0);
+
 
 
         public void doNextError() {
@@ -145,6 +248,10 @@ public class SimpleCacheLoaderTest {
             return dataGenerated.get();
         }
 
+        public int countLoadAll() {
+            return loadAllCalls.get();
+        }
+
         @Override
         public String load(String key) {
             doWait();
@@ -164,6 +271,7 @@ public class SimpleCacheLoaderTest {
 
         @Override
         public Map<String, String> loadAll(Iterable<String> keys) {
+            loadAllCalls.incrementAndGet();
             Map<String, String> results = new HashMap<>();
             keys.forEach( key -> results.put(key, load(key)));
             return results;
@@ -11,6 +11,11 @@ import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 import static org.oba.jedis.extra.utils.cache.MockOfJedisForSimpleCache.unitTestEnabledForSimpleCache;
@@ -47,6 +52,167 @@ public class SimpleCacheTest {
     }
 
 
+    @Test
+    public void putAndGetCompressedTest() {
+        SimpleCache simpleCache = createNewCache().withCompression(100);
+        String bigValue = "{\"name\":\"value\",\"items\":[1,2,3,4,5]}".repeat(100);
+        simpleCache.put("a", "A1");
+        simpleCache.put("b", bigValue);
+        assertEquals("A1", simpleCache.get("a"));
+        assertEquals(bigValue, simpleCache.get("b"));
+        assertEquals("A1", mockOfJedisForsimpleCache.getCurrentData().get(simpleCache.getName() + ":a"));
+        String stored = (String) mockOfJedisForsimpleCache.getCurrentData().get(simpleCache.getName() + ":b");
+        assertEquals(CacheCompression.HEADER, stored.charAt(0));
+        assertTrue(stored.length() < bigValue.length());
+        Map<String, String> all = simpleCache.getAll(new HashSet<>(Arrays.asList("a", "b")));
+        assertEquals("A1", all.get("a"));
+        assertEquals(bigValue, all.get("b"));
+        assertEquals(1, simpleCache.getCompression().getCompressedValues());
+        assertTrue(simpleCache.getCompression().getCompressionRatio() > 1.0);
+        SimpleCache otherCache = new SimpleCache(mockOfJedisForsimpleCache.getJedisPool(), simpleCache.getName(), 3_600_000);
+        assertEquals(bigValue, otherCache.get("b"));
+    }
+
+    @Test
+    public void asyncTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SimpleCache simpleCache = createNewCache().withAsync(executor, 10);
+            List<CompletableFuture<Void>> puts = new ArrayList<>();
+            for(int i = 0; i < 25; i++) {
+                puts.add(simpleCache.putAsync("k" + i, "V" + i));
+            }
+            CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            assertEquals("V3", mockOfJedisForsimpleCache.getCurrentData().get(simpleCache.getName() + ":k3"));
+            assertEquals("V3", simpleCache.getAsync("k3").get(5, TimeUnit.SECONDS));
+            assertNull(simpleCache.getAsync("z").get(5, TimeUnit.SECONDS));
+            Map<String, String> all = simpleCache.getAllAsync(new HashSet<>(Arrays.asList("k1", "k2", "z"))).get(5, TimeUnit.SECONDS);
+            assertEquals(2, all.size());
+            assertEquals("V1", all.get("k1"));
+            CompletableFuture<Boolean> removed1 = simpleCache.removeAsync("k1");
+            CompletableFuture<Boolean> removed2 = simpleCache.removeAsync("k1");
+            assertTrue(removed1.get(5, TimeUnit.SECONDS));
+            assertFalse(removed2.get(5, TimeUnit.SECONDS));
+            assertNull(simpleCache.get("k1"));
+            CacheAsync async = simpleCache.getCacheAsync();
+            assertEquals(30, async.getOperationCount());
+            assertTrue(async.getBatchCount() <= 30);
+            assertTrue(async.getMeanBatchSize() >= 1.0);
+            assertEquals(0, async.getPendingOperations());
+            simpleCache.close();
+            assertEquals(0, async.getFailedOperations());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void asyncNotEnabledTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.getAsync("a");
+    }
+
+    @Test
+    public void statisticsTest() {
+        SimpleCache simpleCache = createNewCache().
+                withCacheLoader(key -> key.equals("c") ? "C1" : null).
+                withStatistics();
+        simpleCache.put("a", "A1");
+        simpleCache.putAll(Collections.singletonMap("b", "B1"));
+        assertEquals("A1", simpleCache.get("a"));
+        assertEquals("C1", simpleCache.get("c"));
+        assertNull(simpleCache.get("z"));
+        Map<String, String> all = simpleCache.getAll(new HashSet<>(Arrays.asList("a", "b", "x")));
+        assertEquals(2, all.size());
+        assertTrue(simpleCache.remove("a"));
+        assertFalse(simpleCache.remove("a"));
+        simpleCache.removeAll(new HashSet<>(Arrays.asList("b", "y")));
+        CacheStatistics.Snapshot snapshot = simpleCache.getStatistics().snapshot();
+        assertEquals(3, snapshot.getHitCount());
+        assertEquals(3, snapshot.getMissCount());
+        assertEquals(0.5, snapshot.getHitRatio(), 0.001);
+        assertEquals(3, snapshot.getLoadCount());
+        assertEquals(0, snapshot.getLoadFailureCount());
+        assertEquals(2, snapshot.getPutCount());
+        assertEquals(2, snapshot.getRemovalCount());
+        assertEquals(0, snapshot.getWriteCount());
+        assertEquals(4, snapshot.getRemoteGetLatency().getCount());
+        assertEquals(3, snapshot.getLoadLatency().getCount());
+        simpleCache.getStatistics().reset();
+        assertEquals(0, simpleCache.getStatistics().getHitCount());
+        assertEquals(0, simpleCache.getStatistics().snapshot().getRemoteGetLatency().getCount());
+    }
+
+    @Test
+    public void putAndGetWithJitterTest() {
+        SimpleCache simpleCache = createNewCache().withTtlJitter(0.2);
+        String headerValue = CacheEarlyExpiration.HEADER + "1:A2";
+        simpleCache.put("a", "A1");
+        simpleCache.putAll(Collections.singletonMap("b", headerValue));
+        assertEquals("A1", simpleCache.get("a"));
+        assertEquals(headerValue, simpleCache.get("b"));
+        assertEquals(headerValue, simpleCache.getAll(Collections.singleton("b")).get("b"));
+        assertNotEquals(headerValue, mockOfJedisForsimpleCache.getCurrentData().get(simpleCache.getName() + ":b"));
+    }
+
+    @Test
+    public void jitterTimeOutTest() {
+        long timeOut = 100_000L;
+        double ratio = 0.2;
+        SimpleCache simpleCache = createNewCache(timeOut).
+                withTtlJitter(ratio).
+                withCacheLoader(key -> "L" + key);
+        Map<String, String> values = new HashMap<>();
+        for(int i = 0; i < 20; i++) {
+            simpleCache.put("p" + i, "P" + i);
+            values.put("m" + i, "M" + i);
+            simpleCache.get("l" + i);
+        }
+        simpleCache.putAll(values);
+        simpleCache.put("explicit", "E", 5_000L);
+        Set<Long> timeOuts = new HashSet<>();
+        for(String prefix: Arrays.asList("p", "m", "l")) {
+            for(int i = 0; i < 20; i++) {
+                Long stored = mockOfJedisForsimpleCache.getLastTimeOut(simpleCache.resolveKey(prefix + i));
+                assertNotNull(stored);
+                assertTrue(stored >= (long) (timeOut * (1.0 - ratio)));
+                assertTrue(stored <= timeOut);
+                timeOuts.add(stored);
+            }
+        }
+        assertTrue(timeOuts.size() > 1);
+        assertEquals(Long.valueOf(5_000L), mockOfJedisForsimpleCache.getLastTimeOut(simpleCache.resolveKey("explicit")));
+    }
+
+    @Test
+    public void earlyExpirationReloadTest() {
+        AtomicInteger loads = new AtomicInteger(0);
+        CacheLoader slowLoader = key -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return key + loads.incrementAndGet();
+        };
+        SimpleCache simpleCache = createNewCache(10_000).
+                withCacheLoader(slowLoader).
+                withEarlyExpiration(1.0e9);
+        assertEquals("a1", simpleCache.get("a"));
+        assertTrue(mockOfJedisForsimpleCache.mockPttl(simpleCache.resolveKey("a")) > 0);
+        // Not expired yet, but with a load time of 5ms and this beta it's always reloaded early
+        assertEquals("a2", simpleCache.get("a"));
+        assertEquals(2, loads.get());
+        assertEquals(1, simpleCache.getEarlyExpiration().getEarlyExpirations());
+        assertEquals("a2", simpleCache.get("a", null));
+        SimpleCache defaultBetaCache = createNewCache(10_000).
+                withCacheLoader(slowLoader).
+                withEarlyExpiration();
+        assertEquals("b3", defaultBetaCache.get("b"));
+        assertEquals("b3", defaultBetaCache.get("b"));
+        assertEquals(0, defaultBetaCache.getEarlyExpiration().getEarlyExpirations());
+    }
+
     @Test
     public void putAndGetTest() {
         SimpleCache simpleCache = createNewCache();
@@ -4,9 +4,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.oba.jedis.extra.utils.utils.SimpleEntry;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import io.valkey.Jedis;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 
@@ -16,6 +19,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
 import static org.oba.jedis.extra.utils.cache.MockOfJedisForSimpleCache.unitTestEnabledForSimpleCache;
 
 //@RunWith(MockitoJUnitRunner.Silent.class)
@@ -323,6 +328,45 @@ public class SimpleCacheWriterTest {
         assertEquals(4, testingCacheWriter.countDataDeleted());
     }
 
+    @Test
+    public void removeAllByPageTest() {
+        List<Collection<String>> deletedPages = new ArrayList<>();
+        SimpleCache simpleCache = createNewCache(new CacheWriter() {
+            @Override
+            public void write(String key, String value) {
+                // Not used
+            }
+
+            @Override
+            public void delete(String key) {
+                throw new IllegalStateException("Delete one by one");
+            }
+
+            @Override
+            public void deleteAll(Collection<String> keys) {
+                deletedPages.add(new ArrayList<>(keys));
+            }
+        });
+        Map<String, String> data = new HashMap<>();
+        for(int i = 0; i < 25; i++) {
+            data.put("k" + i, "V" + i);
+        }
+        simpleCache.putAll(data);
+        simpleCache.removeAll();
+        assertTrue(mockOfJedisForSimpleCache.getCurrentData().isEmpty());
+        assertEquals(3, deletedPages.size());
+        Set<String> deleted = new HashSet<>();
+        deletedPages.forEach(page -> {
+            assertTrue(page.size() <= MockOfJedisForSimpleCache.SCAN_PAGE_SIZE);
+            deleted.addAll(page);
+        });
+        assertEquals(data.keySet(), deleted);
+        Jedis jedis = mockOfJedisForSimpleCache.getJedis();
+        Mockito.verify(jedis, times(3)).unlink(ArgumentMatchers.<String[]>any());
+        Mockito.verify(jedis, times(0)).del(ArgumentMatchers.<String[]>any());
+        Mockito.verify(jedis, times(0)).del(anyString());
+    }
+
     @Test
     public void clearTest() {
         SimpleCache simpleCache = createNewCache();
@@ -345,6 +389,106 @@ public class SimpleCacheWriterTest {
         assertEquals(0, testingCacheWriter.countDataDeleted());
     }
 
+    @Test
+    public void writeBehindTest() {
+        SimpleCache simpleCache = createNewCache().withWriteBehind(100, 10, 60_000);
+        simpleCache.put("a","A1");
+        simpleCache.put("a","A2");
+        simpleCache.put("b","B1");
+        simpleCache.remove("b");
+        simpleCache.put("c","C1");
+        assertEquals("A2", simpleCache.get("a"));
+        assertEquals(3, simpleCache.getWriteBehind().getQueueDepth());
+        simpleCache.getWriteBehind().flush();
+        assertEquals(0, simpleCache.getWriteBehind().getQueueDepth());
+        assertEquals(1, simpleCache.getWriteBehind().getFlushCount());
+        assertEquals("A2", testingCacheWriter.get("a"));
+        assertFalse(testingCacheWriter.contains("b"));
+        assertEquals("C1", testingCacheWriter.get("c"));
+        assertEquals(2, testingCacheWriter.countDataInserted());
+        assertEquals(1, testingCacheWriter.countDataDeleted());
+        simpleCache.put("d","D1");
+        simpleCache.close();
+        assertEquals("D1", testingCacheWriter.get("d"));
+        assertEquals(4, simpleCache.getWriteBehind().getFlushedOperations());
+    }
+
+    @Test
+    public void writeBehindBatchTest() {
+        SimpleCache simpleCache = createNewCache().withWriteBehind(4, 2, 60_000);
+        for(int i = 0; i < 20; i++) {
+            simpleCache.put("k" + i,"V" + i);
+        }
+        simpleCache.close();
+        assertEquals(20, testingCacheWriter.countDataInserted());
+        assertEquals("V19", testingCacheWriter.get("k19"));
+        assertEquals(0, simpleCache.getWriteBehind().getFailedOperations());
+        assertTrue(simpleCache.getWriteBehind().getFlushCount() >= 10);
+    }
+
+    @Test
+    public void writeBehindStatisticsTest() {
+        SimpleCache simpleCache = createNewCache().withWriteBehind(100, 10, 60_000).withStatistics();
+        simpleCache.put("a","A1");
+        simpleCache.put("b","B1");
+        simpleCache.remove("b");
+        assertEquals(0, simpleCache.getStatistics().getWriteCount());
+        simpleCache.getWriteBehind().flush();
+        CacheStatistics.Snapshot snapshot = simpleCache.getStatistics().snapshot();
+        assertEquals(2, snapshot.getWriteCount());
+        assertEquals(0, snapshot.getWriteFailureCount());
+        assertEquals(2, snapshot.getWriteLatency().getCount());
+        testingCacheWriter.doNextError();
+        simpleCache.put("c","C1");
+        simpleCache.getWriteBehind().flush();
+        snapshot = simpleCache.getStatistics().snapshot();
+        assertEquals(2, snapshot.getWriteCount());
+        assertEquals(1, snapshot.getWriteFailureCount());
+        assertEquals(3, snapshot.getWriteLatency().getCount());
+        assertEquals(1, simpleCache.getWriteBehind().getFailedOperations());
+        simpleCache.close();
+    }
+
+    @Test
+    public void writeBehindDeleteFailureTest() {
+        Map<String, String> external = new HashMap<>();
+        SimpleCache simpleCache = createNewCache(new CacheWriter() {
+            @Override
+            public void write(String key, String value) {
+                external.put(key, value);
+            }
+
+            @Override
+            public void delete(String key) {
+                throw new IllegalStateException("Delete failed");
+            }
+
+            @Override
+            public void deleteAll(Collection<String> keys) {
+                throw new IllegalStateException("Delete failed");
+            }
+        }).withWriteBehind(100, 10, 60_000).withStatistics();
+        simpleCache.put("a","A1");
+        simpleCache.put("b","B1");
+        simpleCache.put("c","C1");
+        simpleCache.remove("c");
+        simpleCache.getWriteBehind().flush();
+        assertEquals("A1", external.get("a"));
+        assertEquals("B1", external.get("b"));
+        assertEquals(2, simpleCache.getWriteBehind().getFlushedOperations());
+        assertEquals(1, simpleCache.getWriteBehind().getFailedOperations());
+        CacheStatistics.Snapshot snapshot = simpleCache.getStatistics().snapshot();
+        assertEquals(1, snapshot.getWriteCount());
+        assertEquals(1, snapshot.getWriteFailureCount());
+        simpleCache.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeBehindWithoutWriterTest() {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        new SimpleCache(mockOfJedisForSimpleCache.getJedisPool(), name, 3_600_000).withWriteBehind(100, 10, 1000);
+    }
+
     @Test
     public void cacheWriterWriteTest() {
         TestingCacheWriter localCacheWriter = new TestingCacheWriter();
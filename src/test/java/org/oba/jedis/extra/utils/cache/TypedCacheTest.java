@@ -0,0 +1,234 @@
+package org.oba.jedis.extra.utils.cache;
+
+import io.valkey.Transaction;
+import io.valkey.TransactionBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.times;
+import static org.oba.jedis.extra.utils.cache.MockOfJedisForSimpleCache.unitTestEnabledForSimpleCache;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Transaction.class, TransactionBase.class })
+public class TypedCacheTest {
+
+    private static final CacheCodec<Long> LONG_CODEC = new CacheCodec<>() {
+        @Override
+        public byte[] encode(Long data) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(data).array();
+        }
+
+        @Override
+        public Long decode(byte[] data) {
+            return ByteBuffer.wrap(data).getLong();
+        }
+    };
+
+    private MockOfJedisForTypedCache mockOfJedisForTypedCache;
+
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(unitTestEnabledForSimpleCache());
+        if (!unitTestEnabledForSimpleCache()) return;
+        mockOfJedisForTypedCache = new MockOfJedisForTypedCache();
+    }
+
+    @After
+    public void tearDown() {
+        if (mockOfJedisForTypedCache != null) {
+            mockOfJedisForTypedCache.clearData();
+        }
+    }
+
+    TypedCache<Long, String> createNewCache() {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        return new TypedCache<>(mockOfJedisForTypedCache.getJedisPool(), name, 3_600_000, LONG_CODEC, CacheCodec.stringCodec());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newErrorCodecTest() {
+        new TypedCache<Long, String>(mockOfJedisForTypedCache.getJedisPool(), "cache", 3_600_000, null, CacheCodec.stringCodec());
+    }
+
+    @Test
+    public void putAndGetTest() {
+        TypedCache<Long, String> typedCache = createNewCache();
+        typedCache.put(1L, "A1");
+        typedCache.put(10L, "J1");
+        assertEquals("A1", typedCache.get(1L));
+        assertEquals("J1", typedCache.get(10L));
+        assertNull(typedCache.get(2L));
+        assertTrue(typedCache.containsKey(1L));
+        assertFalse(typedCache.containsKey(2L));
+        assertEquals("A1", typedCache.getAndPut(1L, "A2"));
+        assertFalse(typedCache.putIfAbsent(1L, "A3"));
+        assertTrue(typedCache.putIfAbsent(2L, "B1"));
+        assertEquals("A2", typedCache.get(1L));
+        assertEquals("B1", typedCache.get(2L));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 10L)), typedCache.keys());
+    }
+
+    @Test
+    public void replaceTest() {
+        TypedCache<Long, String> typedCache = createNewCache();
+        typedCache.put(1L, "A1");
+        assertFalse(typedCache.replace(1L, "X", "A2"));
+        assertTrue(typedCache.replace(1L, "A1", "A2"));
+        assertEquals("A2", typedCache.get(1L));
+        assertFalse(typedCache.replace(2L, "B1"));
+        assertNull(typedCache.getAndReplace(2L, "B1"));
+        assertFalse(typedCache.containsKey(2L));
+        assertTrue(typedCache.replace(1L, "A3"));
+        assertEquals("A3", typedCache.getAndReplace(1L, "A4"));
+        assertEquals("A4", typedCache.get(1L));
+    }
+
+    @Test
+    public void removeTest() {
+        TypedCache<Long, String> typedCache = createNewCache();
+        typedCache.put(1L, "A1");
+        typedCache.put(2L, "B1");
+        assertFalse(typedCache.remove(1L, "X"));
+        assertTrue(typedCache.containsKey(1L));
+        assertTrue(typedCache.remove(1L, "A1"));
+        assertFalse(typedCache.containsKey(1L));
+        assertFalse(typedCache.remove(1L, "A1"));
+        assertTrue(typedCache.remove(2L));
+        assertFalse(typedCache.remove(2L));
+        typedCache.put(3L, "C1");
+        assertEquals("C1", typedCache.getAndRemove(3L));
+        assertNull(typedCache.getAndRemove(3L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replaceErrorTest() {
+        createNewCache().replace(1L, null, "A1");
+    }
+
+    @Test
+    public void loadAllTest() {
+        TypedCache<Long, String> typedCache = createNewCache().withCacheLoader(key -> "L" + key);
+        typedCache.put(1L, "A1");
+        typedCache.loadAll(new HashSet<>(Arrays.asList(1L, 2L)), false);
+        assertEquals("A1", typedCache.get(1L, null));
+        assertEquals("L2", typedCache.get(2L, null));
+        typedCache.loadAll(new HashSet<>(Arrays.asList(1L, 2L)), true);
+        assertEquals("L1", typedCache.get(1L, null));
+    }
+
+    @Test
+    public void writerTest() {
+        Map<Long, String> external = new HashMap<>();
+        TypedCache<Long, String> typedCache = createNewCache().withCacheWriter(new TypedCacheWriter<>() {
+            @Override
+            public void write(Long key, String value) {
+                external.put(key, value);
+            }
+
+            @Override
+            public void delete(Long key) {
+                external.remove(key);
+            }
+        });
+        typedCache.put(1L, "A1");
+        typedCache.put(2L, "B1");
+        assertFalse(typedCache.replace(1L, "X", "A2"));
+        assertEquals("A1", external.get(1L));
+        assertTrue(typedCache.replace(1L, "A1", "A2"));
+        assertEquals("A2", external.get(1L));
+        assertTrue(typedCache.remove(2L, "B1"));
+        assertFalse(external.containsKey(2L));
+    }
+
+    @Test
+    public void iteratorTest() {
+        TypedCache<Long, String> typedCache = createNewCache();
+        Map<Long, String> data = new HashMap<>();
+        for(long i = 0; i < 25; i++) {
+            data.put(i, "V" + i);
+        }
+        typedCache.putAll(data);
+        Map<Long, String> iterated = new HashMap<>();
+        typedCache.forEach(entry -> iterated.put(entry.getKey(), entry.getValue()));
+        assertEquals(data, iterated);
+        Mockito.verify(mockOfJedisForTypedCache.getJedis(), times(3)).mget(ArgumentMatchers.<byte[][]>any());
+        assertFalse(createNewCache().iterator().hasNext());
+    }
+
+    @Test
+    public void removeAllByPageTest() {
+        List<Collection<Long>> deletedPages = new ArrayList<>();
+        TypedCache<Long, String> typedCache = createNewCache().withCacheWriter(new TypedCacheWriter<>() {
+            @Override
+            public void write(Long key, String value) {
+                // Not used
+            }
+
+            @Override
+            public void delete(Long key) {
+                throw new IllegalStateException("Delete one by one");
+            }
+
+            @Override
+            public void deleteAll(Collection<Long> keys) {
+                deletedPages.add(new ArrayList<>(keys));
+            }
+        });
+        Map<Long, String> data = new HashMap<>();
+        for(long i = 0; i < 25; i++) {
+            data.put(i, "V" + i);
+        }
+        typedCache.putAll(data);
+        typedCache.removeAll();
+        assertEquals(0, mockOfJedisForTypedCache.size());
+        assertEquals(3, deletedPages.size());
+        Set<Long> deleted = new HashSet<>();
+        deletedPages.forEach(page -> {
+            assertTrue(page.size() <= MockOfJedisForTypedCache.SCAN_PAGE_SIZE);
+            deleted.addAll(page);
+        });
+        assertEquals(data.keySet(), deleted);
+        Mockito.verify(mockOfJedisForTypedCache.getJedis(), times(3)).unlink(ArgumentMatchers.<byte[][]>any());
+        Mockito.verify(mockOfJedisForTypedCache.getJedis(), times(0)).del(ArgumentMatchers.<byte[][]>any());
+    }
+
+    @Test
+    public void clearTest() {
+        List<Long> deleted = new ArrayList<>();
+        TypedCache<Long, String> typedCache = createNewCache().withCacheWriter(new TypedCacheWriter<>() {
+            @Override
+            public void write(Long key, String value) {
+                // Not used
+            }
+
+            @Override
+            public void delete(Long key) {
+                deleted.add(key);
+            }
+        });
+        typedCache.put(1L, "A1");
+        typedCache.put(2L, "B1");
+        typedCache.clear();
+        assertTrue(typedCache.keys().isEmpty());
+        assertTrue(deleted.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedTest() {
+        TypedCache<Long, String> typedCache = createNewCache();
+        typedCache.close();
+        typedCache.get(1L);
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.CacheEntryEvent;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheEntryListenerTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.configSet("notify-keyspace-events", "K$gxen");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache() {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        listNameKeysToDelete.add(name + ":a");
+        listNameKeysToDelete.add(name + ":b");
+        return new SimpleCache(jedisPool, name, 60_000);
+    }
+
+    private void waitForEvents(List<CacheEntryEvent> events, int count) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 5_000;
+        while (events.size() < count && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void entryEventsTest() throws InterruptedException {
+        List<CacheEntryEvent> events = new CopyOnWriteArrayList<>();
+        List<CacheEntryEvent> otherEvents = new CopyOnWriteArrayList<>();
+        SimpleCache simpleCache = createNewCache().withEntryListener(events::addAll);
+        SimpleCache otherCache = new SimpleCache(jedisPool, simpleCache.getName(), 60_000).
+                withEntryListener(otherEvents::addAll);
+        // Subscription is done in background
+        Thread.sleep(250);
+        simpleCache.put("a", "A1");
+        simpleCache.put("a", "A2");
+        simpleCache.put("b", "B1", 50);
+        simpleCache.remove("a");
+        waitForEvents(events, 5);
+        waitForEvents(otherEvents, 5);
+        simpleCache.close();
+        otherCache.close();
+        List<CacheEntryEvent.Type> expected = Arrays.asList(CacheEntryEvent.Type.CREATED,
+                CacheEntryEvent.Type.UPDATED, CacheEntryEvent.Type.REMOVED);
+        assertEquals(expected, typesOf(events, "a"));
+        assertEquals(expected, typesOf(otherEvents, "a"));
+        assertEquals(Arrays.asList(CacheEntryEvent.Type.CREATED, CacheEntryEvent.Type.EXPIRED), typesOf(events, "b"));
+        assertTrue(events.stream().allMatch(e -> e.getCacheName().equals(simpleCache.getName())));
+    }
+
+    @Test
+    public void tombstoneEventsTest() throws InterruptedException {
+        List<CacheEntryEvent> events = new CopyOnWriteArrayList<>();
+        SimpleCache simpleCache = createNewCache().
+                withCacheLoader(key -> null).
+                withNegativeCaching(60_000).
+                withEntryListener(events::addAll);
+        // Subscription is done in background
+        Thread.sleep(250);
+        assertNull(simpleCache.get("a"));
+        simpleCache.put("b", "B1");
+        waitForEvents(events, 1);
+        // Time to receive an unexpected event of the tombstone
+        Thread.sleep(250);
+        simpleCache.put("a", "A1");
+        waitForEvents(events, 2);
+        simpleCache.close();
+        assertEquals(Collections.singletonList(CacheEntryEvent.Type.CREATED), typesOf(events, "b"));
+        assertEquals(Collections.singletonList(CacheEntryEvent.Type.UPDATED), typesOf(events, "a"));
+    }
+
+    private List<CacheEntryEvent.Type> typesOf(List<CacheEntryEvent> events, String key) {
+        List<CacheEntryEvent.Type> types = new ArrayList<>();
+        for(CacheEntryEvent event: events) {
+            if (event.getKey().equals(key)) {
+                types.add(event.getType());
+            }
+        }
+        return types;
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.CacheEviction;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheEvictionTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache(CacheEviction.Policy policy) {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        listNameKeysToDelete.add(name + CacheEviction.ACCESS_SUFFIX);
+        for(int i = 0; i < 10; i++) {
+            listNameKeysToDelete.add(name + ":k" + i);
+        }
+        return new SimpleCache(jedisPool, name, 60_000).
+                withMaxEntries(5, policy, 60_000);
+    }
+
+    private boolean exists(SimpleCache simpleCache, String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.exists(simpleCache.resolveKey(key));
+        }
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache(CacheEviction.Policy.LRU);
+        for(int i = 0; i < 10; i++) {
+            simpleCache.put("k" + i, "V" + i);
+            Thread.sleep(2);
+        }
+        assertEquals("V0", simpleCache.get("k0"));
+        simpleCache.getEviction().flush();
+        assertEquals(5, simpleCache.size());
+        assertEquals(5, simpleCache.getEviction().getEvictedEntries());
+        assertTrue(exists(simpleCache, "k0"));
+        assertFalse(exists(simpleCache, "k1"));
+        assertFalse(exists(simpleCache, "k5"));
+        assertTrue(exists(simpleCache, "k6"));
+        assertTrue(exists(simpleCache, "k9"));
+        simpleCache.close();
+    }
+
+    @Test
+    public void evictLeastFrequentlyUsedTest() {
+        SimpleCache simpleCache = createNewCache(CacheEviction.Policy.LFU);
+        for(int i = 0; i < 10; i++) {
+            simpleCache.put("k" + i, "V" + i);
+        }
+        for(int i = 0; i < 5; i++) {
+            assertEquals("V" + i, simpleCache.get("k" + i));
+        }
+        simpleCache.getEviction().flush();
+        assertEquals(5, simpleCache.size());
+        for(int i = 0; i < 5; i++) {
+            assertTrue(exists(simpleCache, "k" + i));
+            assertFalse(exists(simpleCache, "k" + (i + 5)));
+        }
+        simpleCache.clear();
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertFalse(jedis.exists(simpleCache.getEviction().getAccessKey()));
+        }
+        simpleCache.close();
+    }
+
+}
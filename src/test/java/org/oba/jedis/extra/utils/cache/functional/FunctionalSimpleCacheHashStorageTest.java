@@ -0,0 +1,122 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.CacheLoader;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheHashStorageTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache() {
+        return createNewCache(3_600_000);
+    }
+
+    SimpleCache createNewCache(long timeOut) {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        listNameKeysToDelete.add(name);
+        return new SimpleCache(jedisPool, name, timeOut).withHashStorage();
+    }
+
+    private boolean isHash(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return "hash".equals(jedis.type(key));
+        }
+    }
+
+    @Test
+    public void putAndGetTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a", "A1");
+        assertEquals("A1", simpleCache.get("a"));
+        assertTrue(isHash(simpleCache.getName()));
+        assertTrue(simpleCache.containsKey("a"));
+        assertFalse(simpleCache.containsKey("b"));
+        assertEquals("A1", simpleCache.getAndPut("a", "A2"));
+        assertEquals("A2", simpleCache.get("a"));
+        assertFalse(simpleCache.putIfAbsent("a", "A3"));
+        assertTrue(simpleCache.putIfAbsent("b", "B1"));
+        assertTrue(simpleCache.replace("b", "B1", "B2"));
+        assertEquals("B2", simpleCache.get("b"));
+        assertEquals(2, simpleCache.size());
+        assertEquals("B2", simpleCache.getAndRemove("b"));
+        assertTrue(simpleCache.remove("a"));
+        assertFalse(simpleCache.remove("a"));
+        assertEquals(0, simpleCache.size());
+    }
+
+    @Test
+    public void expirationTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache(200);
+        simpleCache.put("a", "A1");
+        simpleCache.put("b", "B1", 60_000);
+        assertEquals("A1", simpleCache.get("a"));
+        Thread.sleep(400);
+        assertNull(simpleCache.get("a"));
+        assertEquals("B1", simpleCache.get("b"));
+    }
+
+    @Test
+    public void getAllAndIteratorTest() {
+        SimpleCache simpleCache = createNewCache().withCacheLoader(new CacheLoader() {
+            @Override
+            public String load(String key) {
+                return "L" + key;
+            }
+        });
+        simpleCache.putAll(Map.of("a", "A1", "b", "B1"));
+        Map<String, String> result = simpleCache.getAll(Set.of("a", "b", "c"));
+        assertEquals(Map.of("a", "A1", "b", "B1", "c", "Lc"), result);
+        assertEquals(Map.of("a", "A1", "b", "B1", "c", "Lc"), simpleCache.asMap());
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(simpleCache.keys()));
+        assertEquals(3, simpleCache.asList().size());
+    }
+
+    @Test
+    public void clearTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.putAll(Map.of("a", "A1", "b", "B1"));
+        simpleCache.removeAll(Set.of("a"));
+        assertFalse(simpleCache.containsKey("a"));
+        assertTrue(simpleCache.containsKey("b"));
+        simpleCache.clear();
+        assertFalse(simpleCache.containsKey("b"));
+        assertEquals(0, simpleCache.size());
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertFalse(jedis.exists(simpleCache.getName()));
+        }
+    }
+
+}
@@ -8,10 +8,12 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.oba.jedis.extra.utils.cache.CacheLoader;
 import org.oba.jedis.extra.utils.cache.SimpleCache;
 import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import io.valkey.Jedis;
 import io.valkey.JedisPool;
 import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -105,6 +107,24 @@ public class FunctionalSimpleCacheLoaderTest {
         assertEquals(2, testingCacheLoader.countDataGenerator());
     }
 
+    @Test
+    public void getAllTest() {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a","A1");
+        Set<String> keys = new HashSet<>(Arrays.asList("a","b","c"));
+        Map<String, String> result = simpleCache.getAll(keys);
+        assertEquals(3, result.size());
+        assertEquals("A1", result.get("a"));
+        assertEquals(result.get("b"), simpleCache.get("b"));
+        assertEquals(result.get("c"), simpleCache.get("c"));
+        assertEquals(2, testingCacheLoader.countDataGenerator());
+        assertEquals(1, testingCacheLoader.countLoadAll());
+        try (Jedis jedis = jedisPool.getResource()) {
+            long ttl = jedis.pttl(simpleCache.getName() + ":b");
+            assertTrue(ttl > 0 && ttl <= 3_600_000);
+        }
+    }
+
     @Test
     public void getTest() {
         SimpleCache simpleCache = createNewCache();
@@ -123,6 +143,92 @@ public class FunctionalSimpleCacheLoaderTest {
         assertEquals(0, testingCacheLoader.countDataGenerator());
     }
 
+    @Test
+    public void getWithLoadCoalescingTest() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger(0);
+        CacheLoader slowCacheLoader = key -> {
+            loads.incrementAndGet();
+            doSleep(250);
+            return key + ":loaded";
+        };
+        SimpleCache simpleCache = createNewCache(slowCacheLoader).withLoadCoalescing();
+        List<String> results = concurrentGets(simpleCache, simpleCache, 10);
+        assertEquals(1, loads.get());
+        assertEquals(10, results.size());
+        results.forEach(result -> assertEquals("a:loaded", result));
+    }
+
+    @Test
+    public void getWithDistributedLoadCoalescingTest() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger(0);
+        CacheLoader slowCacheLoader = key -> {
+            loads.incrementAndGet();
+            doSleep(250);
+            return key + ":loaded";
+        };
+        SimpleCache simpleCache1 = createNewCache(slowCacheLoader).withDistributedLoadCoalescing(5_000, 5_000);
+        SimpleCache simpleCache2 = new SimpleCache(jedisPool, simpleCache1.getName(), 3_600_000).
+                withCacheLoader(slowCacheLoader).
+                withDistributedLoadCoalescing(5_000, 5_000);
+        List<String> results = concurrentGets(simpleCache1, simpleCache2, 10);
+        assertEquals(1, loads.get());
+        assertEquals(10, results.size());
+        results.forEach(result -> assertEquals("a:loaded", result));
+    }
+
+    @Test
+    public void getWithDistributedLoadCoalescingOfMissingTest() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger(0);
+        CacheLoader slowCacheLoader = key -> {
+            loads.incrementAndGet();
+            doSleep(250);
+            return null;
+        };
+        SimpleCache simpleCache1 = createNewCache(slowCacheLoader).
+                withNegativeCaching(60_000).
+                withDistributedLoadCoalescing(5_000, 5_000);
+        SimpleCache simpleCache2 = new SimpleCache(jedisPool, simpleCache1.getName(), 3_600_000).
+                withCacheLoader(slowCacheLoader).
+                withNegativeCaching(60_000).
+                withDistributedLoadCoalescing(5_000, 5_000);
+        List<String> results = concurrentGets(simpleCache1, simpleCache2, 10);
+        assertEquals(1, loads.get());
+        assertEquals(10, results.size());
+        results.forEach(result -> assertNull(result));
+    }
+
+    private List<String> concurrentGets(SimpleCache simpleCache1, SimpleCache simpleCache2, int num) throws InterruptedException {
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < num; i++) {
+            SimpleCache simpleCache = i % 2 == 0 ? simpleCache1 : simpleCache2;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(simpleCache.get("a"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for(Thread t: threads) {
+            t.join();
+        }
+        return results;
+    }
+
+    private static void doSleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Test(expected = IllegalStateException.class)
     public void getWithErrorTest() {
         testingCacheLoader.doNextError();
@@ -139,6 +245,8 @@ public class FunctionalSimpleCacheLoaderTest {
 
         private final AtomicInteger dataGenerated = new AtomicInteger(0);
 
+        private final AtomicInteger loadAllCalls = new AtomicInteger(0);
+
 
 
         public void doNextError() {
@@ -149,6 +257,10 @@ public class FunctionalSimpleCacheLoaderTest {
             return dataGenerated.get();
         }
 
+        public int countLoadAll() {
+            return loadAllCalls.get();
+        }
+
         @Override
         public String load(String key) {
             doWait();
@@ -168,6 +280,7 @@ public class FunctionalSimpleCacheLoaderTest {
 
         @Override
         public Map<String, String> loadAll(Iterable<String> keys) {
+            loadAllCalls.incrementAndGet();
             Map<String, String> results = new HashMap<>();
             keys.forEach( key -> results.put(key, load(key)));
             return results;
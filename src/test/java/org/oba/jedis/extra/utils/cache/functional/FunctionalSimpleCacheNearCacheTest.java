@@ -0,0 +1,116 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheNearCacheTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    private final List<SimpleCache> caches = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        caches.forEach(SimpleCache::close);
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache(String name) {
+        listNameKeysToDelete.add(name);
+        SimpleCache simpleCache = new SimpleCache(jedisPool, name, 3_600_000).
+                withNearCache(100, 60_000);
+        caches.add(simpleCache);
+        return simpleCache;
+    }
+
+    private String newName() {
+        return "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+    }
+
+    private void jedisSet(String key, String value) {
+        try(Jedis jedis = jedisPool.getResource()){
+            jedis.set(key, value);
+        }
+    }
+
+    private void doWait(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void getFromNearCacheTest() {
+        SimpleCache simpleCache = createNewCache(newName());
+        simpleCache.put("a", "A1");
+        assertEquals("A1", simpleCache.get("a"));
+        // Changed outside the cache, the local copy is still served
+        jedisSet(simpleCache.getName() + ":a", "A2");
+        assertEquals("A1", simpleCache.get("a"));
+        assertEquals(1, simpleCache.getNearCache().getHitCount());
+        assertTrue(simpleCache.getNearCache().getHitRatio() > 0.0);
+    }
+
+    @Test
+    public void invalidationFromOtherInstanceTest() {
+        String name = newName();
+        SimpleCache simpleCache1 = createNewCache(name);
+        SimpleCache simpleCache2 = createNewCache(name);
+        doWait(250);
+        simpleCache1.put("a", "A1");
+        assertEquals("A1", simpleCache2.get("a"));
+        assertEquals("A1", simpleCache2.get("a"));
+        simpleCache1.put("a", "A2");
+        doWait(250);
+        assertEquals("A2", simpleCache2.get("a"));
+        simpleCache1.remove("a");
+        doWait(250);
+        assertNull(simpleCache2.get("a"));
+    }
+
+    @Test
+    public void clearFromOtherInstanceTest() {
+        String name = newName();
+        SimpleCache simpleCache1 = createNewCache(name);
+        SimpleCache simpleCache2 = createNewCache(name);
+        doWait(250);
+        simpleCache1.putAll(Map.of("a", "A1", "b", "B1"));
+        Map<String, String> result = simpleCache2.getAll(Set.of("a", "b"));
+        assertEquals(2, result.size());
+        assertEquals(2, simpleCache2.getNearCache().size());
+        simpleCache1.clear();
+        doWait(250);
+        assertEquals(0, simpleCache2.getNearCache().size());
+        assertTrue(simpleCache2.getAll(Set.of("a", "b")).isEmpty());
+    }
+
+}
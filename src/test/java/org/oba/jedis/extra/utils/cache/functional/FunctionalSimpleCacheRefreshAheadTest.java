@@ -0,0 +1,112 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.CacheLoader;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheRefreshAheadTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private final AtomicInteger loads = new AtomicInteger(0);
+
+    private final CacheLoader countingLoader = key -> key.toUpperCase() + loads.incrementAndGet();
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache() {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        listNameKeysToDelete.add(name + ":a");
+        listNameKeysToDelete.add(name + ":b");
+        return new SimpleCache(jedisPool, name, 2_000).
+                withCacheLoader(countingLoader).
+                withRefreshAhead(1_500, 2, 10);
+    }
+
+    private long pttl(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.pttl(key);
+        }
+    }
+
+    private void waitForRefreshes(SimpleCache simpleCache) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 1_000;
+        while (simpleCache.getRefreshAhead().getPendingRefreshes() > 0 && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void notRefreshedOutOfWindowTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a", "A0");
+        assertEquals("A0", simpleCache.get("a"));
+        waitForRefreshes(simpleCache);
+        assertEquals(0, loads.get());
+        assertEquals(0, simpleCache.getRefreshAhead().getRefreshCount());
+        simpleCache.close();
+    }
+
+    @Test
+    public void refreshedInWindowTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a", "A0");
+        Thread.sleep(700);
+        assertEquals("A0", simpleCache.get("a"));
+        assertEquals("A0", simpleCache.get("a"));
+        waitForRefreshes(simpleCache);
+        assertEquals(1, loads.get());
+        assertEquals(1, simpleCache.getRefreshAhead().getRefreshCount());
+        assertTrue(pttl(simpleCache.resolveKey("a")) > 1_500);
+        assertEquals("A1", simpleCache.get("a"));
+        simpleCache.close();
+    }
+
+    @Test
+    public void refreshedInWindowGetAllTest() throws InterruptedException {
+        SimpleCache simpleCache = createNewCache();
+        simpleCache.put("a", "A0");
+        Thread.sleep(700);
+        simpleCache.put("b", "B0");
+        Map<String, String> result = simpleCache.getAll(new HashSet<>(Arrays.asList("a", "b")));
+        assertEquals("A0", result.get("a"));
+        assertEquals("B0", result.get("b"));
+        waitForRefreshes(simpleCache);
+        assertEquals(1, loads.get());
+        assertEquals("A1", simpleCache.get("a"));
+        assertEquals("B0", simpleCache.get("b"));
+        simpleCache.close();
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.Jedis;
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+import org.oba.jedis.extra.utils.test.WithJedisPoolDelete;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalSimpleCacheSnapshotTest {
+
+    private static final List<String> listNameKeysToDelete = new ArrayList<>();
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        if (jedisPool != null) {
+            WithJedisPoolDelete.doDelete(jedisPool, listNameKeysToDelete);
+            jedisPool.close();
+        }
+    }
+
+    SimpleCache createNewCache() {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        for(int i = 0; i < 1_500; i++) {
+            listNameKeysToDelete.add(name + ":k" + i);
+        }
+        return new SimpleCache(jedisPool, name, 60_000).
+                withCompression(100);
+    }
+
+    @Test
+    public void exportAndWarmUpTest() throws IOException {
+        Path file = Files.createTempFile("cacheSnapshot", ".bin");
+        try {
+            SimpleCache simpleCache = createNewCache();
+            Map<String, String> data = new HashMap<>();
+            for(int i = 0; i < 1_500; i++) {
+                data.put("k" + i, i % 100 == 0 ? "BIG".repeat(100) + i : "V" + i);
+            }
+            simpleCache.putAll(data);
+            simpleCache.put("k0", "V0", 5_000);
+            data.put("k0", "V0");
+            assertEquals(1_500, simpleCache.exportSnapshot(file));
+            simpleCache.clear();
+            assertEquals(0, simpleCache.size());
+            assertEquals(1_500, simpleCache.warmUp(file));
+            assertEquals(1_500, simpleCache.size());
+            assertEquals(data, simpleCache.getAll(data.keySet()));
+            try (Jedis jedis = jedisPool.getResource()) {
+                long ttl = jedis.pttl(simpleCache.resolveKey("k0"));
+                assertTrue(ttl > 0 && ttl <= 5_000);
+                assertTrue(jedis.pttl(simpleCache.resolveKey("k1")) > 5_000);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
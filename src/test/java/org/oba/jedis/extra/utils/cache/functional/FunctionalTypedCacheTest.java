@@ -0,0 +1,176 @@
+package org.oba.jedis.extra.utils.cache.functional;
+
+import io.valkey.JedisPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.oba.jedis.extra.utils.cache.CacheCodec;
+import org.oba.jedis.extra.utils.cache.TypedCache;
+import org.oba.jedis.extra.utils.cache.TypedCacheLoader;
+import org.oba.jedis.extra.utils.cache.TypedCacheWriter;
+import org.oba.jedis.extra.utils.test.JedisTestFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FunctionalTypedCacheTest {
+
+    private static final CacheCodec<Long> LONG_CODEC = new CacheCodec<>() {
+        @Override
+        public byte[] encode(Long data) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(data).array();
+        }
+
+        @Override
+        public Long decode(byte[] data) {
+            return ByteBuffer.wrap(data).getLong();
+        }
+    };
+
+    private final JedisTestFactory jtfTest = JedisTestFactory.get();
+
+    private JedisPool jedisPool;
+
+    private final List<TypedCache<?, ?>> caches = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        org.junit.Assume.assumeTrue(jtfTest.functionalTestEnabled());
+        if (!jtfTest.functionalTestEnabled()) return;
+        jedisPool = jtfTest.createJedisPool();
+    }
+
+    @After
+    public void tearDown() {
+        caches.forEach(TypedCache::clear);
+        if (jedisPool != null) {
+            jedisPool.close();
+        }
+    }
+
+    <K, V> TypedCache<K, V> createNewCache(CacheCodec<K> keyCodec, CacheCodec<V> valueCodec) {
+        String name = "cache:" + this.getClass().getName() + ":" + System.currentTimeMillis();
+        TypedCache<K, V> typedCache = new TypedCache<>(jedisPool, name, 3_600_000, keyCodec, valueCodec);
+        caches.add(typedCache);
+        return typedCache;
+    }
+
+    @Test
+    public void putAndGetTest() {
+        TypedCache<Long, String> typedCache = createNewCache(LONG_CODEC, CacheCodec.stringCodec());
+        typedCache.put(1L, "A1");
+        typedCache.put(2L, "B1");
+        assertEquals("A1", typedCache.get(1L));
+        assertEquals("B1", typedCache.get(2L));
+        assertNull(typedCache.get(3L));
+        assertTrue(typedCache.containsKey(1L));
+        assertFalse(typedCache.containsKey(3L));
+        assertEquals("A1", typedCache.getAndPut(1L, "A2"));
+        assertEquals("A2", typedCache.get(1L));
+        assertFalse(typedCache.putIfAbsent(1L, "A3"));
+        assertTrue(typedCache.putIfAbsent(3L, "C1"));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L)), typedCache.keys());
+    }
+
+    @Test
+    public void binaryValuesTest() {
+        TypedCache<String, byte[]> typedCache = createNewCache(CacheCodec.stringCodec(), CacheCodec.bytesCodec());
+        byte[] data = new byte[]{0, 1, 2, (byte) 0xFE, (byte) 0xFF};
+        typedCache.put("a", data);
+        assertArrayEquals(data, typedCache.get("a"));
+        assertArrayEquals(data, typedCache.getAndRemove("a"));
+        assertNull(typedCache.get("a"));
+    }
+
+    @Test
+    public void getAllWithLoaderTest() {
+        AtomicInteger loadAllCalls = new AtomicInteger();
+        TypedCacheLoader<Long, String> cacheLoader = new TypedCacheLoader<>() {
+            @Override
+            public String load(Long key) {
+                return "L" + key;
+            }
+
+            @Override
+            public Map<Long, String> loadAll(Iterable<Long> keys) {
+                loadAllCalls.incrementAndGet();
+                return TypedCacheLoader.super.loadAll(keys);
+            }
+        };
+        TypedCache<Long, String> typedCache = createNewCache(LONG_CODEC, CacheCodec.stringCodec()).
+                withCacheLoader(cacheLoader);
+        typedCache.put(1L, "A1");
+        Map<Long, String> result = typedCache.getAll(new HashSet<>(Arrays.asList(1L, 2L, 3L)));
+        assertEquals(3, result.size());
+        assertEquals("A1", result.get(1L));
+        assertEquals("L2", result.get(2L));
+        assertEquals("L3", result.get(3L));
+        assertEquals(1, loadAllCalls.get());
+        assertEquals("L2", typedCache.get(2L, null));
+        assertEquals("L4", typedCache.get(4L));
+        assertTrue(typedCache.containsKey(4L));
+    }
+
+    @Test
+    public void writerTest() {
+        Map<Long, String> external = new HashMap<>();
+        TypedCacheWriter<Long, String> cacheWriter = new TypedCacheWriter<>() {
+            @Override
+            public void write(Long key, String value) {
+                external.put(key, value);
+            }
+
+            @Override
+            public void delete(Long key) {
+                external.remove(key);
+            }
+        };
+        TypedCache<Long, String> typedCache = createNewCache(LONG_CODEC, CacheCodec.stringCodec()).
+                withCacheWriter(cacheWriter);
+        Map<Long, String> data = new HashMap<>();
+        data.put(1L, "A1");
+        data.put(2L, "B1");
+        data.put(3L, "C1");
+        typedCache.putAll(data);
+        assertEquals(data, external);
+        assertTrue(typedCache.remove(1L));
+        assertFalse(typedCache.remove(1L));
+        assertFalse(external.containsKey(1L));
+        typedCache.clear();
+        assertFalse(typedCache.containsKey(2L));
+        assertEquals(2, external.size());
+        typedCache.put(4L, "D1");
+        typedCache.removeAll();
+        assertTrue(typedCache.keys().isEmpty());
+        assertEquals(2, external.size());
+        assertFalse(external.containsKey(4L));
+    }
+
+    @Test
+    public void conditionalAndIteratorTest() {
+        TypedCache<String, byte[]> typedCache = createNewCache(CacheCodec.stringCodec(), CacheCodec.bytesCodec());
+        byte[] data = new byte[]{(byte) 0xEF, (byte) 0xBF, (byte) 0xBF, 0, 1};
+        byte[] newData = new byte[]{2, 3};
+        typedCache.put("a", data);
+        assertFalse(typedCache.replace("a", newData, data));
+        assertTrue(typedCache.replace("a", data, newData));
+        assertArrayEquals(newData, typedCache.getAndReplace("a", data));
+        assertNull(typedCache.getAndReplace("b", data));
+        assertFalse(typedCache.remove("a", newData));
+        for(int i = 0; i < 120; i++) {
+            typedCache.put("k" + i, newData);
+        }
+        Set<String> iterated = new HashSet<>();
+        typedCache.forEach(entry -> iterated.add(entry.getKey()));
+        assertEquals(121, iterated.size());
+        assertTrue(typedCache.remove("a", data));
+        assertFalse(typedCache.containsKey("a"));
+    }
+
+}
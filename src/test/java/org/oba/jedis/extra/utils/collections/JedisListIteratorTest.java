@@ -4,6 +4,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
@@ -164,6 +166,33 @@ public class JedisListIteratorTest {
         assertTrue( check.containsAll(jedisList) );
     }
 
+    @Test
+    public void listIteratorWindowTest() {
+        List<String> data = new ArrayList<>();
+        for(int i = 0; i < JedisList.ITERATOR_WINDOW_SIZE * 2 + 7; i++) {
+            data.add("value" + i);
+        }
+        JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName, data);
+        List<String> check = new ArrayList<>();
+        Iterator<String> it = jedisList.iterator();
+        while(it.hasNext()) {
+            check.add(it.next());
+        }
+        assertEquals(data, check);
+        Mockito.verify(mockOfJedisForList.getJedis(), Mockito.times(3)).lrange(ArgumentMatchers.eq(listName),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong());
+        Mockito.verify(mockOfJedisForList.getJedis(), Mockito.never()).lindex(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyLong());
+        ListIterator<String> listIterator = jedisList.listIterator(JedisList.ITERATOR_WINDOW_SIZE + 1);
+        assertEquals("value" + (JedisList.ITERATOR_WINDOW_SIZE + 1), listIterator.next());
+        assertEquals("value" + (JedisList.ITERATOR_WINDOW_SIZE + 1), listIterator.previous());
+        assertEquals("value" + JedisList.ITERATOR_WINDOW_SIZE, listIterator.previous());
+        assertEquals("value" + (JedisList.ITERATOR_WINDOW_SIZE - 1), listIterator.previous());
+        listIterator.set("changed");
+        assertEquals("changed", listIterator.next());
+        assertEquals("changed", jedisList.get(JedisList.ITERATOR_WINDOW_SIZE - 1));
+    }
+
     @Test(expected = IndexOutOfBoundsException.class)
     public void listIteratorRemoveOneTestError() {
         JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName);
@@ -5,14 +5,22 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(PowerMockRunner.class)
@@ -47,6 +55,44 @@ public class JedisListStreamTest {
         assertEquals("abcde", sb.toString());
     }
 
+    @Test
+    public void forEachWindowTest() {
+        List<String> data = new ArrayList<>();
+        for(int i = 0; i < JedisList.ITERATOR_WINDOW_SIZE * 3; i++) {
+            data.add("value" + i);
+        }
+        JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName, data);
+        List<String> check = new ArrayList<>();
+        jedisList.forEach(check::add);
+        assertEquals(data, check);
+        // The last call finds no more elements
+        Mockito.verify(mockOfJedisForList.getJedis(), Mockito.times(4)).lrange(ArgumentMatchers.eq(listName),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong());
+        assertEquals(data.size(), jedisList.stream().count());
+    }
+
+    @Test
+    public void spliteratorTest() {
+        List<String> data = new ArrayList<>();
+        for(int i = 0; i < JedisList.ITERATOR_WINDOW_SIZE * 4 + 3; i++) {
+            data.add("value" + i);
+        }
+        JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName, data);
+        Spliterator<String> suffix = jedisList.spliterator();
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertEquals(data.size(), suffix.getExactSizeIfKnown());
+        Spliterator<String> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertEquals(data.size(), prefix.estimateSize() + suffix.estimateSize());
+        List<String> check = new ArrayList<>();
+        assertTrue(prefix.tryAdvance(check::add));
+        assertNull(prefix.trySplit());
+        prefix.forEachRemaining(check::add);
+        suffix.forEachRemaining(check::add);
+        assertEquals(data, check);
+        assertEquals(data, jedisList.parallelStream().collect(Collectors.toList()));
+    }
+
     @Test
     public void streamForEachTest() {
         StringBuilder sb = new StringBuilder();
@@ -4,6 +4,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
@@ -11,6 +13,7 @@ import io.valkey.TransactionBase;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -164,6 +167,15 @@ public class JedisListTest {
         assertEquals(-1, jedisList.lastIndexOf("C"));
     }
 
+    @Test
+    public void containsAllTest(){
+        JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName);
+        jedisList.addAll(Arrays.asList("a", "b", "c", "a", "d"));
+        assertTrue(jedisList.containsAll(Arrays.asList("d", "a", "a")));
+        assertTrue(jedisList.containsAll(Collections.emptyList()));
+        assertFalse(jedisList.containsAll(Arrays.asList("a", "C")));
+    }
+
     @Test
     public void addAllTest() {
         JedisList jedisList = createABCList();
@@ -181,6 +193,52 @@ public class JedisListTest {
         }
     }
 
+    @Test
+    public void addAtIndexWithDuplicatesTest() {
+        JedisList jedisList = new JedisList(mockOfJedisForList.getJedisPool(), listName);
+        jedisList.addAll(Arrays.asList("a", "b", "a", "b"));
+        jedisList.add(3, "X");
+        jedisList.add(5, "Y");
+        jedisList.addAll(0, Arrays.asList("C", "D"));
+        assertEquals(Arrays.asList("C", "D", "a", "b", "a", "X", "b", "Y"), jedisList.asList());
+        assertFalse(jedisList.addAll(8, Collections.emptyList()));
+        assertEquals("X", jedisList.remove(5));
+        assertEquals("Y", jedisList.remove(6));
+        assertEquals(Arrays.asList("C", "D", "a", "b", "a", "b"), jedisList.asList());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void addAtIndexErrorTest() {
+        JedisList jedisList = createABCList();
+        jedisList.addAll(4, Arrays.asList("A", "B"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeAtIndexErrorTest() {
+        JedisList jedisList = createABCList();
+        jedisList.remove(3);
+    }
+
+    @Test
+    public void indexErrorFromScriptTest() {
+        JedisList jedisList = createABCList();
+        try {
+            jedisList.add(5, "X");
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(e.getMessage().contains("list size 3"));
+        }
+        try {
+            jedisList.remove(-1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(e.getMessage().contains("list size 3"));
+        }
+        // The length is given by the script, without a second read
+        Mockito.verify(mockOfJedisForList.getJedis(), Mockito.times(0)).llen(ArgumentMatchers.anyString());
+        assertEquals(Arrays.asList("a", "b", "c"), jedisList.asList());
+    }
+
     @Test
     public void removeAllTest() {
         JedisList jedisList = createABCList();
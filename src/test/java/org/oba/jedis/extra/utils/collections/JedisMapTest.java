@@ -4,6 +4,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
@@ -11,9 +13,12 @@ import io.valkey.TransactionBase;
 
 import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -147,6 +152,42 @@ public class JedisMapTest {
         assertEquals("97", jedisMap.get("x"));
     }
 
+    @Test
+    public void testFastPutRemove() {
+        JedisMap jedisMap = createABCMap();
+        assertTrue(jedisMap.fastPut("d","4"));
+        assertFalse(jedisMap.fastPut("a","11"));
+        assertEquals("11", jedisMap.get("a"));
+        assertEquals("4", jedisMap.get("d"));
+        assertEquals(2L, jedisMap.fastRemove("a", "d", "x"));
+        assertEquals(0L, jedisMap.fastRemove());
+        assertNull(jedisMap.get("a"));
+        assertEquals(2, jedisMap.size());
+        Mockito.verify(mockOfJedisForMap.getJedis(), Mockito.never()).multi();
+    }
+
+    @Test
+    public void testPutAllFast() {
+        Map<String, String> extra = new HashMap<>();
+        for(int i = 0; i < 5; i++) {
+            extra.put("x" + i, "9" + i);
+        }
+        extra.put("a", "11");
+        JedisMap jedisMap = createABCMap().withBatchSize(2);
+        assertEquals(5L, jedisMap.putAllFast(extra));
+        assertEquals(8, jedisMap.size());
+        assertEquals("11", jedisMap.get("a"));
+        assertEquals("94", jedisMap.get("x4"));
+        Mockito.verify(mockOfJedisForMap.getJedis().pipelined(), Mockito.times(3)).
+                hset(ArgumentMatchers.anyString(), ArgumentMatchers.<Map<String, String>>any());
+        assertEquals(0L, jedisMap.putAllFast(new HashMap<>()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchSizeError() {
+        new JedisMap(mockOfJedisForMap.getJedisPool(), mapName).withBatchSize(0);
+    }
+
     @Test
     public void testEntrySet() {
         JedisMap jedisMap = createABCMap();
@@ -175,6 +216,49 @@ public class JedisMapTest {
         assertTrue(keys.isEmpty());
     }
 
+    @Test
+    public void testLiveViews() {
+        JedisMap jedisMap = createABCMap();
+        Set<String> keys = jedisMap.keySet();
+        Collection<String> values = jedisMap.values();
+        Set<Map.Entry<String, String>> entries = jedisMap.entrySet();
+        jedisMap.fastPut("d", "4");
+        assertEquals(4, keys.size());
+        assertTrue(keys.contains("d"));
+        assertTrue(values.contains("4"));
+        assertTrue(jedisMap.containsValue("4"));
+        assertFalse(jedisMap.containsValue("5"));
+        assertEquals("abcd", keys.stream().sorted().collect(Collectors.joining()));
+        assertEquals(10, values.parallelStream().mapToInt(Integer::parseInt).sum());
+        assertTrue(keys.remove("d"));
+        assertFalse(jedisMap.containsKey("d"));
+        assertFalse(entries.remove(new AbstractMap.SimpleImmutableEntry<>("a","2")));
+        assertTrue(entries.remove(new AbstractMap.SimpleImmutableEntry<>("a","1")));
+        assertFalse(jedisMap.containsKey("a"));
+        Iterator<String> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            if ("b".equals(iterator.next())) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Collections.singletonMap("c", "3"), jedisMap.asMap());
+        Mockito.verify(mockOfJedisForMap.getJedis(), Mockito.atLeastOnce()).hlen(mapName);
+    }
+
+    @Test
+    public void testRemoveIfEquals() {
+        JedisMap jedisMap = createABCMap();
+        assertFalse(jedisMap.remove("a", "2"));
+        assertFalse(jedisMap.remove("x", "1"));
+        assertTrue(jedisMap.containsKey("a"));
+        assertTrue(jedisMap.remove("a", "1"));
+        assertFalse(jedisMap.containsKey("a"));
+        assertTrue(jedisMap.entrySet().remove(new AbstractMap.SimpleImmutableEntry<>("b","2")));
+        assertFalse(jedisMap.containsKey("b"));
+        Mockito.verify(mockOfJedisForMap.getJedis(), Mockito.times(0)).hget(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        Mockito.verify(mockOfJedisForMap.getJedis(), Mockito.times(0)).hdel(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+    }
+
     @Test
     public void testValues() {
         JedisMap jedisMap = createABCMap();
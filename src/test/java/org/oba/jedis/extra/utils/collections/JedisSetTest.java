@@ -4,12 +4,16 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -152,5 +156,50 @@ public class JedisSetTest {
         assertTrue(result1);
         boolean result2 = jedisSet.retainAll(Arrays.asList("a", "b", "c", "x", "y"));
         assertFalse(result2);
+        assertTrue(jedisSet.retainAll(Collections.emptyList()));
+        assertTrue(jedisSet.isEmpty());
+    }
+
+    @Test
+    public void testBatches() {
+        JedisSet jedisSet = new JedisSet(mockOfJedisForSet.getJedisPool(), setName).withBatchSize(2);
+        jedisSet.addAll(Arrays.asList("a", "b", "c", "d", "e", "f", "g"));
+        assertTrue(jedisSet.containsAll(Arrays.asList("a", "b", "c", "d", "e")));
+        assertFalse(jedisSet.containsAll(Arrays.asList("x", "a", "b", "c", "d")));
+        assertTrue(jedisSet.containsAll(Collections.emptyList()));
+        Mockito.verify(mockOfJedisForSet.getJedis(), Mockito.times(4)).
+                smismember(ArgumentMatchers.eq(setName), ArgumentMatchers.<String>any());
+        Mockito.verify(mockOfJedisForSet.getJedis(), Mockito.never()).
+                sismember(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        assertTrue(jedisSet.removeAll(Arrays.asList("a", "b", "c", "x", "y")));
+        assertEquals(4, jedisSet.size());
+        assertFalse(jedisSet.removeAll(Collections.emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchSizeError() {
+        new JedisSet(mockOfJedisForSet.getJedisPool(), setName).withBatchSize(0);
+    }
+
+    @Test
+    public void testSetOperations() {
+        JedisSet jedisSet1 = new JedisSet(mockOfJedisForSet.getJedisPool(), setName + ":1");
+        jedisSet1.addAll(Arrays.asList("a", "b", "c", "d"));
+        JedisSet jedisSet2 = new JedisSet(mockOfJedisForSet.getJedisPool(), setName + ":2");
+        jedisSet2.addAll(Arrays.asList("c", "d", "e"));
+        JedisSet jedisSet3 = new JedisSet(mockOfJedisForSet.getJedisPool(), setName + ":3");
+        jedisSet3.addAll(Arrays.asList("d", "f"));
+        JedisSet union = jedisSet1.unionWith(setName + ":union", jedisSet2, jedisSet3);
+        assertEquals(setName + ":union", union.getName());
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e", "f")), union.asSet());
+        JedisSet intersection = jedisSet1.intersectWith(setName + ":inter", jedisSet2);
+        assertEquals(new HashSet<>(Arrays.asList("c", "d")), intersection.asSet());
+        JedisSet difference = jedisSet1.differenceWith(setName + ":diff", jedisSet2, jedisSet3);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), difference.asSet());
+        assertEquals(1L, jedisSet1.intersectionSize(jedisSet2, jedisSet3));
+        assertEquals(2L, jedisSet1.intersectionSize(jedisSet2));
+        assertEquals(1L, jedisSet1.intersectionSize(1, jedisSet2));
+        Mockito.verify(mockOfJedisForSet.getJedis(), Mockito.never()).
+                sscan(ArgumentMatchers.eq(setName + ":1"), ArgumentMatchers.anyString(), ArgumentMatchers.any());
     }
 }
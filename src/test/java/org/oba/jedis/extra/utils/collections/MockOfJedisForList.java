@@ -11,14 +11,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
+import io.valkey.Pipeline;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
+import io.valkey.params.LPosParams;
 import io.valkey.params.SetParams;
 
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.oba.jedis.extra.utils.test.TestingUtils.extractPrivateValue;
 import static org.oba.jedis.extra.utils.test.TestingUtils.extractSetParamsExpireTimePX;
 import static org.oba.jedis.extra.utils.test.TestingUtils.isSetParamsNX;
 
@@ -34,12 +37,10 @@ public class MockOfJedisForList {
 
     private final Jedis jedis;
     private final JedisPool jedisPool;
+    private final Map<String, String> scriptsBySha1 = new HashMap<>();
     private final Map<String, Object> data = Collections.synchronizedMap(new HashMap<>());
     private final Timer timer;
 
-    private String sha1IndexOf = "x";
-    private String sha1LastIndexOf = "y";
-
     public MockOfJedisForList() {
         PowerMockito.suppress(MemberMatcher.methodsDeclaredIn(TransactionBase.class));
 
@@ -52,6 +53,8 @@ public class MockOfJedisForList {
         Transaction transaction = PowerMockito.mock(Transaction.class);
 
         when(jedis.multi()).thenReturn(transaction);
+        Pipeline pipeline = Mockito.mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
         when(jedis.exists(anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             return mockExists(key);
@@ -128,12 +131,21 @@ public class MockOfJedisForList {
             List<String> args = ioc.getArgument(2, List.class);
             return mockEvalSha(sha1, keys, args);
         });
-        Mockito.when(jedis.eval(anyString(),any(List.class), any(List.class))).thenAnswer(ioc -> {
-            String script = ioc.getArgument(0);
-            String sha1 = ScriptEvalSha1.sha1(script);
-            List<String> keys = ioc.getArgument(1);
-            List<String> values = ioc.getArgument(2);
-            return mockEvalSha(sha1, keys, values);
+        when(jedis.lpos(anyString(), anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            String element = ioc.getArgument(1);
+            return mockListLpos(key, element, null);
+        });
+        when(jedis.lpos(anyString(), anyString(), any(LPosParams.class))).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            String element = ioc.getArgument(1);
+            LPosParams params = ioc.getArgument(2);
+            return mockListLpos(key, element, params);
+        });
+        when(pipeline.lpos(anyString(), anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            String element = ioc.getArgument(1);
+            return TransactionOrder.quickReponseExecuted(mockListLpos(key, element, null));
         });
         when(transaction.lindex(anyString(), anyLong())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
@@ -248,7 +260,14 @@ public class MockOfJedisForList {
         if (from == 0 && to == -1) {
             return data;
         } else {
-            return new ArrayList<>(data.subList(Long.valueOf(from).intValue() , Long.valueOf(to + 1).intValue()));
+            // Like redis, negative indexes count from the end and out of range indexes are limited
+            int size = data.size();
+            int start = (int) Math.max(0, from < 0 ? size + from : from);
+            int end = (int) Math.min(size - 1, to < 0 ? size + to : to);
+            if (start > end) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(data.subList(start, end + 1));
         }
     }
 
@@ -306,25 +325,47 @@ public class MockOfJedisForList {
 
     synchronized String mockScriptLoad(String script) {
         String sha1 = ScriptEvalSha1.sha1(script);
-        if (script.contains(" indexOf")) {
-            sha1IndexOf = sha1;
-        }
-        if (script.contains(" lastIndexOf")) {
-            sha1LastIndexOf = sha1;
+        if (script.contains("insertAt")) {
+            scriptsBySha1.put(sha1, "insertAt");
+        } else if (script.contains("removeAt")) {
+            scriptsBySha1.put(sha1, "removeAt");
         }
         return sha1;
     }
 
-    synchronized Object mockEvalSha(String sha1, List<String> keys, List<String> values) {
-        Object response = null;
-       if (sha1.equalsIgnoreCase(sha1IndexOf)) {
-            ArrayList<String> data = dataToList(keys.get(0));
-            response = (long)data.indexOf(values.get(0));
-        } else if (sha1.equalsIgnoreCase(sha1LastIndexOf)) {
-            ArrayList<String> data = dataToList(keys.get(0));
-            response = (long)data.lastIndexOf(values.get(0));
+    synchronized Object mockEvalSha(String sha1, List<String> keys, List<String> args) {
+        String script = scriptsBySha1.get(sha1);
+        if ("insertAt".equals(script)) {
+            return mockListInsertAt(keys.get(0), Integer.parseInt(args.get(0)), args.subList(1, args.size()));
+        } else if ("removeAt".equals(script)) {
+            return mockListRemoveAt(keys.get(0), Integer.parseInt(args.get(0)));
+        } else {
+            throw new IllegalStateException("MockOfJedis script not found " + sha1);
         }
-        return response;
+    }
+
+    synchronized Long mockListInsertAt(String key, int index, List<String> elements) {
+        if (index < 0 || index > dataToList(key).size()) {
+            return -1L - dataToList(key).size();
+        }
+        ArrayList<String> list = dataToList(key, true);
+        list.addAll(index, elements);
+        return (long) list.size();
+    }
+
+    synchronized Object mockListRemoveAt(String key, int index) {
+        ArrayList<String> list = dataToList(key);
+        if (index < 0 || index >= list.size()) {
+            return Collections.singletonList((long) list.size());
+        }
+        return list.remove(index);
+    }
+
+    synchronized Long mockListLpos(String key, String element, LPosParams params) {
+        ArrayList<String> data = dataToList(key);
+        Integer rank = params != null ? extractPrivateValue("rank", LPosParams.class, params, Integer.class) : null;
+        int pos = rank != null && rank < 0 ? data.lastIndexOf(element) : data.indexOf(element);
+        return pos >= 0 ? Long.valueOf(pos) : null;
     }
 
     private Object mockTransactionExec() {
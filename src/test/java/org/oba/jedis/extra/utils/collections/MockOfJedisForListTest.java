@@ -9,11 +9,11 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
+import io.valkey.params.LPosParams;
 import io.valkey.params.SetParams;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -186,14 +186,11 @@ public class MockOfJedisForListTest {
     }
 
     @Test
-    public void testMockEval() {
-        String sha1IndexOf = mockOfJedis.mockScriptLoad("mock indexOf");
-        String sha1LastIndexOf = mockOfJedis.mockScriptLoad("mock lastIndexOf");
+    public void testMockListLpos() {
         mockOfJedis.put("data1", new ArrayList<>(Arrays.asList("a","b","c","d","b")));
-        Object result1 = mockOfJedis.mockEvalSha(sha1IndexOf, Collections.singletonList("data1"), Collections.singletonList("b"));
-        Object result2 = mockOfJedis.mockEvalSha(sha1LastIndexOf, Collections.singletonList("data1"), Collections.singletonList("b"));
-        assertEquals(Long.valueOf(1), (Long) result1);
-        assertEquals(Long.valueOf(4), (Long) result2);
+        assertEquals(Long.valueOf(1), mockOfJedis.mockListLpos("data1", "b", null));
+        assertEquals(Long.valueOf(4), mockOfJedis.mockListLpos("data1", "b", LPosParams.lPosParams().rank(-1)));
+        assertNull(mockOfJedis.mockListLpos("data1", "x", null));
     }
 
     @Test
@@ -2,12 +2,14 @@ package org.oba.jedis.extra.utils.collections;
 
 import org.mockito.Mockito;
 import org.oba.jedis.extra.utils.test.TransactionOrder;
+import org.oba.jedis.extra.utils.utils.ScriptEvalSha1;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.api.support.membermodification.MemberMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.valkey.Jedis;
 import io.valkey.JedisPool;
+import io.valkey.Pipeline;
 import io.valkey.Response;
 import io.valkey.Transaction;
 import io.valkey.TransactionBase;
@@ -33,6 +35,7 @@ public class MockOfJedisForMap {
     private final JedisPool jedisPool;
 
     private final Map<String, Object> data = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, String> scriptsBySha1 = new HashMap<>();
     private final Timer timer;
 
     public MockOfJedisForMap() {
@@ -47,6 +50,8 @@ public class MockOfJedisForMap {
         Transaction transaction = PowerMockito.mock(Transaction.class);
 
         when(jedis.multi()).thenReturn(transaction);
+        Pipeline pipeline = Mockito.mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
         when(jedis.exists(anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             return mockExists(key);
@@ -70,10 +75,18 @@ public class MockOfJedisForMap {
             String value = ioc.getArgument(2);
             return mockHset(key, name, value);
         });
-        when(jedis.hdel(anyString(), anyString())).thenAnswer(ioc -> {
+        when(jedis.hset(anyString(), any(Map.class))).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
-            String name = ioc.getArgument(1);
-            return mockHdel(key, name);
+            Map<String, String> values = ioc.getArgument(1);
+            return mockHsetAll(key, values);
+        });
+        when(jedis.hdel(anyString(), any())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            long deleted = 0L;
+            for(int i = 1; i < ioc.getArguments().length; i++) {
+                deleted += mockHdel(key, ioc.getArgument(i));
+            }
+            return deleted;
         });
         when(jedis.hexists(anyString(), anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
@@ -92,6 +105,16 @@ public class MockOfJedisForMap {
             ScanParams scanParams = new ScanParams();
             return mockHscan(key, cursor, scanParams);
         });
+        PowerMockito.when(jedis.scriptLoad(anyString())).thenAnswer(ioc -> {
+            String script = ioc.getArgument(0, String.class);
+            return mockScriptLoad(script);
+        });
+        PowerMockito.when(jedis.evalsha(anyString(), any(List.class), any(List.class))).thenAnswer(ioc -> {
+            String sha1 = ioc.getArgument(0, String.class);
+            List<String> keys = ioc.getArgument(1, List.class);
+            List<String> args = ioc.getArgument(2, List.class);
+            return mockEvalSha(sha1, keys, args);
+        });
         when(transaction.hget(anyString(), anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             String name = ioc.getArgument(1);
@@ -103,6 +126,16 @@ public class MockOfJedisForMap {
             String value = ioc.getArgument(2);
             return mockTransactionHset(key, name, value);
         });
+        when(transaction.hset(anyString(), any(Map.class))).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            Map<String, String> values = ioc.getArgument(1);
+            return TransactionOrder.quickReponseExecuted(mockHsetAll(key, values));
+        });
+        when(pipeline.hset(anyString(), any(Map.class))).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            Map<String, String> values = ioc.getArgument(1);
+            return TransactionOrder.quickReponseExecuted(mockHsetAll(key, values));
+        });
         when(transaction.hdel(anyString(), anyString())).thenAnswer(ioc -> {
             String key = ioc.getArgument(0);
             String name = ioc.getArgument(1);
@@ -169,8 +202,15 @@ public class MockOfJedisForMap {
 
     synchronized Long mockHset(String key, String name, String value) {
         Map<String, String> map = getStringStringMap(key);
-        map.put(name, value);
-        return 1L;
+        return map.put(name, value) == null ? 1L : 0L;
+    }
+
+    synchronized Long mockHsetAll(String key, Map<String, String> values) {
+        long created = 0L;
+        for(Map.Entry<String, String> entry : values.entrySet()) {
+            created += mockHset(key, entry.getKey(), entry.getValue());
+        }
+        return created;
     }
 
     synchronized Response<Long> mockTransactionHset(String key, String name, String value) {
@@ -193,6 +233,31 @@ public class MockOfJedisForMap {
         return TransactionOrder.quickReponseExecuted(data);
     }
 
+    synchronized String mockScriptLoad(String script) {
+        String sha1 = ScriptEvalSha1.sha1(script);
+        if (script.contains("removeIfEquals")) {
+            scriptsBySha1.put(sha1, "removeIfEquals");
+        }
+        return sha1;
+    }
+
+    synchronized Object mockEvalSha(String sha1, List<String> keys, List<String> args) {
+        String script = scriptsBySha1.get(sha1);
+        if ("removeIfEquals".equals(script)) {
+            return mockRemoveIfEquals(keys.get(0), args.get(0), args.get(1));
+        } else {
+            throw new IllegalStateException("MockOfJedis script not found " + sha1);
+        }
+    }
+
+    synchronized Long mockRemoveIfEquals(String key, String name, String value) {
+        if (value.equals(mockHget(key, name))) {
+            return mockHdel(key, name);
+        } else {
+            return 0L;
+        }
+    }
+
     synchronized ScanResult<Map.Entry<String, String>> mockHscan(String key, String cursor, ScanParams scanParams) {
         Map<String, String> map = getStringStringMap(key);
         List<Map.Entry<String, String>> results = new ArrayList<>(map.entrySet());
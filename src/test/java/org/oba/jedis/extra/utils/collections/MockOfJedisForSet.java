@@ -1,5 +1,6 @@
 package org.oba.jedis.extra.utils.collections;
 
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.oba.jedis.extra.utils.test.TransactionOrder;
@@ -15,14 +16,17 @@ import io.valkey.params.ScanParams;
 import io.valkey.resps.ScanResult;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -102,9 +106,53 @@ public class MockOfJedisForSet {
             ScanParams scanParams = ioc.getArgument(2);
             return mockSscan(key, cursor, scanParams);
         });
+        when(jedis.smismember(anyString(), any())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return mockSmismember(key, varargs(ioc, 1));
+        });
+        when(jedis.sunionstore(anyString(), any())).thenAnswer(ioc -> {
+            String destination = ioc.getArgument(0);
+            return mockStore(destination, varargs(ioc, 1), Set::addAll);
+        });
+        when(jedis.sinterstore(anyString(), any())).thenAnswer(ioc -> {
+            String destination = ioc.getArgument(0);
+            return mockStore(destination, varargs(ioc, 1), Set::retainAll);
+        });
+        when(jedis.sdiffstore(anyString(), any())).thenAnswer(ioc -> {
+            String destination = ioc.getArgument(0);
+            return mockStore(destination, varargs(ioc, 1), Set::removeAll);
+        });
+        when(jedis.sintercard(ArgumentMatchers.<String>any())).thenAnswer(ioc ->
+                mockSintercard(0, varargs(ioc, 0))
+        );
+        when(jedis.sintercard(anyInt(), ArgumentMatchers.<String>any())).thenAnswer(ioc -> {
+            int limit = ioc.getArgument(0);
+            return mockSintercard(limit, varargs(ioc, 1));
+        });
+        when(transaction.scard(anyString())).thenAnswer(ioc -> {
+            String key = ioc.getArgument(0);
+            return TransactionOrder.quickReponseExecuted(mockScard(key));
+        });
+        when(transaction.sinterstore(anyString(), any())).thenAnswer(ioc -> {
+            String destination = ioc.getArgument(0);
+            return TransactionOrder.quickReponseExecuted(mockStore(destination, varargs(ioc, 1), Set::retainAll));
+        });
         PowerMockito.when(transaction.exec()).thenAnswer(ioc -> mockTransactionExec());
     }
 
+    private static String[] varargs(InvocationOnMock ioc, int from) {
+        List<String> values = new ArrayList<>();
+        for(int i = from; i < ioc.getArguments().length; i++) {
+            Object value = ioc.getArgument(i);
+            if (value instanceof String[]) {
+                values.addAll(Arrays.asList((String[]) value));
+            } else {
+                values.add((String) value);
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+
     private Long iocSadd(InvocationOnMock ioc){
         // dont like it, but it works
         String key = ioc.getArgument(0);
@@ -184,6 +232,36 @@ public class MockOfJedisForSet {
         return Long.valueOf(getStringSet(key).size());
     }
 
+    synchronized List<Boolean> mockSmismember(String key, String[] values) {
+        Set<String> set = getStringSet(key);
+        List<Boolean> result = new ArrayList<>(values.length);
+        for(String value: values) {
+            result.add(set.contains(value));
+        }
+        return result;
+    }
+
+    synchronized Long mockStore(String destination, String[] keys, BiConsumer<Set<String>, Set<String>> operation) {
+        Set<String> result = new HashSet<>(getStringSet(keys[0]));
+        for(int i = 1; i < keys.length; i++) {
+            operation.accept(result, getStringSet(keys[i]));
+        }
+        if (result.isEmpty()) {
+            data.remove(destination);
+        } else {
+            data.put(destination, result);
+        }
+        return (long) result.size();
+    }
+
+    synchronized Long mockSintercard(int limit, String[] keys) {
+        Set<String> result = new HashSet<>(getStringSet(keys[0]));
+        for(int i = 1; i < keys.length; i++) {
+            result.retainAll(getStringSet(keys[i]));
+        }
+        return limit > 0 ? Math.min(limit, result.size()) : (long) result.size();
+    }
+
 
 
     synchronized ScanResult<String> mockSscan(String key, String cursor, ScanParams scanParams) {
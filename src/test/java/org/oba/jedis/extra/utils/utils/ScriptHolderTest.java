@@ -3,7 +3,10 @@ package org.oba.jedis.extra.utils.utils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.oba.jedis.extra.utils.cache.SimpleCache;
+import org.oba.jedis.extra.utils.cache.TypedCache;
 import org.oba.jedis.extra.utils.collections.JedisList;
+import org.oba.jedis.extra.utils.collections.JedisMap;
 import org.oba.jedis.extra.utils.cycle.CycleData;
 import org.oba.jedis.extra.utils.interruptinglocks.JedisLock;
 import org.oba.jedis.extra.utils.rateLimiter.BucketRateLimiter;
@@ -46,10 +49,13 @@ public class ScriptHolderTest {
         ScriptHolder holder = ScriptHolder.generateHolderForJedisExtraUtils(mockOfJedis.getJedisPool());
         assertNotNull(holder.getScript(BucketRateLimiter.SCRIPT_NAME));
         assertNotNull(holder.getScript(CycleData.SCRIPT_NAME));
-        assertNotNull(holder.getScript(JedisList.SCRIPT_NAME_INDEX_OF));
-        assertNotNull(holder.getScript(JedisList.SCRIPT_NAME_LAST_INDEX_OF));
+        assertNotNull(holder.getScript(JedisList.SCRIPT_NAME_INSERT_AT));
+        assertNotNull(holder.getScript(JedisList.SCRIPT_NAME_REMOVE_AT));
+        assertNotNull(holder.getScript(JedisMap.SCRIPT_NAME_REMOVE_IF_EQUALS));
         assertNotNull(holder.getScript(JedisLock.SCRIPT_NAME));
         assertNotNull(holder.getScript(JedisSemaphore.SCRIPT_NAME));
+        assertNotNull(holder.getScript(SimpleCache.SCRIPT_NAME));
+        assertNotNull(holder.getScript(TypedCache.SCRIPT_NAME));
     }
 
     @Test